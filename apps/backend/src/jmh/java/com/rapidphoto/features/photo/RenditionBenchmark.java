@@ -0,0 +1,96 @@
+package com.rapidphoto.features.photo;
+
+import net.coobird.thumbnailator.Thumbnails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-photo cost of producing the 1600/800/200 renditions: the previous three independent
+ * decodes versus {@link RenditionEngine}'s single decode + cascade. Encodes run on the calling
+ * thread so the score is CPU time per photo; run with the gc profiler for bytes allocated per op.
+ *
+ * ./gradlew jmh -Pjmh.includes=RenditionBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djava.awt.headless=true"})
+public class RenditionBenchmark {
+
+    private static final int[] SIZES = {200, 800, 1600};
+
+    /**
+     * 24 MP (6000x4000) and 12 MP (4000x3000) originals
+     */
+    @Param({"6000x4000", "4000x3000"})
+    public String dimensions;
+
+    private byte[] original;
+    private RenditionEngine engine;
+
+    @Setup
+    public void setUp() throws Exception {
+        String[] parts = dimensions.split("x");
+        original = syntheticJpeg(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        engine = new RenditionEngine(Runnable::run, new RenditionEncoder(12288, 102400, 327680, 0.5f, 5),
+            new DecodeBudget(Long.MAX_VALUE / 2, 0),
+            new String[] {"large", "medium", "thumbnail"});
+    }
+
+    @Benchmark
+    public void threeDecodes(Blackhole blackhole) throws Exception {
+        for (int size : SIZES) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Thumbnails.of(new ByteArrayInputStream(original))
+                .size(size, size)
+                .outputFormat("jpg")
+                .outputQuality(0.85)
+                .toOutputStream(out);
+            blackhole.consume(out.toByteArray());
+        }
+    }
+
+    @Benchmark
+    public void singleDecodeCascade(Blackhole blackhole) throws Exception {
+        blackhole.consume(engine.render(original));
+    }
+
+    /**
+     * Smooth gradients plus sensor-like noise, so the JPEG has realistic entropy
+     */
+    private static byte[] syntheticJpeg(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int r = clamp((x * 255 / width) + random.nextInt(24) - 12);
+                int g = clamp((y * 255 / height) + random.nextInt(24) - 12);
+                int b = clamp(((x + y) * 255 / (width + height)) + random.nextInt(24) - 12);
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        return RenditionEncoder.encodeJpeg(image, 0.92f);
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
@@ -0,0 +1,88 @@
+package com.rapidphoto.features.similarity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One user's library of 500k perceptual hashes: a near-duplicate search, and a re-hash of an
+ * already indexed photo (finding its entry by photo id, then appending the new hash).
+ *
+ * ./gradlew jmh -Pjmh.includes=HashIndexBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class HashIndexBenchmark {
+
+    private static final int QUERIES = 4096;
+
+    @Param("500000")
+    public int size;
+
+    @Param({"6", "10"})
+    public int maxDistance;
+
+    private HashIndex index;
+    private UUID[] photoIds;
+    private long[] queries;
+    private int[] rehashed;
+    private long[] newHashes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(22);
+        index = new HashIndex(size);
+        photoIds = new UUID[size];
+        long[] hashes = new long[size];
+        for (int i = 0; i < size; i++) {
+            photoIds[i] = UUID.randomUUID();
+            hashes[i] = random.nextLong();
+            index.append(photoIds[i], hashes[i]);
+        }
+        index.sort();
+
+        // Queries near an indexed photo (an upload of a re-encoded copy), as the gallery issues them
+        queries = new long[QUERIES];
+        rehashed = new int[QUERIES];
+        newHashes = new long[QUERIES];
+        for (int q = 0; q < QUERIES; q++) {
+            long hash = hashes[random.nextInt(size)];
+            for (int flips = random.nextInt(4); flips > 0; flips--) {
+                hash ^= 1L << random.nextInt(64);
+            }
+            queries[q] = hash;
+            rehashed[q] = random.nextInt(size);
+            newHashes[q] = random.nextLong();
+        }
+    }
+
+    @Benchmark
+    public List<SimilarPhoto> search() {
+        return index.search(queries[next++ & (QUERIES - 1)], maxDistance, 20);
+    }
+
+    @Benchmark
+    public int rehashPhoto() {
+        int q = next++ & (QUERIES - 1);
+        index.put(photoIds[rehashed[q]], newHashes[q]);
+        return index.size();
+    }
+}
@@ -8,14 +8,29 @@ public class StartPhotoUploadCommand {
     private final String originalFileName;
     private final long fileSizeBytes;
     private final String mimeType;
+    private final String multipartUploadId;
+    private final Long chunkSizeBytes;
 
     public StartPhotoUploadCommand(UUID userId, String fileName, String originalFileName,
                                    long fileSizeBytes, String mimeType) {
+        this(userId, fileName, originalFileName, fileSizeBytes, mimeType, null);
+    }
+
+    public StartPhotoUploadCommand(UUID userId, String fileName, String originalFileName,
+                                   long fileSizeBytes, String mimeType, String multipartUploadId) {
+        this(userId, fileName, originalFileName, fileSizeBytes, mimeType, multipartUploadId, null);
+    }
+
+    public StartPhotoUploadCommand(UUID userId, String fileName, String originalFileName,
+                                   long fileSizeBytes, String mimeType, String multipartUploadId,
+                                   Long chunkSizeBytes) {
         this.userId = userId;
         this.fileName = fileName;
         this.originalFileName = originalFileName;
         this.fileSizeBytes = fileSizeBytes;
         this.mimeType = mimeType;
+        this.multipartUploadId = multipartUploadId;
+        this.chunkSizeBytes = chunkSizeBytes;
     }
 
     public UUID getUserId() { return userId; }
@@ -23,5 +38,7 @@ public class StartPhotoUploadCommand {
     public String getOriginalFileName() { return originalFileName; }
     public long getFileSizeBytes() { return fileSizeBytes; }
     public String getMimeType() { return mimeType; }
+    public String getMultipartUploadId() { return multipartUploadId; }
+    public Long getChunkSizeBytes() { return chunkSizeBytes; }
 }
 
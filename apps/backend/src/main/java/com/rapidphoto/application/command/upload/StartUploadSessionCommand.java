@@ -0,0 +1,26 @@
+package com.rapidphoto.application.command.upload;
+
+import com.rapidphoto.application.command.photo.StartPhotoUploadCommand;
+
+import java.util.List;
+import java.util.UUID;
+
+public class StartUploadSessionCommand {
+    private final UUID userId;
+    private final String sessionKey;
+    private final List<StartPhotoUploadCommand> files;
+
+    public StartUploadSessionCommand(UUID userId, String sessionKey, List<StartPhotoUploadCommand> files) {
+        this.userId = userId;
+        this.sessionKey = sessionKey;
+        this.files = List.copyOf(files);
+    }
+
+    public UUID getUserId() { return userId; }
+    public String getSessionKey() { return sessionKey; }
+    public List<StartPhotoUploadCommand> getFiles() { return files; }
+
+    public long getTotalBytes() {
+        return files.stream().mapToLong(StartPhotoUploadCommand::getFileSizeBytes).sum();
+    }
+}
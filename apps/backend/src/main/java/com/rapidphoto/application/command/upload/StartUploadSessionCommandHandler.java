@@ -0,0 +1,79 @@
+package com.rapidphoto.application.command.upload;
+
+import com.rapidphoto.application.command.CommandHandler;
+import com.rapidphoto.application.command.photo.StartPhotoUploadCommand;
+import com.rapidphoto.application.quota.QuotaReservationService;
+import com.rapidphoto.domain.photo.Photo;
+import com.rapidphoto.domain.photo.PhotoId;
+import com.rapidphoto.domain.photo.PhotoRepository;
+import com.rapidphoto.domain.upload.UploadSession;
+import com.rapidphoto.domain.upload.UploadSessionId;
+import com.rapidphoto.domain.upload.UploadSessionRepository;
+import com.rapidphoto.domain.user.UserId;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public class StartUploadSessionCommandHandler implements CommandHandler<StartUploadSessionCommand, StartUploadSessionResult> {
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final PhotoRepository photoRepository;
+    private final QuotaReservationService quotaReservationService;
+
+    public StartUploadSessionCommandHandler(UploadSessionRepository uploadSessionRepository,
+                                            PhotoRepository photoRepository,
+                                            QuotaReservationService quotaReservationService) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.photoRepository = photoRepository;
+        this.quotaReservationService = quotaReservationService;
+    }
+
+    @Override
+    @Transactional
+    public StartUploadSessionResult handle(StartUploadSessionCommand command) {
+        if (command.getFiles().isEmpty()) {
+            throw new IllegalArgumentException("Upload session must contain at least one file");
+        }
+
+        // One quota reservation for the whole manifest
+        quotaReservationService.reserve(command.getUserId(), command.getTotalBytes());
+
+        UserId userId = new UserId(command.getUserId());
+        UploadSession session = new UploadSession(
+            UUID.randomUUID(),
+            userId,
+            command.getSessionKey(),
+            command.getFiles().size(),
+            command.getTotalBytes()
+        );
+        // Flush first: photos reference the session row by plain FK column, which insert ordering cannot see
+        uploadSessionRepository.saveAndFlush(session);
+        UploadSessionId sessionId = session.getUploadSessionId();
+
+        List<Photo> photos = new ArrayList<>(command.getFiles().size());
+        for (StartPhotoUploadCommand file : command.getFiles()) {
+            Photo photo = new Photo(
+                PhotoId.generate(),
+                userId,
+                file.getFileName(),
+                file.getOriginalFileName(),
+                file.getFileSizeBytes(),
+                file.getMimeType(),
+                command.getUserId() + "/" + file.getFileName()
+            );
+            photo.setMultipartUploadId(file.getMultipartUploadId());
+            photo.setUploadSessionId(sessionId);
+            photos.add(photo);
+        }
+
+        // Inserts are grouped into JDBC batches (hibernate.jdbc.batch_size)
+        photoRepository.saveAll(photos);
+
+        List<UUID> photoIds = photos.stream().map(photo -> photo.getId().getValue()).toList();
+        return new StartUploadSessionResult(session.getId(), photoIds);
+    }
+}
@@ -0,0 +1,21 @@
+package com.rapidphoto.application.command.upload;
+
+import java.util.List;
+import java.util.UUID;
+
+public class StartUploadSessionResult {
+    private final UUID sessionId;
+    private final List<UUID> photoIds;
+
+    public StartUploadSessionResult(UUID sessionId, List<UUID> photoIds) {
+        this.sessionId = sessionId;
+        this.photoIds = photoIds;
+    }
+
+    public UUID getSessionId() { return sessionId; }
+
+    /**
+     * Photo IDs in the same order as the command's files
+     */
+    public List<UUID> getPhotoIds() { return photoIds; }
+}
@@ -0,0 +1,61 @@
+package com.rapidphoto.application.quota;
+
+import com.rapidphoto.domain.user.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+/**
+ * Storage quota reservations as single conditional UPDATEs on the users row.
+ * Concurrent uploads for the same user serialize only on the row lock for the
+ * duration of one statement - no read-modify-write of the User aggregate and
+ * no optimistic-lock retries.
+ */
+@Service
+public class QuotaReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuotaReservationService.class);
+
+    private final UserRepository userRepository;
+
+    public QuotaReservationService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Reserve bytes against the user's quota. Joins the caller's transaction, so the
+     * reservation rolls back with it if the upload record cannot be written.
+     * @throws IllegalArgumentException if the user does not exist
+     * @throws IllegalStateException if the quota would be exceeded
+     */
+    @Transactional
+    public void reserve(UUID userId, long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Cannot reserve negative bytes: " + bytes);
+        }
+        if (userRepository.reserveStorage(userId, bytes) == 1) {
+            return;
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found: " + userId);
+        }
+        logger.warn("Storage quota exceeded: userId={}, requested={}", userId, bytes);
+        throw new IllegalStateException("Storage quota exceeded");
+    }
+
+    /**
+     * Return bytes to the user's quota (deleted photo, abandoned upload)
+     */
+    @Transactional
+    public void release(UUID userId, long bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+        if (userRepository.releaseStorage(userId, bytes) == 0) {
+            throw new IllegalArgumentException("User not found: " + userId);
+        }
+    }
+}
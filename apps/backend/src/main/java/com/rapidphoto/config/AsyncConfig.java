@@ -6,6 +6,7 @@ import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -25,9 +26,27 @@ public class AsyncConfig implements AsyncConfigurer {
     @Value("${upload.thread-pool.queue-capacity:500}")
     private int queueCapacity;
 
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${upload.virtual-threads.task-concurrency:1000}")
+    private int virtualTaskConcurrency;
+
     @Bean(name = "taskExecutor")
     @Override
     public Executor getAsyncExecutor() {
+        if (virtualThreads) {
+            // A virtual thread per task; at the limit submitters wait instead of running it themselves
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("Upload-Async-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(virtualTaskConcurrency);
+            executor.setTaskTerminationTimeout(60000);
+
+            logger.info("Async task executor configured: virtual threads, concurrency={}", virtualTaskConcurrency);
+
+            return executor;
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         
         // Core pool size - minimum threads always alive
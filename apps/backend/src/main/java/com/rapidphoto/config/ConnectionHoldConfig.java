@@ -0,0 +1,46 @@
+package com.rapidphoto.config;
+
+import com.rapidphoto.infrastructure.db.ConnectionHoldDataSource;
+import com.rapidphoto.infrastructure.db.ConnectionHoldFilter;
+import com.rapidphoto.infrastructure.db.ConnectionHoldTracker;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class ConnectionHoldConfig {
+
+    /**
+     * Wrap the pooled DataSource so connection hold times are measured
+     */
+    @Bean
+    public static BeanPostProcessor connectionHoldDataSourcePostProcessor(
+            ObjectProvider<ConnectionHoldTracker> tracker) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionHoldDataSource)) {
+                    return new ConnectionHoldDataSource(dataSource, tracker.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Outermost filter, so checkouts made by security and admission filters count too
+     */
+    @Bean
+    public FilterRegistrationBean<ConnectionHoldFilter> connectionHoldFilter(ConnectionHoldTracker tracker) {
+        FilterRegistrationBean<ConnectionHoldFilter> registration =
+            new FilterRegistrationBean<>(new ConnectionHoldFilter(tracker));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -1,53 +1,87 @@
 package com.rapidphoto.config;
 
+import com.rapidphoto.infrastructure.admission.InFlightByteBudget;
+import com.rapidphoto.infrastructure.scheduling.FairQueueExecutor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.Executor;
 
 @Configuration
 public class ThreadPoolMetricsConfig {
 
+    private static final int TOP_TENANTS = 20;
+
     @Bean
     public HealthIndicator uploadExecutorHealthIndicator(
             @Qualifier("uploadExecutor") Executor executor) {
-        
+        return () -> fairQueueHealth(executor);
+    }
+
+    @Bean
+    public HealthIndicator processingExecutorHealthIndicator(
+            @Qualifier("processingExecutor") Executor executor) {
+        return () -> fairQueueHealth(executor);
+    }
+
+    @Bean
+    public HealthIndicator uploadAdmissionHealthIndicator(InFlightByteBudget budget) {
         return () -> {
-            if (executor instanceof ThreadPoolTaskExecutor) {
-                ThreadPoolTaskExecutor taskExecutor = (ThreadPoolTaskExecutor) executor;
-                
-                Map<String, Object> details = new HashMap<>();
-                details.put("activeThreads", taskExecutor.getActiveCount());
-                details.put("poolSize", taskExecutor.getPoolSize());
-                details.put("corePoolSize", taskExecutor.getCorePoolSize());
-                details.put("maxPoolSize", taskExecutor.getMaxPoolSize());
-                details.put("queueSize", taskExecutor.getThreadPoolExecutor().getQueue().size());
-                details.put("queueCapacity", taskExecutor.getQueueCapacity());
-                details.put("completedTasks", taskExecutor.getThreadPoolExecutor().getCompletedTaskCount());
-                
-                // Health check - warn if queue is > 80% full
-                int queueSize = taskExecutor.getThreadPoolExecutor().getQueue().size();
-                int queueCapacity = taskExecutor.getQueueCapacity();
-                double queueUtilization = (double) queueSize / queueCapacity;
-                
-                if (queueUtilization > 0.8) {
-                    return Health.down()
-                        .withDetails(details)
-                        .withDetail("warning", "Queue utilization above 80%")
-                        .build();
-                }
-                
-                return Health.up().withDetails(details).build();
+            Map<String, Object> details = new HashMap<>();
+            details.put("inFlightBytes", budget.getInFlightBytes());
+            details.put("maxInFlightBytes", budget.getMaxBytes());
+
+            // Saturated budget means new uploads are being turned away with 503
+            if (budget.getInFlightBytes() >= budget.getMaxBytes()) {
+                return Health.down()
+                    .withDetails(details)
+                    .withDetail("warning", "Upload byte budget exhausted")
+                    .build();
             }
-            
-            return Health.unknown().build();
+
+            return Health.up().withDetails(details).build();
         };
     }
-}
 
+    private Health fairQueueHealth(Executor executor) {
+        if (!(executor instanceof FairQueueExecutor)) {
+            return Health.unknown().build();
+        }
+        FairQueueExecutor fairExecutor = (FairQueueExecutor) executor;
+
+        Map<String, Object> details = new HashMap<>();
+        details.put("activeThreads", fairExecutor.getActiveCount());
+        details.put("poolSize", fairExecutor.getPoolSize());
+        details.put("queueSize", fairExecutor.getQueueSize());
+        details.put("largeQueueSize", fairExecutor.getLargeQueueSize());
+        details.put("queueCapacity", fairExecutor.getQueueCapacity());
+        details.put("completedTasks", fairExecutor.getCompletedTaskCount());
+
+        // Deepest per-user queues
+        Map<String, Integer> allTenants = fairExecutor.getQueueDepthByTenant();
+        Map<String, Integer> tenantDepth = new LinkedHashMap<>();
+        allTenants.entrySet().stream()
+            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+            .limit(TOP_TENANTS)
+            .forEach(e -> tenantDepth.put(e.getKey(), e.getValue()));
+        details.put("queuedTenants", allTenants.size());
+        details.put("queueDepthByTenant", tenantDepth);
+
+        // Health check - warn if queue is > 80% full
+        double queueUtilization = (double) fairExecutor.getQueueSize() / fairExecutor.getQueueCapacity();
+        if (queueUtilization > 0.8) {
+            return Health.down()
+                .withDetails(details)
+                .withDetail("warning", "Queue utilization above 80%")
+                .build();
+        }
+
+        return Health.up().withDetails(details).build();
+    }
+}
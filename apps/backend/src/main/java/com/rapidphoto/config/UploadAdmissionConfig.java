@@ -0,0 +1,35 @@
+package com.rapidphoto.config;
+
+import com.rapidphoto.infrastructure.admission.InFlightByteBudget;
+import com.rapidphoto.infrastructure.admission.UploadAdmissionFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class UploadAdmissionConfig {
+
+    @Value("${upload.admission.min-tracked-bytes:65536}")
+    private long minTrackedBytes;
+
+    @Value("${upload.chunk-size:5242880}")
+    private long chunkSize;
+
+    @Value("${upload.admission.max-concurrent-requests:0}")
+    private int maxConcurrentRequests;
+
+    /**
+     * Admission filter for upload bodies. Ordered right after the security chain so
+     * unauthenticated requests never take budget and rejections still carry CORS headers.
+     */
+    @Bean
+    public FilterRegistrationBean<UploadAdmissionFilter> uploadAdmissionFilter(InFlightByteBudget budget) {
+        FilterRegistrationBean<UploadAdmissionFilter> registration =
+            new FilterRegistrationBean<>(new UploadAdmissionFilter(budget, minTrackedBytes, chunkSize, maxConcurrentRequests));
+        registration.addUrlPatterns("/api/upload/*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+}
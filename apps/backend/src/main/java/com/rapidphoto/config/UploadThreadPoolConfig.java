@@ -1,10 +1,12 @@
 package com.rapidphoto.config;
 
+import com.rapidphoto.infrastructure.scheduling.FairQueueExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
@@ -18,35 +20,40 @@ public class UploadThreadPoolConfig {
     @Value("${upload.thread-pool.core-size:20}")
     private int corePoolSize;
 
-    @Value("${upload.thread-pool.max-size:100}")
-    private int maxPoolSize;
-
     @Value("${upload.thread-pool.queue-capacity:500}")
     private int queueCapacity;
 
+    @Value("${upload.thread-pool.small-task-max-bytes:16777216}")
+    private long smallTaskMaxBytes;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${upload.virtual-threads.upload-concurrency:500}")
+    private int virtualUploadConcurrency;
+
+    @Value("${upload.virtual-threads.webhook-concurrency:200}")
+    private int virtualWebhookConcurrency;
+
+    @Value("${upload.session.initiate-concurrency:16}")
+    private int initiateConcurrency;
+
     /**
-     * Thread pool specifically for file upload processing
+     * Thread pool specifically for file upload processing. Tasks are queued per user
+     * (see {@link FairQueueExecutor}) so one bulk upload cannot hold up everyone else.
      */
     @Bean(name = "uploadExecutor")
-    public Executor uploadExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        
-        executor.setCorePoolSize(corePoolSize);
-        executor.setMaxPoolSize(maxPoolSize);
-        executor.setQueueCapacity(queueCapacity);
-        executor.setThreadNamePrefix("Upload-Worker-");
-        
-        // CallerRunsPolicy - if pool is full, caller thread executes the task
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
-        
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setAwaitTerminationSeconds(120); // Wait up to 2 minutes for uploads to finish
-        
-        executor.initialize();
-        
-        logger.info("Upload executor configured: core={}, max={}, queue={}", 
-            corePoolSize, maxPoolSize, queueCapacity);
-        
+    public FairQueueExecutor uploadExecutor() {
+        // Rejects when full - a full queue surfaces as 503 instead of running assembly on a
+        // request thread; admission control normally keeps the queue well below capacity
+        // On virtual threads the worker count is just a concurrency cap, not OS threads
+        int workers = virtualThreads ? virtualUploadConcurrency : corePoolSize;
+        FairQueueExecutor executor = new FairQueueExecutor(
+            "Upload-Worker-", workers, queueCapacity, smallTaskMaxBytes, false, 120, virtualThreads);
+
+        logger.info("Upload executor configured: workers={}, queue={}, smallTaskMaxBytes={}, virtualThreads={}",
+            workers, queueCapacity, smallTaskMaxBytes, virtualThreads);
+
         return executor;
     }
 
@@ -55,6 +62,19 @@ public class UploadThreadPoolConfig {
      */
     @Bean(name = "webhookExecutor")
     public Executor webhookExecutor() {
+        if (virtualThreads) {
+            // One virtual thread per webhook; the concurrency limit blocks submitters once
+            // reached instead of rejecting, so no notification is dropped
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("Webhook-Worker-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(virtualWebhookConcurrency);
+            executor.setTaskTerminationTimeout(30000);
+
+            logger.info("Webhook executor configured: virtual threads, concurrency={}", virtualWebhookConcurrency);
+
+            return executor;
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         
         // Smaller pool for webhooks (not CPU intensive)
@@ -77,29 +97,37 @@ public class UploadThreadPoolConfig {
     }
 
     /**
-     * Thread pool for image processing tasks
+     * Opens the multipart uploads of a new upload session in parallel. The calls are remote
+     * and independent, so a 1000-file session waits for ~1000/concurrency round trips instead
+     * of 1000; the limit keeps one session from flooding the object store.
+     */
+    @Bean(name = "multipartInitiateExecutor")
+    public Executor multipartInitiateExecutor() {
+        // Submitters wait at the limit rather than being rejected
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("Multipart-Initiate-");
+        executor.setVirtualThreads(virtualThreads);
+        executor.setConcurrencyLimit(initiateConcurrency);
+
+        logger.info("Multipart initiate executor configured: concurrency={}, virtualThreads={}",
+            initiateConcurrency, virtualThreads);
+
+        return executor;
+    }
+
+    /**
+     * Thread pool for image processing tasks, fair-queued per user like uploads
      */
     @Bean(name = "processingExecutor")
-    public Executor processingExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        
-        // CPU-intensive tasks - use available processors
+    public FairQueueExecutor processingExecutor() {
+        // CPU-intensive tasks - use available processors (platform threads in either mode)
         int processors = Runtime.getRuntime().availableProcessors();
-        executor.setCorePoolSize(processors);
-        executor.setMaxPoolSize(processors * 2);
-        executor.setQueueCapacity(200);
-        executor.setThreadNamePrefix("Processing-Worker-");
-        
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
-        
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setAwaitTerminationSeconds(180); // Wait up to 3 minutes for processing
-        
-        executor.initialize();
-        
-        logger.info("Processing executor configured: core={}, max={}, queue=200", 
-            processors, processors * 2);
-        
+
+        // Caller runs the task if the queue is full
+        FairQueueExecutor executor = new FairQueueExecutor(
+            "Processing-Worker-", processors, 200, smallTaskMaxBytes, true, 180);
+
+        logger.info("Processing executor configured: workers={}, queue=200", processors);
+
         return executor;
     }
 }
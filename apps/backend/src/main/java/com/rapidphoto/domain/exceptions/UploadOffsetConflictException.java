@@ -0,0 +1,18 @@
+package com.rapidphoto.domain.exceptions;
+
+/**
+ * A resumable upload was appended at an offset other than the committed one
+ */
+public class UploadOffsetConflictException extends RuntimeException {
+
+    private final long committedOffset;
+
+    public UploadOffsetConflictException(String message, long committedOffset) {
+        super(message);
+        this.committedOffset = committedOffset;
+    }
+
+    public long getCommittedOffset() {
+        return committedOffset;
+    }
+}
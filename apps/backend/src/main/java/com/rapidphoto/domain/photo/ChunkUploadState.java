@@ -0,0 +1,67 @@
+package com.rapidphoto.domain.photo;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Compact persisted state of a chunked upload: one row per photo holding a
+ * received-chunk bitmap (bit n set = chunk n stored), replacing one row per chunk
+ */
+@Entity
+@Table(name = "chunk_upload_state")
+public class ChunkUploadState {
+
+    @Id
+    @Column(name = "photo_id")
+    private UUID photoId;
+
+    @Column(name = "total_chunks", nullable = false)
+    private Integer totalChunks;
+
+    @Column(name = "received_chunks", nullable = false)
+    private Integer receivedChunks;
+
+    @Column(name = "received_bitmap", nullable = false)
+    private byte[] receivedBitmap;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    protected ChunkUploadState() {} // JPA
+
+    public ChunkUploadState(UUID photoId, Integer totalChunks) {
+        this.photoId = Objects.requireNonNull(photoId);
+        this.totalChunks = Objects.requireNonNull(totalChunks);
+        this.receivedChunks = 0;
+        this.receivedBitmap = new byte[0];
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public UUID getPhotoId() {
+        return photoId;
+    }
+
+    public Integer getTotalChunks() {
+        return totalChunks;
+    }
+
+    public Integer getReceivedChunks() {
+        return receivedChunks;
+    }
+
+    public byte[] getReceivedBitmap() {
+        return receivedBitmap;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void update(byte[] receivedBitmap, int receivedChunks) {
+        this.receivedBitmap = Objects.requireNonNull(receivedBitmap);
+        this.receivedChunks = receivedChunks;
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,23 @@
+package com.rapidphoto.domain.photo;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ChunkUploadStateRepository extends JpaRepository<ChunkUploadState, UUID> {
+
+    /**
+     * Load and row-lock an upload's state, so instances merging their bitmaps into it
+     * take turns instead of overwriting each other's bits
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ChunkUploadState s WHERE s.photoId = :photoId")
+    Optional<ChunkUploadState> findForUpdate(@Param("photoId") UUID photoId);
+}
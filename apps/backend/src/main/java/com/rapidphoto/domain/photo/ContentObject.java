@@ -0,0 +1,82 @@
+package com.rapidphoto.domain.photo;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * A stored original, addressed by the SHA-256 of its bytes. Photos with identical
+ * content share one ContentObject; refCount tracks how many non-deleted photos use it.
+ */
+@Entity
+@Table(name = "content_objects")
+public class ContentObject {
+
+    @Id
+    @Column(name = "sha256", length = 64)
+    private String sha256;
+
+    @Column(name = "storage_path", nullable = false)
+    private String storagePath;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @Column(name = "mime_type")
+    private String mimeType;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Version
+    private Integer version;
+
+    protected ContentObject() {} // JPA
+
+    public ContentObject(String sha256, String storagePath, long sizeBytes, String mimeType) {
+        this.sha256 = Objects.requireNonNull(sha256);
+        this.storagePath = Objects.requireNonNull(storagePath);
+        this.sizeBytes = sizeBytes;
+        this.mimeType = mimeType;
+        this.refCount = 1;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    /**
+     * Content-addressed key: originals/{first two hex chars}/{sha256}
+     */
+    public static String storagePathFor(String sha256) {
+        return "originals/" + sha256.substring(0, 2) + "/" + sha256;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public String getStoragePath() {
+        return storagePath;
+    }
+
+    public Long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public Integer getRefCount() {
+        return refCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void decrementRefCount() {
+        this.refCount = Math.max(0, refCount - 1);
+    }
+}
@@ -0,0 +1,32 @@
+package com.rapidphoto.domain.photo;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface ContentObjectRepository extends JpaRepository<ContentObject, String> {
+
+    /**
+     * Take a reference on existing content
+     * @return 1 if the content exists, 0 otherwise
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ContentObject c SET c.refCount = c.refCount + 1 WHERE c.sha256 = :sha256")
+    int incrementRefCount(@Param("sha256") String sha256);
+
+    /**
+     * Load and row-lock content for a reference release, serializing against concurrent acquires
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ContentObject c WHERE c.sha256 = :sha256")
+    Optional<ContentObject> findForUpdate(@Param("sha256") String sha256);
+}
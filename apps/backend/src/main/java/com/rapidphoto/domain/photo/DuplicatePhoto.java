@@ -0,0 +1,74 @@
+package com.rapidphoto.domain.photo;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A detected near-duplicate pair: {@code photoId} looks like the earlier {@code duplicateOfPhotoId}
+ */
+@Entity
+@Table(name = "duplicate_photos")
+public class DuplicatePhoto {
+
+    public static final String METHOD_PERCEPTUAL_HASH = "perceptual_hash";
+
+    @Id
+    private UUID id;
+
+    @Column(name = "photo_id", nullable = false)
+    private UUID photoId;
+
+    @Column(name = "duplicate_of_photo_id", nullable = false)
+    private UUID duplicateOfPhotoId;
+
+    @Column(name = "similarity_score", nullable = false, precision = 5, scale = 4)
+    private BigDecimal similarityScore;
+
+    @Column(name = "hamming_distance")
+    private Integer hammingDistance;
+
+    @Column(name = "detection_method", nullable = false, length = 50)
+    private String detectionMethod;
+
+    @Column(name = "detected_at", nullable = false)
+    private LocalDateTime detectedAt;
+
+    @Column(name = "is_primary", nullable = false)
+    private boolean primary;
+
+    protected DuplicatePhoto() {} // JPA
+
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getPhotoId() {
+        return photoId;
+    }
+
+    public UUID getDuplicateOfPhotoId() {
+        return duplicateOfPhotoId;
+    }
+
+    public BigDecimal getSimilarityScore() {
+        return similarityScore;
+    }
+
+    public Integer getHammingDistance() {
+        return hammingDistance;
+    }
+
+    public String getDetectionMethod() {
+        return detectionMethod;
+    }
+
+    public LocalDateTime getDetectedAt() {
+        return detectedAt;
+    }
+
+    public boolean isPrimary() {
+        return primary;
+    }
+}
@@ -0,0 +1,37 @@
+package com.rapidphoto.domain.photo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface DuplicatePhotoRepository extends JpaRepository<DuplicatePhoto, UUID> {
+    List<DuplicatePhoto> findByPhotoId(UUID photoId);
+    List<DuplicatePhoto> findByDuplicateOfPhotoId(UUID duplicateOfPhotoId);
+
+    /**
+     * Record a pair unless it is already known in either direction; safe against the same pair
+     * being detected concurrently (reprocessing, backfill)
+     * @return 1 if recorded, 0 if the pair existed
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO duplicate_photos "
+        + "(id, photo_id, duplicate_of_photo_id, similarity_score, hamming_distance, detection_method, detected_at, is_primary) "
+        + "SELECT gen_random_uuid(), :photoId, :duplicateOf, :score, :distance, :method, NOW(), false "
+        + "WHERE NOT EXISTS (SELECT 1 FROM duplicate_photos "
+        + "WHERE photo_id = :duplicateOf AND duplicate_of_photo_id = :photoId) "
+        + "ON CONFLICT (photo_id, duplicate_of_photo_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("photoId") UUID photoId,
+                       @Param("duplicateOf") UUID duplicateOf,
+                       @Param("score") BigDecimal score,
+                       @Param("distance") int distance,
+                       @Param("method") String method);
+}
@@ -61,7 +61,16 @@ public class Photo {
     private String checksumSha256;
     
     @Column(name = "perceptual_hash")
-    private String perceptualHash;
+    private Long perceptualHash;
+    
+    @Column(name = "difference_hash")
+    private Long differenceHash;
+    
+    @Column(name = "blur_hash")
+    private String blurHash;
+    
+    @Column(name = "dominant_color")
+    private String dominantColor;
     
     @Column(name = "uploaded_at", nullable = false)
     private LocalDateTime uploadedAt;
@@ -99,6 +108,12 @@ public class Photo {
     @Column(name = "thumbnail_large_url")
     private String thumbnailLargeUrl;
     
+    @Column(name = "multipart_upload_id")
+    private String multipartUploadId;
+    
+    @Column(name = "chunk_size_bytes")
+    private Long chunkSizeBytes;
+    
     @Version
     private Integer version;
 
@@ -200,14 +215,38 @@ public class Photo {
         this.checksumSha256 = checksumSha256;
     }
 
-    public String getPerceptualHash() {
+    public Long getPerceptualHash() {
         return perceptualHash;
     }
 
-    public void setPerceptualHash(String perceptualHash) {
+    public void setPerceptualHash(Long perceptualHash) {
         this.perceptualHash = perceptualHash;
     }
 
+    public Long getDifferenceHash() {
+        return differenceHash;
+    }
+
+    public void setDifferenceHash(Long differenceHash) {
+        this.differenceHash = differenceHash;
+    }
+
+    public String getBlurHash() {
+        return blurHash;
+    }
+
+    public void setBlurHash(String blurHash) {
+        this.blurHash = blurHash;
+    }
+
+    public String getDominantColor() {
+        return dominantColor;
+    }
+
+    public void setDominantColor(String dominantColor) {
+        this.dominantColor = dominantColor;
+    }
+
     public LocalDateTime getUploadedAt() {
         return uploadedAt;
     }
@@ -280,5 +319,20 @@ public class Photo {
     public void setThumbnailLargeUrl(String thumbnailLargeUrl) {
         this.thumbnailLargeUrl = thumbnailLargeUrl;
     }
+    
+    public String getMultipartUploadId() {
+        return multipartUploadId;
+    }
+    
+    public void setMultipartUploadId(String multipartUploadId) {
+        this.multipartUploadId = multipartUploadId;
+    }
+    
+    public Long getChunkSizeBytes() {
+        return chunkSizeBytes;
+    }
+    
+    public void setChunkSizeBytes(Long chunkSizeBytes) {
+        this.chunkSizeBytes = chunkSizeBytes;
+    }
 }
-
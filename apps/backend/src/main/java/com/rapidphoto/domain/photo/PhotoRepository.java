@@ -3,9 +3,11 @@ package com.rapidphoto.domain.photo;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -36,10 +38,59 @@ public interface PhotoRepository extends JpaRepository<Photo, UUID> {
         Pageable pageable
     );
     
+    /**
+     * Oldest completed photo with this content that already has renditions (dedupe donor)
+     */
+    Optional<Photo> findFirstByChecksumSha256AndStatusAndThumbnailSmallUrlIsNotNullOrderByUploadedAtAsc(
+        String checksumSha256,
+        PhotoStatus status
+    );
+
+    /**
+     * Same as above, restricted to one user's library
+     */
+    Optional<Photo> findFirstByUserIdAndChecksumSha256AndStatusAndThumbnailSmallUrlIsNotNullOrderByUploadedAtAsc(
+        UUID userId,
+        String checksumSha256,
+        PhotoStatus status
+    );
+    
+    /**
+     * Other photos in one user's library with identical content
+     */
+    List<Photo> findByUserIdAndChecksumSha256AndStatusAndIdNot(
+        UUID userId,
+        String checksumSha256,
+        PhotoStatus status,
+        UUID id
+    );
+
     /**
      * Find photo by ID and user ID (for ownership verification)
      */
     Optional<Photo> findByIdAndUserId(UUID id, UUID userId);
+
+    /**
+     * Mark a user's photo deleted unless it already is
+     * @return 1 if this call deleted it, 0 if it was already deleted, missing or someone else's
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Photo p SET p.status = :deleted, p.version = p.version + 1 "
+        + "WHERE p.id = :photoId AND p.userId = :userId AND p.status <> :deleted")
+    int markDeleted(@Param("photoId") UUID photoId, @Param("userId") UUID userId,
+                    @Param("deleted") PhotoStatus deleted);
+
+    /**
+     * Move a photo from one status to another if it is still in the first; the row lock taken
+     * by the update makes concurrent callers (on any instance) take turns
+     * @return 1 if this call changed the status, 0 if the photo was no longer in {@code from}
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Photo p SET p.status = :to, p.version = p.version + 1 "
+        + "WHERE p.id = :photoId AND p.status = :from")
+    int transitionStatus(@Param("photoId") UUID photoId, @Param("from") PhotoStatus from,
+                         @Param("to") PhotoStatus to);
     
     /**
      * Advanced queries for search and filtering
@@ -110,5 +161,37 @@ public interface PhotoRepository extends JpaRepository<Photo, UUID> {
     
     @Query("SELECT COALESCE(SUM(p.fileSizeBytes), 0) FROM Photo p WHERE p.userId = :userId")
     long sumFileSizeByUserId(@Param("userId") UUID userId);
-}
 
+    /**
+     * Processed photos with no perceptual hash and no hashing job yet (of any outcome, so a
+     * photo whose job failed is not picked up again), oldest first
+     */
+    @Query(value = "SELECT p.id FROM photos p "
+        + "WHERE p.perceptual_hash IS NULL AND p.status = 'COMPLETED' "
+        + "AND NOT EXISTS (SELECT 1 FROM processing_jobs j "
+        + "WHERE j.photo_id = p.id AND j.job_type = 'PERCEPTUAL_HASH') "
+        + "ORDER BY p.uploaded_at ASC "
+        + "LIMIT :limit", nativeQuery = true)
+    List<UUID> findIdsMissingPerceptualHash(@Param("limit") int limit);
+
+    /**
+     * Processed photos hashed before gallery placeholders were recorded and with no placeholder
+     * job yet, oldest first. PERCEPTUAL_HASH jobs that ran before then never computed one, so
+     * only GALLERY_PLACEHOLDER jobs count; photos missing both are left to the hashing job.
+     */
+    @Query(value = "SELECT p.id FROM photos p "
+        + "WHERE p.blur_hash IS NULL AND p.perceptual_hash IS NOT NULL AND p.status = 'COMPLETED' "
+        + "AND NOT EXISTS (SELECT 1 FROM processing_jobs j "
+        + "WHERE j.photo_id = p.id AND j.job_type = 'GALLERY_PLACEHOLDER') "
+        + "ORDER BY p.uploaded_at ASC "
+        + "LIMIT :limit", nativeQuery = true)
+    List<UUID> findIdsMissingPlaceholder(@Param("limit") int limit);
+
+    /**
+     * (id, perceptual hash) pairs of one user's hashed photos - loads a similarity index
+     * without materializing the photos
+     */
+    @Query("SELECT p.id, p.perceptualHash FROM Photo p "
+        + "WHERE p.userId = :userId AND p.status = :status AND p.perceptualHash IS NOT NULL")
+    List<Object[]> findPerceptualHashes(@Param("userId") UUID userId, @Param("status") PhotoStatus status);
+}
@@ -6,6 +6,8 @@ public enum JobType {
     AI_TAGGING,
     EXIF_EXTRACTION,
     DUPLICATE_DETECTION,
+    PERCEPTUAL_HASH,
+    GALLERY_PLACEHOLDER,
     METADATA_ENRICHMENT
 }
 
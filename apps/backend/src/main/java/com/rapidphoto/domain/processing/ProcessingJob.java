@@ -2,6 +2,9 @@ package com.rapidphoto.domain.processing;
 
 import com.rapidphoto.domain.photo.PhotoId;
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.Objects;
@@ -44,7 +47,7 @@ public class ProcessingJob {
     private LocalDateTime completedAt;
     
     @Column(name = "result_data", columnDefinition = "jsonb")
-    @Convert(converter = JsonMapConverter.class)
+    @JdbcTypeCode(SqlTypes.JSON)
     private Map<String, Object> resultData;
     
     @Column(name = "error_message", columnDefinition = "TEXT")
@@ -55,6 +58,15 @@ public class ProcessingJob {
     
     @Column(name = "max_retries", nullable = false)
     private Integer maxRetries;
+
+    @Column(name = "run_after", nullable = false)
+    private LocalDateTime runAfter;
+
+    @Column(name = "locked_by", length = 100)
+    private String lockedBy;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
     
     @Version
     private Integer version;
@@ -70,6 +82,7 @@ public class ProcessingJob {
         this.createdAt = LocalDateTime.now();
         this.retryCount = 0;
         this.maxRetries = 3;
+        this.runAfter = this.createdAt;
     }
 
     public UUID getId() {
@@ -148,10 +161,59 @@ public class ProcessingJob {
         this.maxRetries = maxRetries;
     }
 
+    public LocalDateTime getRunAfter() {
+        return runAfter;
+    }
+
+    public String getLockedBy() {
+        return lockedBy;
+    }
+
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
     public Integer getVersion() {
         return version;
     }
 
+    /**
+     * Taken by a worker, which holds it until the lease expires unless it renews or finishes first
+     */
+    public void claim(String workerId, LocalDateTime leaseExpiresAt) {
+        start();
+        this.lockedBy = workerId;
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public boolean isClaimedBy(String workerId) {
+        return status == JobStatus.RUNNING && workerId.equals(lockedBy);
+    }
+
+    /**
+     * Hand a claimed job back untouched, e.g. when the worker could not start it
+     */
+    public void unclaim() {
+        this.status = JobStatus.PENDING;
+        this.startedAt = null;
+        releaseLease();
+    }
+
+    /**
+     * A run failed: back to PENDING not before retryAt while retries remain, FAILED otherwise
+     */
+    public void failAttempt(String errorMessage, LocalDateTime retryAt) {
+        if (retryCount < maxRetries) {
+            this.status = JobStatus.PENDING;
+            this.errorMessage = errorMessage;
+            this.retryCount++;
+            this.runAfter = retryAt;
+            releaseLease();
+        } else {
+            fail(errorMessage);
+        }
+    }
+
     public void start() {
         this.status = JobStatus.RUNNING;
         this.startedAt = LocalDateTime.now();
@@ -161,17 +223,20 @@ public class ProcessingJob {
         this.status = JobStatus.COMPLETED;
         this.completedAt = LocalDateTime.now();
         this.resultData = resultData;
+        releaseLease();
     }
 
     public void fail(String errorMessage) {
         this.status = JobStatus.FAILED;
         this.completedAt = LocalDateTime.now();
         this.errorMessage = errorMessage;
+        releaseLease();
     }
 
     public void cancel() {
         this.status = JobStatus.CANCELLED;
         this.completedAt = LocalDateTime.now();
+        releaseLease();
     }
 
     public boolean canRetry() {
@@ -185,22 +250,11 @@ public class ProcessingJob {
         this.status = JobStatus.PENDING;
         this.errorMessage = null;
         this.retryCount++;
-    }
-}
-
-// Simple JSON converter for Map<String, Object>
-@Converter
-class JsonMapConverter implements AttributeConverter<Map<String, Object>, String> {
-    @Override
-    public String convertToDatabaseColumn(Map<String, Object> attribute) {
-        // For now, return null - will implement with Jackson later
-        return null;
+        this.runAfter = LocalDateTime.now();
     }
 
-    @Override
-    public Map<String, Object> convertToEntityAttribute(String dbData) {
-        // For now, return null - will implement with Jackson later
-        return null;
+    private void releaseLease() {
+        this.lockedBy = null;
+        this.leaseExpiresAt = null;
     }
 }
-
@@ -1,7 +1,13 @@
 package com.rapidphoto.domain.processing;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -11,5 +17,54 @@ public interface ProcessingJobRepository extends JpaRepository<ProcessingJob, UU
     List<ProcessingJob> findByStatus(JobStatus status);
     List<ProcessingJob> findByJobType(JobType jobType);
     List<ProcessingJob> findByStatusOrderByPriorityDescCreatedAtAsc(JobStatus status);
-}
 
+    long countByStatus(JobStatus status);
+
+    /**
+     * Lock up to {@code limit} runnable jobs of one type, highest priority then oldest first.
+     * Rows locked by another worker's claim are skipped rather than waited on, so any number
+     * of app instances can poll the same table. Call inside a transaction and mark the rows
+     * RUNNING before it commits.
+     */
+    @Query(value = "SELECT * FROM processing_jobs "
+        + "WHERE status = 'PENDING' AND job_type = :jobType AND run_after <= :now "
+        + "ORDER BY priority DESC, created_at ASC "
+        + "LIMIT :limit "
+        + "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<ProcessingJob> lockRunnable(@Param("jobType") String jobType,
+                                     @Param("now") LocalDateTime now,
+                                     @Param("limit") int limit);
+
+    /**
+     * Heartbeat: extend the leases of everything this worker is running
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProcessingJob j SET j.leaseExpiresAt = :leaseExpiresAt "
+        + "WHERE j.lockedBy = :workerId AND j.status = com.rapidphoto.domain.processing.JobStatus.RUNNING")
+    int renewLeases(@Param("workerId") String workerId, @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    /**
+     * Jobs whose worker died (lease ran out) go back to PENDING, counting as a failed attempt
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProcessingJob j SET j.status = com.rapidphoto.domain.processing.JobStatus.PENDING, "
+        + "j.retryCount = j.retryCount + 1, j.runAfter = :now, j.lockedBy = NULL, j.leaseExpiresAt = NULL, "
+        + "j.errorMessage = 'Lease expired', j.version = j.version + 1 "
+        + "WHERE j.status = com.rapidphoto.domain.processing.JobStatus.RUNNING "
+        + "AND j.leaseExpiresAt < :now AND j.retryCount < j.maxRetries")
+    int requeueExpired(@Param("now") LocalDateTime now);
+
+    /**
+     * Expired leases with no retries left
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProcessingJob j SET j.status = com.rapidphoto.domain.processing.JobStatus.FAILED, "
+        + "j.completedAt = :now, j.lockedBy = NULL, j.leaseExpiresAt = NULL, "
+        + "j.errorMessage = 'Lease expired', j.version = j.version + 1 "
+        + "WHERE j.status = com.rapidphoto.domain.processing.JobStatus.RUNNING "
+        + "AND j.leaseExpiresAt < :now AND j.retryCount >= j.maxRetries")
+    int failExpired(@Param("now") LocalDateTime now);
+}
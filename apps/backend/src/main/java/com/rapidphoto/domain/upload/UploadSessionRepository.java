@@ -1,12 +1,40 @@
 package com.rapidphoto.domain.upload;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
     Optional<UploadSession> findBySessionKey(String sessionKey);
-}
 
+    Optional<UploadSession> findByIdAndUserId(UUID id, UUID userId);
+
+    // Counters are bumped with atomic updates: files of one session complete concurrently
+    // and would otherwise collide on the aggregate's @Version
+
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.completedFiles = s.completedFiles + 1, " +
+           "s.uploadedBytes = s.uploadedBytes + :bytes WHERE s.id = :id")
+    int incrementCompleted(@Param("id") UUID id, @Param("bytes") long bytes);
+
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.failedFiles = s.failedFiles + 1 WHERE s.id = :id")
+    int incrementFailed(@Param("id") UUID id);
+
+    @Modifying
+    @Query("UPDATE UploadSession s SET " +
+           "s.status = CASE WHEN s.failedFiles = 0 THEN :completed ELSE :failed END, " +
+           "s.completedAt = :now " +
+           "WHERE s.id = :id AND s.status = :inProgress AND s.completedFiles + s.failedFiles >= s.totalFiles")
+    int finishIfDone(@Param("id") UUID id,
+                     @Param("inProgress") UploadSessionStatus inProgress,
+                     @Param("completed") UploadSessionStatus completed,
+                     @Param("failed") UploadSessionStatus failed,
+                     @Param("now") LocalDateTime now);
+}
@@ -27,7 +27,9 @@ public class User {
     @Column(name = "storage_quota_bytes", nullable = false)
     private Long storageQuotaBytes;
     
-    @Column(name = "storage_used_bytes", nullable = false)
+    // Maintained only through atomic UserRepository.reserveStorage/releaseStorage updates,
+    // so saving a stale User never overwrites concurrent reservations
+    @Column(name = "storage_used_bytes", nullable = false, updatable = false)
     private Long storageUsedBytes;
     
     @Enumerated(EnumType.STRING)
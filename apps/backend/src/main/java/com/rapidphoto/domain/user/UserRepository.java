@@ -1,6 +1,9 @@
 package com.rapidphoto.domain.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 import java.util.UUID;
@@ -11,5 +14,23 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByUsername(String username);
     boolean existsByEmail(String email);
     boolean existsByUsername(String username);
+
+    /**
+     * Atomically add to storage usage if it fits the quota (single row update, no @Version bump)
+     * @return 1 if reserved, 0 if the user does not exist or the quota would be exceeded
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.storageUsedBytes = u.storageUsedBytes + :bytes " +
+           "WHERE u.id = :userId AND u.storageUsedBytes + :bytes <= u.storageQuotaBytes")
+    int reserveStorage(@Param("userId") UUID userId, @Param("bytes") long bytes);
+
+    /**
+     * Atomically subtract from storage usage, never going below zero
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.storageUsedBytes = " +
+           "CASE WHEN u.storageUsedBytes > :bytes THEN u.storageUsedBytes - :bytes ELSE 0 END " +
+           "WHERE u.id = :userId")
+    int releaseStorage(@Param("userId") UUID userId, @Param("bytes") long bytes);
 }
 
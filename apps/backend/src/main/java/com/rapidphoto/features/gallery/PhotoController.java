@@ -5,12 +5,17 @@ import com.rapidphoto.domain.photo.PhotoMetadata;
 import com.rapidphoto.domain.photo.PhotoRepository;
 import com.rapidphoto.domain.photo.PhotoStatus;
 import com.rapidphoto.domain.user.UserRepository;
+import com.rapidphoto.features.photo.RenditionService;
+import com.rapidphoto.features.photo.RenditionSpec;
+import com.rapidphoto.features.similarity.SimilarPhoto;
+import com.rapidphoto.features.similarity.SimilarPhotoService;
 import com.rapidphoto.infrastructure.storage.StorageService;
 import jakarta.validation.Valid;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
@@ -27,6 +32,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.time.Duration;
 import java.time.LocalDate;
@@ -50,11 +56,19 @@ public class PhotoController {
     private final PhotoRepository photoRepository;
     private final StorageService storageService;
     private final UserRepository userRepository;
+    private final SimilarPhotoService similarPhotoService;
+    private final RenditionService renditionService;
+    private final PhotoDeletionService photoDeletionService;
 
-    public PhotoController(PhotoRepository photoRepository, StorageService storageService, UserRepository userRepository) {
+    public PhotoController(PhotoRepository photoRepository, StorageService storageService, UserRepository userRepository,
+                           SimilarPhotoService similarPhotoService, RenditionService renditionService,
+                           PhotoDeletionService photoDeletionService) {
         this.photoRepository = photoRepository;
         this.storageService = storageService;
         this.userRepository = userRepository;
+        this.similarPhotoService = similarPhotoService;
+        this.renditionService = renditionService;
+        this.photoDeletionService = photoDeletionService;
     }
 
     /**
@@ -248,6 +262,8 @@ public class PhotoController {
         dto.setStoragePath(photo.getStorageInfo().getStoragePath());
         dto.setUploadedAt(photo.getUploadedAt());
         dto.setProcessedAt(photo.getProcessedAt());
+        dto.setBlurHash(photo.getBlurHash());
+        dto.setDominantColor(photo.getDominantColor());
         
         // Get metadata
         com.rapidphoto.domain.photo.PhotoMetadata metadata = photo.getPhotoMetadata();
@@ -343,6 +359,7 @@ public class PhotoController {
             String contentType;
             String fileName;
             String storagePath;
+            String rendition = null;
 
             // Determine which image to serve based on size parameter
             // Support both old (small) and new (thumbnail) naming
@@ -369,7 +386,8 @@ public class PhotoController {
                         fileName = photoId + "_thumbnail.jpg";
                         contentType = "image/jpeg";
                     } else {
-                        // Fallback to original if thumbnail not available
+                        // Not rendered at upload: generate it from the original
+                        rendition = "thumbnail";
                         storagePath = photo.getStorageInfo().getStoragePath();
                         fileName = photo.getOriginalFileName();
                         contentType = photo.getMimeType();
@@ -396,6 +414,7 @@ public class PhotoController {
                         fileName = photoId + "_medium.jpg";
                         contentType = "image/jpeg";
                     } else {
+                        rendition = "medium";
                         storagePath = photo.getStorageInfo().getStoragePath();
                         fileName = photo.getOriginalFileName();
                         contentType = photo.getMimeType();
@@ -422,6 +441,7 @@ public class PhotoController {
                         fileName = photoId + "_large.jpg";
                         contentType = "image/jpeg";
                     } else {
+                        rendition = "large";
                         storagePath = photo.getStorageInfo().getStoragePath();
                         fileName = photo.getOriginalFileName();
                         contentType = photo.getMimeType();
@@ -434,6 +454,17 @@ public class PhotoController {
                     break;
             }
 
+            if (rendition != null) {
+                try {
+                    byte[] jpeg = renditionService.render(photo, RenditionSpec.named(rendition));
+                    return renderedImage(jpeg, photoId + "_" + rendition + ".jpg",
+                        "\"" + photoId + "-" + size + "-" + photo.getVersion() + "\"",
+                        CacheControl.maxAge(Duration.ofDays(365)).cachePublic().mustRevalidate());
+                } catch (IOException e) {
+                    logger.warn("Failed to render {} for photo {}, serving original: {}", rendition, photoId, e.getMessage());
+                }
+            }
+
             // Retrieve file from storage (works for both LOCAL and S3)
             inputStream = storageService.retrieve(storagePath);
             Resource resource = new InputStreamResource(inputStream);
@@ -462,6 +493,63 @@ public class PhotoController {
         }
     }
 
+    /**
+     * Serve a rendition of any size, generated on first request and kept in storage
+     * Verifies photo belongs to authenticated user
+     * - w, h: Bounding box in pixels (either may be omitted), rounded up to the next size step
+     * - fit: contain (default) or cover (crop to fill the box)
+     * - q: JPEG quality 1-100 (default: highest that fits the size's byte budget)
+     */
+    @GetMapping("/{photoId}/render")
+    public ResponseEntity<Resource> renderPhoto(
+            @PathVariable UUID photoId,
+            @RequestParam(required = false) Integer w,
+            @RequestParam(required = false) Integer h,
+            @RequestParam(required = false) String fit,
+            @RequestParam(required = false) Integer q) {
+        RenditionSpec spec;
+        try {
+            spec = RenditionSpec.of(w, h, fit, q, renditionService.getMaxDimension());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        UUID userId = UUID.fromString(authentication.getName());
+
+        // Verify ownership
+        Photo photo = photoRepository.findByIdAndUserId(photoId, userId).orElse(null);
+        if (photo == null || photo.getStatus() == PhotoStatus.DELETED) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            byte[] jpeg = renditionService.render(photo, spec);
+            return renderedImage(jpeg, photoId + "_" + spec.key() + ".jpg",
+                "\"" + photoId + "-" + spec.key() + "-" + photo.getVersion() + "\"",
+                CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().mustRevalidate());
+        } catch (Exception e) {
+            logger.error("Failed to render photo {} at {}", photoId, spec.key(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    private static ResponseEntity<Resource> renderedImage(byte[] jpeg, String fileName, String eTag,
+                                                          CacheControl cacheControl) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.IMAGE_JPEG);
+        headers.setContentDispositionFormData("inline", fileName);
+        headers.setContentLength(jpeg.length);
+        headers.setCacheControl(cacheControl);
+        headers.setETag(eTag);
+        return ResponseEntity.ok()
+            .headers(headers)
+            .body(new ByteArrayResource(jpeg));
+    }
+
     /**
      * Serve thumbnail image with cache headers
      * Supports both LOCAL and S3 storage types
@@ -635,36 +723,16 @@ public class PhotoController {
             Photo photo = photoRepository.findById(photoId)
                 .orElseThrow(() -> new IllegalArgumentException("Photo not found: " + photoId));
 
-            String perceptualHash = photo.getPerceptualHash();
-            if (perceptualHash == null) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("similarPhotos", List.of());
-                response.put("count", 0);
-                return ResponseEntity.ok(response);
-            }
-
-            // Find photos with similar perceptual hash
-            // Note: This is a simplified implementation. In production, you'd use a proper
-            // similarity search algorithm (e.g., Hamming distance calculation)
-            List<Photo> allPhotos = photoRepository.findAll();
-            List<PhotoResponseDTO> similarPhotos = allPhotos.stream()
-                .filter(p -> !p.getId().getValue().equals(photoId))
-                .filter(p -> p.getPerceptualHash() != null)
-                .filter(p -> {
-                    // Calculate Hamming distance (simplified)
-                    String hash1 = photo.getPerceptualHash();
-                    String hash2 = p.getPerceptualHash();
-                    if (hash1.length() != hash2.length()) return false;
-                    
-                    int distance = 0;
-                    for (int i = 0; i < hash1.length(); i++) {
-                        if (hash1.charAt(i) != hash2.charAt(i)) {
-                            distance++;
-                        }
-                    }
-                    return distance <= maxDistance;
-                })
-                .limit(limit)
+            // Near-duplicates in the owner's library, closest first
+            List<SimilarPhoto> matches = similarPhotoService.findSimilar(
+                photo, Math.max(0, Math.min(maxDistance, 64)), Math.max(0, limit));
+            Map<UUID, Photo> matched = photoRepository.findAllById(
+                    matches.stream().map(SimilarPhoto::photoId).toList())
+                .stream()
+                .collect(Collectors.toMap(p -> p.getId().getValue(), p -> p));
+            List<PhotoResponseDTO> similarPhotos = matches.stream()
+                .map(match -> matched.get(match.photoId()))
+                .filter(p -> p != null && p.getStatus() == PhotoStatus.COMPLETED)
                 .map(this::mapToResponseDTO)
                 .collect(Collectors.toList());
 
@@ -691,6 +759,12 @@ public class PhotoController {
             @Valid @RequestBody BatchPhotoRequest request) {
         logger.info("Batch delete photos: count={}", request.getPhotoIds().size());
 
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        UUID userId = UUID.fromString(authentication.getName());
+
         try {
             int successCount = 0;
             int failureCount = 0;
@@ -698,11 +772,8 @@ public class PhotoController {
 
             for (UUID photoId : request.getPhotoIds()) {
                 try {
-                    Photo photo = photoRepository.findById(photoId)
-                        .orElseThrow(() -> new IllegalArgumentException("Photo not found: " + photoId));
-                    
-                    photo.delete();
-                    photoRepository.save(photo);
+                    // Only the caller's photos; repeated ids are deleted once
+                    photoDeletionService.delete(photoId, userId);
                     successCount++;
                 } catch (Exception e) {
                     logger.warn("Failed to delete photo: {}", photoId, e);
@@ -857,13 +928,8 @@ public class PhotoController {
             
             UUID userId = UUID.fromString(authentication.getName());
             
-            // Verify ownership
-            Photo photo = photoRepository.findByIdAndUserId(photoId, userId)
-                .orElseThrow(() -> new IllegalArgumentException("Photo not found or access denied: " + photoId));
-            
-            // Soft delete
-            photo.delete();
-            photoRepository.save(photo);
+            // Soft delete (verifies ownership; a repeated delete is a no-op)
+            photoDeletionService.delete(photoId, userId);
             
             logger.info("Photo deleted successfully: photoId={}, userId={}", photoId, userId);
             return ResponseEntity.noContent().build();
@@ -0,0 +1,71 @@
+package com.rapidphoto.features.gallery;
+
+import com.rapidphoto.domain.photo.Photo;
+import com.rapidphoto.domain.photo.PhotoRepository;
+import com.rapidphoto.domain.photo.PhotoStatus;
+import com.rapidphoto.features.photo.RenditionService;
+import com.rapidphoto.features.similarity.SimilarPhotoService;
+import com.rapidphoto.features.upload.content.ContentStoreService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+/**
+ * Soft-deletes a user's photo and gives up what it held: its content reference, its
+ * similarity index entry and its on-demand renditions. The status flips to DELETED with a
+ * conditional update, so a retried or repeated delete of the same photo finds nothing to flip
+ * and never releases the shared content reference a second time.
+ */
+@Service
+public class PhotoDeletionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhotoDeletionService.class);
+
+    private final PhotoRepository photoRepository;
+    private final ContentStoreService contentStoreService;
+    private final SimilarPhotoService similarPhotoService;
+    private final RenditionService renditionService;
+    private final TransactionTemplate transactionTemplate;
+
+    public PhotoDeletionService(PhotoRepository photoRepository,
+                                ContentStoreService contentStoreService,
+                                SimilarPhotoService similarPhotoService,
+                                RenditionService renditionService,
+                                TransactionTemplate transactionTemplate) {
+        this.photoRepository = photoRepository;
+        this.contentStoreService = contentStoreService;
+        this.similarPhotoService = similarPhotoService;
+        this.renditionService = renditionService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * @return true if this call deleted the photo, false if it was already deleted
+     * @throws IllegalArgumentException if the photo does not exist or belongs to someone else
+     */
+    public boolean delete(UUID photoId, UUID userId) {
+        Photo deleted = transactionTemplate.execute(status -> {
+            if (photoRepository.markDeleted(photoId, userId, PhotoStatus.DELETED) == 0) {
+                if (photoRepository.findByIdAndUserId(photoId, userId).isEmpty()) {
+                    throw new IllegalArgumentException("Photo not found or access denied: " + photoId);
+                }
+                return null;
+            }
+            // Same transaction as the status change: the reference goes exactly when the photo does
+            Photo photo = photoRepository.findById(photoId).orElseThrow();
+            contentStoreService.release(photo);
+            return photo;
+        });
+        if (deleted == null) {
+            logger.info("Photo already deleted: photoId={}", photoId);
+            return false;
+        }
+
+        similarPhotoService.onDeleted(deleted);
+        renditionService.deleteRenditions(photoId);
+        return true;
+    }
+}
@@ -18,6 +18,8 @@ public class PhotoResponseDTO {
     private String thumbnailSmallUrl;
     private String thumbnailMediumUrl;
     private String thumbnailLargeUrl;
+    private String blurHash;
+    private String dominantColor;
     private Map<String, Object> exifData;
     private Map<String, Object> aiTags;
     private Map<String, Object> metadata;
@@ -79,6 +81,12 @@ public class PhotoResponseDTO {
         this.thumbnailLargeUrl = thumbnailLargeUrl; 
     }
     
+    public String getBlurHash() { return blurHash; }
+    public void setBlurHash(String blurHash) { this.blurHash = blurHash; }
+    
+    public String getDominantColor() { return dominantColor; }
+    public void setDominantColor(String dominantColor) { this.dominantColor = dominantColor; }
+    
     public Map<String, Object> getExifData() { return exifData; }
     public void setExifData(Map<String, Object> exifData) { 
         this.exifData = exifData; 
@@ -0,0 +1,204 @@
+package com.rapidphoto.features.photo;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Global budget of decoded pixel memory (width x height x 4 bytes) across concurrent image
+ * decodes, independent of how many processing threads there are. Gives the heap a hard
+ * ceiling during upload bursts.
+ *
+ * Not FIFO: a request that fits is granted even while a larger one waits, so thumbnails of
+ * ordinary photos keep flowing behind a couple of giant panoramas. A waiter that has been
+ * passed over for longer than the starvation limit is promoted, and from then on new
+ * requests queue behind it until it gets its permit. A request larger than the whole budget
+ * is capped to it, so it runs alone instead of never.
+ *
+ * Meters:
+ * - image.decode.budget.used (gauge, bytes): permits currently held
+ * - image.decode.budget.max (gauge, bytes)
+ * - image.decode.budget.waiting (gauge): decodes blocked on the budget
+ * - image.decode.budget.wait (timer): time spent acquiring
+ */
+@Component
+public class DecodeBudget implements MeterBinder {
+
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private final long maxBytes;
+    private final long starvationNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private long used;
+    private Waiter promoted;
+
+    private volatile Timer waitTimer;
+
+    public DecodeBudget(@Value("${processing.decode-budget.max-bytes:536870912}") long maxBytes,
+                        @Value("${processing.decode-budget.starvation-ms:2000}") long starvationMillis) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("processing.decode-budget.max-bytes must be positive");
+        }
+        this.maxBytes = maxBytes;
+        this.starvationNanos = TimeUnit.MILLISECONDS.toNanos(starvationMillis);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        waitTimer = Timer.builder("image.decode.budget.wait")
+            .description("Time image decodes wait for pixel budget")
+            .register(registry);
+        Gauge.builder("image.decode.budget.used", this, DecodeBudget::getUsedBytes)
+            .description("Decoded pixel bytes currently reserved")
+            .baseUnit("bytes")
+            .register(registry);
+        Gauge.builder("image.decode.budget.max", this, DecodeBudget::getMaxBytes)
+            .baseUnit("bytes")
+            .register(registry);
+        Gauge.builder("image.decode.budget.waiting", this, DecodeBudget::getWaitingCount)
+            .description("Image decodes blocked on the pixel budget")
+            .register(registry);
+    }
+
+    /**
+     * Block until a decode of width x height pixels fits the budget
+     *
+     * @return the permit; close it once the decoded image and anything derived from it is released
+     */
+    public Permit acquire(int width, int height) throws InterruptedException {
+        long bytes = Math.min(maxBytes, (long) width * height * BYTES_PER_PIXEL);
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            promoteStarved();
+            if (promoted == null && fits(bytes)) {
+                used += bytes;
+                return new Permit(bytes);
+            }
+            Waiter self = new Waiter(start);
+            waiters.addLast(self);
+            try {
+                while (true) {
+                    promoteStarved();
+                    if ((promoted == null || promoted == self) && fits(bytes)) {
+                        break;
+                    }
+                    long untilStarved = waiters.peekFirst().since + starvationNanos - System.nanoTime();
+                    if (promoted == null && untilStarved > 0) {
+                        released.awaitNanos(untilStarved);
+                    } else {
+                        released.await();
+                    }
+                }
+            } finally {
+                waiters.remove(self);
+                if (promoted == self) {
+                    promoted = null;
+                }
+                // Whoever is next may now fit, or may have been waiting for the promoted one to go
+                released.signalAll();
+            }
+            used += bytes;
+            return new Permit(bytes);
+        } finally {
+            lock.unlock();
+            Timer timer = waitTimer;
+            if (timer != null) {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    public long getUsedBytes() {
+        lock.lock();
+        try {
+            return used;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public int getWaitingCount() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean fits(long bytes) {
+        return used + bytes <= maxBytes;
+    }
+
+    /**
+     * Waiters are in arrival order, so only the head can be the first to starve
+     */
+    private void promoteStarved() {
+        Waiter oldest = waiters.peekFirst();
+        if (promoted == null && oldest != null && System.nanoTime() - oldest.since >= starvationNanos) {
+            promoted = oldest;
+        }
+    }
+
+    private void release(long bytes) {
+        lock.lock();
+        try {
+            used -= bytes;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Waiter {
+        private final long since;
+
+        private Waiter(long since) {
+            this.since = since;
+        }
+    }
+
+    /**
+     * Reserved pixel bytes; closing returns them to the budget. Idempotent.
+     */
+    public final class Permit implements AutoCloseable {
+        private final long bytes;
+        private boolean closed;
+
+        private Permit(long bytes) {
+            this.bytes = bytes;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            release(bytes);
+        }
+    }
+}
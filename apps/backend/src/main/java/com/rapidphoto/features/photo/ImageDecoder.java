@@ -0,0 +1,154 @@
+package com.rapidphoto.features.photo;
+
+import com.drew.imaging.ImageMetadataReader;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Memory-bounded image decoding. Dimensions come from the header without decoding pixels,
+ * and pixel decodes are subsampled in the reader, so a 50 MP original never exists as a
+ * full-resolution BufferedImage (about 200 MB) just to produce a 1600px rendition.
+ */
+public final class ImageDecoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageDecoder.class);
+
+    /**
+     * Subsampling skips source pixels rather than averaging them, so decoding straight to a small
+     * size aliases: decode at least this large and let the final downscale do the averaging
+     */
+    static final int MIN_DECODE_SIZE = 800;
+
+    private ImageDecoder() {
+    }
+
+    /**
+     * Read width and height from the image header. Only the bytes up to the frame header
+     * are consumed from the stream.
+     *
+     * @return stored (not EXIF-rotated) dimensions, or null when no reader recognises the format
+     */
+    public static Dimension readDimensions(InputStream in) throws IOException {
+        try (ImageInputStream iis = new MemoryCacheImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Decode an image just large enough to be scaled down into a targetSize x targetSize box,
+     * with EXIF orientation applied. The reader skips rows and columns at the largest integer
+     * factor that keeps the longer side at or above targetSize; callers still scale the result
+     * to the exact size.
+     */
+    public static BufferedImage decode(OriginalImage original, int targetSize) throws IOException {
+        BufferedImage image;
+        try (ImageInputStream iis = original.openImageStream()) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int factor = subsamplingFactor(reader.getWidth(0), reader.getHeight(0), targetSize);
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (factor > 1) {
+                    param.setSourceSubsampling(factor, factor, 0, 0);
+                }
+                image = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+        return orient(image, readOrientation(original));
+    }
+
+    /**
+     * The size to decode at for output that fits a targetSize x targetSize box
+     */
+    static int decodeSize(int targetSize) {
+        return Math.max(targetSize, MIN_DECODE_SIZE);
+    }
+
+    /**
+     * Largest factor f with max(width, height) / f still at least targetSize, so the
+     * subsampled image covers the target box and is only ever scaled down afterwards
+     */
+    static int subsamplingFactor(int width, int height, int targetSize) {
+        return Math.max(1, Math.max(width, height) / targetSize);
+    }
+
+    /**
+     * @return EXIF orientation (1-8), 1 when absent or unreadable
+     */
+    private static int readOrientation(OriginalImage original) {
+        try (InputStream in = original.openStream()) {
+            Metadata metadata = ImageMetadataReader.readMetadata(in, original.getLength());
+            ExifIFD0Directory directory = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
+            if (directory != null && directory.containsTag(ExifIFD0Directory.TAG_ORIENTATION)) {
+                return directory.getInt(ExifIFD0Directory.TAG_ORIENTATION);
+            }
+        } catch (Exception e) {
+            logger.debug("EXIF orientation not readable - {}", e.getMessage());
+        }
+        return 1;
+    }
+
+    /**
+     * Rotate/flip a decoded image into display orientation. Runs on the already subsampled
+     * image, so the copy is small.
+     */
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        if (orientation < 2 || orientation > 8) {
+            return image;
+        }
+        int w = image.getWidth();
+        int h = image.getHeight();
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);   // mirror horizontal
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);  // rotate 180
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);   // mirror vertical
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);    // transpose
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);   // rotate 90 CW
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);  // transverse
+            default -> new AffineTransform(0, -1, 1, 0, 0, w);  // rotate 270 CW
+        };
+        boolean swap = orientation >= 5;
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage oriented = new BufferedImage(swap ? h : w, swap ? w : h, type);
+        Graphics2D g = oriented.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            g.drawImage(image, transform, null);
+        } finally {
+            g.dispose();
+        }
+        return oriented;
+    }
+}
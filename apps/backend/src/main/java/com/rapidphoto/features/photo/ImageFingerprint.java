@@ -0,0 +1,150 @@
+package com.rapidphoto.features.photo;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Content fingerprints of a photo, computed from its smallest rendition rather than the
+ * original: a 64-bit difference hash (dHash) and a 64-bit DCT perceptual hash (pHash). Both
+ * survive re-encoding, resizing and small edits, and two hashes are compared by Hamming
+ * distance - {@code Long.bitCount(a ^ b)}.
+ */
+public final class ImageFingerprint {
+
+    private static final int DHASH_WIDTH = 9;
+    private static final int DHASH_HEIGHT = 8;
+    private static final int PHASH_SIZE = 32;
+    private static final int PHASH_BITS = 8;
+
+    // DCT-II basis for the 32-sample pHash rows/columns, [frequency][sample]
+    private static final double[][] DCT = new double[PHASH_BITS + 1][PHASH_SIZE];
+
+    static {
+        for (int u = 0; u <= PHASH_BITS; u++) {
+            for (int x = 0; x < PHASH_SIZE; x++) {
+                DCT[u][x] = Math.cos((2 * x + 1) * u * Math.PI / (2 * PHASH_SIZE));
+            }
+        }
+    }
+
+    private final long differenceHash;
+    private final long perceptualHash;
+
+    private ImageFingerprint(long differenceHash, long perceptualHash) {
+        this.differenceHash = differenceHash;
+        this.perceptualHash = perceptualHash;
+    }
+
+    public static ImageFingerprint of(BufferedImage image) {
+        float[] luma = luma(image);
+        int width = image.getWidth();
+        int height = image.getHeight();
+        return new ImageFingerprint(
+            differenceHash(shrink(luma, width, height, DHASH_WIDTH, DHASH_HEIGHT)),
+            perceptualHash(shrink(luma, width, height, PHASH_SIZE, PHASH_SIZE)));
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    public long getDifferenceHash() {
+        return differenceHash;
+    }
+
+    public long getPerceptualHash() {
+        return perceptualHash;
+    }
+
+    /**
+     * One bit per horizontally adjacent pair of the 9x8 grid: set where brightness falls
+     */
+    static long differenceHash(float[] grid) {
+        long hash = 0;
+        for (int y = 0; y < DHASH_HEIGHT; y++) {
+            for (int x = 0; x < DHASH_WIDTH - 1; x++) {
+                hash <<= 1;
+                if (grid[y * DHASH_WIDTH + x] > grid[y * DHASH_WIDTH + x + 1]) {
+                    hash |= 1;
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * DCT of the 32x32 grid; one bit per coefficient of the 8x8 lowest frequencies (skipping
+     * the DC row and column, which only carry overall brightness): set where above the median
+     */
+    static long perceptualHash(float[] grid) {
+        // Separable DCT, only as far as the frequencies kept: rows first, then columns
+        double[][] rows = new double[PHASH_SIZE][PHASH_BITS + 1];
+        for (int y = 0; y < PHASH_SIZE; y++) {
+            for (int u = 1; u <= PHASH_BITS; u++) {
+                double sum = 0;
+                for (int x = 0; x < PHASH_SIZE; x++) {
+                    sum += grid[y * PHASH_SIZE + x] * DCT[u][x];
+                }
+                rows[y][u] = sum;
+            }
+        }
+        double[] coefficients = new double[PHASH_BITS * PHASH_BITS];
+        for (int v = 1; v <= PHASH_BITS; v++) {
+            for (int u = 1; u <= PHASH_BITS; u++) {
+                double sum = 0;
+                for (int y = 0; y < PHASH_SIZE; y++) {
+                    sum += rows[y][u] * DCT[v][y];
+                }
+                coefficients[(v - 1) * PHASH_BITS + (u - 1)] = sum;
+            }
+        }
+
+        double[] sorted = coefficients.clone();
+        Arrays.sort(sorted);
+        double median = (sorted[sorted.length / 2 - 1] + sorted[sorted.length / 2]) / 2;
+
+        long hash = 0;
+        for (double coefficient : coefficients) {
+            hash <<= 1;
+            if (coefficient > median) {
+                hash |= 1;
+            }
+        }
+        return hash;
+    }
+
+    private static float[] luma(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] rgb = image.getRGB(0, 0, width, height, null, 0, width);
+        float[] luma = new float[rgb.length];
+        for (int i = 0; i < rgb.length; i++) {
+            int p = rgb[i];
+            luma[i] = 0.299f * ((p >> 16) & 0xff) + 0.587f * ((p >> 8) & 0xff) + 0.114f * (p & 0xff);
+        }
+        return luma;
+    }
+
+    /**
+     * Box-average the luma plane down to a fixed grid, ignoring aspect ratio
+     */
+    private static float[] shrink(float[] luma, int width, int height, int gridWidth, int gridHeight) {
+        float[] grid = new float[gridWidth * gridHeight];
+        for (int gy = 0; gy < gridHeight; gy++) {
+            int y0 = gy * height / gridHeight;
+            int y1 = Math.max(y0 + 1, (gy + 1) * height / gridHeight);
+            for (int gx = 0; gx < gridWidth; gx++) {
+                int x0 = gx * width / gridWidth;
+                int x1 = Math.max(x0 + 1, (gx + 1) * width / gridWidth);
+                float sum = 0;
+                for (int y = y0; y < y1; y++) {
+                    for (int x = x0; x < x1; x++) {
+                        sum += luma[y * width + x];
+                    }
+                }
+                grid[gy * gridWidth + gx] = sum / ((y1 - y0) * (x1 - x0));
+            }
+        }
+        return grid;
+    }
+}
@@ -0,0 +1,57 @@
+package com.rapidphoto.features.photo;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Facts about an image that can be read from its header bytes alone:
+ * dimensions and EXIF (camera, exposure, capture time, GPS)
+ */
+public class ImageHeader {
+
+    private final Integer width;
+    private final Integer height;
+    private final Map<String, Object> exifData;
+    private final LocalDateTime takenAt;
+    private final Double locationLat;
+    private final Double locationLon;
+
+    public ImageHeader(Integer width, Integer height, Map<String, Object> exifData,
+                       LocalDateTime takenAt, Double locationLat, Double locationLon) {
+        this.width = width;
+        this.height = height;
+        this.exifData = exifData != null ? exifData : Collections.emptyMap();
+        this.takenAt = takenAt;
+        this.locationLat = locationLat;
+        this.locationLon = locationLon;
+    }
+
+    public boolean hasDimensions() {
+        return width != null && height != null;
+    }
+
+    public Integer getWidth() {
+        return width;
+    }
+
+    public Integer getHeight() {
+        return height;
+    }
+
+    public Map<String, Object> getExifData() {
+        return exifData;
+    }
+
+    public LocalDateTime getTakenAt() {
+        return takenAt;
+    }
+
+    public Double getLocationLat() {
+        return locationLat;
+    }
+
+    public Double getLocationLon() {
+        return locationLon;
+    }
+}
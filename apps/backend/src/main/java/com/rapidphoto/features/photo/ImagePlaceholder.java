@@ -0,0 +1,194 @@
+package com.rapidphoto.features.photo;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * What a gallery tile shows before its thumbnail arrives: a BlurHash (a few DCT components of
+ * the image as ~30 characters, see blurha.sh) and the dominant colour. Both are computed from
+ * the 200px rendition - they describe the image at a handful of pixels, so any more is wasted.
+ *
+ * The dominant colour is the mean of the most populated bin of a coarse colour histogram,
+ * not the mean of the whole image, which muddies towards grey.
+ */
+public final class ImagePlaceholder {
+
+    private static final String BASE83 =
+        "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[\\]^_{|}~";
+
+    // Components along the longer and the shorter side
+    private static final int LONG_COMPONENTS = 4;
+    private static final int SHORT_COMPONENTS = 3;
+
+    // Histogram bins of 3 bits per channel
+    private static final int BIN_SHIFT = 5;
+
+    private static final double[] SRGB_TO_LINEAR = new double[256];
+
+    static {
+        for (int c = 0; c < 256; c++) {
+            double v = c / 255.0;
+            SRGB_TO_LINEAR[c] = v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+        }
+    }
+
+    private final String blurHash;
+    private final String dominantColor;
+
+    private ImagePlaceholder(String blurHash, String dominantColor) {
+        this.blurHash = blurHash;
+        this.dominantColor = dominantColor;
+    }
+
+    public static ImagePlaceholder of(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        return new ImagePlaceholder(blurHash(pixels, width, height), dominantColor(pixels));
+    }
+
+    /**
+     * @return BlurHash of the image, 4x3 components (3x4 when portrait)
+     */
+    public String getBlurHash() {
+        return blurHash;
+    }
+
+    /**
+     * @return dominant colour as #rrggbb
+     */
+    public String getDominantColor() {
+        return dominantColor;
+    }
+
+    static String blurHash(int[] pixels, int width, int height) {
+        int componentsX = width >= height ? LONG_COMPONENTS : SHORT_COMPONENTS;
+        int componentsY = width >= height ? SHORT_COMPONENTS : LONG_COMPONENTS;
+
+        double[][] cosX = basis(componentsX, width);
+        double[][] cosY = basis(componentsY, height);
+        // Separable: sum each row against the x basis, then the row sums against the y basis
+        double[][] factors = new double[componentsX * componentsY][3];
+        double[][] rowFactors = new double[componentsX][3];
+        for (int y = 0; y < height; y++) {
+            for (double[] rowFactor : rowFactors) {
+                Arrays.fill(rowFactor, 0);
+            }
+            for (int x = 0; x < width; x++) {
+                int rgb = pixels[y * width + x];
+                double r = SRGB_TO_LINEAR[(rgb >> 16) & 0xff];
+                double g = SRGB_TO_LINEAR[(rgb >> 8) & 0xff];
+                double b = SRGB_TO_LINEAR[rgb & 0xff];
+                for (int i = 0; i < componentsX; i++) {
+                    double basis = cosX[i][x];
+                    rowFactors[i][0] += basis * r;
+                    rowFactors[i][1] += basis * g;
+                    rowFactors[i][2] += basis * b;
+                }
+            }
+            for (int j = 0; j < componentsY; j++) {
+                double basis = cosY[j][y];
+                for (int i = 0; i < componentsX; i++) {
+                    double[] factor = factors[j * componentsX + i];
+                    factor[0] += basis * rowFactors[i][0];
+                    factor[1] += basis * rowFactors[i][1];
+                    factor[2] += basis * rowFactors[i][2];
+                }
+            }
+        }
+        double pixelCount = (double) width * height;
+        for (int k = 0; k < factors.length; k++) {
+            double scale = (k == 0 ? 1 : 2) / pixelCount;
+            for (int c = 0; c < 3; c++) {
+                factors[k][c] *= scale;
+            }
+        }
+
+        StringBuilder hash = new StringBuilder(4 + 2 * factors.length + 2);
+        encode83((componentsX - 1) + (componentsY - 1) * 9, 1, hash);
+
+        double maximum = 0;
+        for (int k = 1; k < factors.length; k++) {
+            for (int c = 0; c < 3; c++) {
+                maximum = Math.max(maximum, Math.abs(factors[k][c]));
+            }
+        }
+        int quantisedMaximum = (int) Math.max(0, Math.min(82, Math.floor(maximum * 166 - 0.5)));
+        double maximumValue = (quantisedMaximum + 1) / 166.0;
+        encode83(quantisedMaximum, 1, hash);
+
+        double[] dc = factors[0];
+        encode83((linearToSrgb(dc[0]) << 16) | (linearToSrgb(dc[1]) << 8) | linearToSrgb(dc[2]), 4, hash);
+        for (int k = 1; k < factors.length; k++) {
+            double[] ac = factors[k];
+            int value = quantiseAc(ac[0], maximumValue) * 19 * 19
+                + quantiseAc(ac[1], maximumValue) * 19
+                + quantiseAc(ac[2], maximumValue);
+            encode83(value, 2, hash);
+        }
+        return hash.toString();
+    }
+
+    static String dominantColor(int[] pixels) {
+        int bins = 1 << (3 * (8 - BIN_SHIFT));
+        int[] counts = new int[bins];
+        long[][] sums = new long[bins][3];
+        for (int rgb : pixels) {
+            int r = (rgb >> 16) & 0xff;
+            int g = (rgb >> 8) & 0xff;
+            int b = rgb & 0xff;
+            int bin = ((r >> BIN_SHIFT) << 6) | ((g >> BIN_SHIFT) << 3) | (b >> BIN_SHIFT);
+            counts[bin]++;
+            sums[bin][0] += r;
+            sums[bin][1] += g;
+            sums[bin][2] += b;
+        }
+        int top = 0;
+        for (int bin = 1; bin < bins; bin++) {
+            if (counts[bin] > counts[top]) {
+                top = bin;
+            }
+        }
+        if (counts[top] == 0) {
+            return "#000000";
+        }
+        return String.format("#%02x%02x%02x",
+            sums[top][0] / counts[top], sums[top][1] / counts[top], sums[top][2] / counts[top]);
+    }
+
+    /**
+     * cos(pi * component * position / size) for every component and position
+     */
+    private static double[][] basis(int components, int size) {
+        double[][] table = new double[components][size];
+        for (int component = 0; component < components; component++) {
+            for (int position = 0; position < size; position++) {
+                table[component][position] = Math.cos(Math.PI * component * position / size);
+            }
+        }
+        return table;
+    }
+
+    private static int quantiseAc(double value, double maximumValue) {
+        double scaled = Math.copySign(Math.sqrt(Math.abs(value / maximumValue)), value);
+        return (int) Math.max(0, Math.min(18, Math.floor(scaled * 9 + 9.5)));
+    }
+
+    private static int linearToSrgb(double value) {
+        double v = Math.max(0, Math.min(1, value));
+        return v <= 0.0031308
+            ? (int) Math.round(v * 12.92 * 255)
+            : (int) Math.round((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255);
+    }
+
+    private static void encode83(int value, int length, StringBuilder out) {
+        int divisor = 1;
+        for (int i = 1; i < length; i++) {
+            divisor *= 83;
+        }
+        for (int i = 0; i < length; i++) {
+            out.append(BASE83.charAt((value / divisor) % 83));
+            divisor /= 83;
+        }
+    }
+}
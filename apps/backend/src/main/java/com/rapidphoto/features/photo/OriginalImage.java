@@ -0,0 +1,94 @@
+package com.rapidphoto.features.photo;
+
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * One local copy of a photo's original, held either in a (pooled) byte buffer or, beyond
+ * the in-memory threshold, in a temp file. Every processing stage reads from this copy
+ * instead of fetching the object from storage again. Close to recycle the buffer or
+ * delete the file.
+ */
+public final class OriginalImage implements AutoCloseable {
+
+    private final byte[] buffer;
+    private final int length;
+    private final Path file;
+    private final Consumer<byte[]> recycler;
+    private boolean closed;
+
+    private OriginalImage(byte[] buffer, int length, Path file, Consumer<byte[]> recycler) {
+        this.buffer = buffer;
+        this.length = length;
+        this.file = file;
+        this.recycler = recycler;
+    }
+
+    /**
+     * Wrap bytes already in memory; nothing to recycle on close
+     */
+    public static OriginalImage of(byte[] bytes) {
+        return new OriginalImage(bytes, bytes.length, null, null);
+    }
+
+    static OriginalImage buffered(byte[] buffer, int length, Consumer<byte[]> recycler) {
+        return new OriginalImage(buffer, length, null, recycler);
+    }
+
+    static OriginalImage spooled(Path file) {
+        return new OriginalImage(null, 0, file, null);
+    }
+
+    public long getLength() {
+        if (file == null) {
+            return length;
+        }
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public boolean isSpooled() {
+        return file != null;
+    }
+
+    /**
+     * A fresh stream over the whole original; the caller closes it
+     */
+    public InputStream openStream() throws IOException {
+        return file != null ? Files.newInputStream(file) : new ByteArrayInputStream(buffer, 0, length);
+    }
+
+    /**
+     * Seekable stream for ImageIO readers. Spooled originals are read from the file directly
+     * rather than through an in-memory cache of everything read so far.
+     */
+    ImageInputStream openImageStream() throws IOException {
+        return file != null
+            ? new FileImageInputStream(file.toFile())
+            : new MemoryCacheImageInputStream(new ByteArrayInputStream(buffer, 0, length));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (file != null) {
+            Files.deleteIfExists(file);
+        } else if (recycler != null) {
+            recycler.accept(buffer);
+        }
+    }
+}
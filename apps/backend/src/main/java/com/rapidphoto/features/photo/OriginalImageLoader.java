@@ -0,0 +1,125 @@
+package com.rapidphoto.features.photo;
+
+import com.rapidphoto.infrastructure.storage.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fetches a photo's original from storage exactly once into an {@link OriginalImage}.
+ * Originals up to the in-memory threshold go into byte buffers recycled through a pool
+ * (power-of-two size classes, total pooled bytes capped), so bulk processing does not
+ * allocate a fresh multi-megabyte array per photo. Larger originals, or ones that turn
+ * out longer than announced, are spooled to a temp file.
+ */
+@Component
+public class OriginalImageLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(OriginalImageLoader.class);
+
+    private static final int MIN_BUFFER_BYTES = 1024 * 1024;
+
+    private final StorageService storageService;
+    private final long maxInMemoryBytes;
+    private final long maxPooledBytes;
+    private final Path spoolDir;
+
+    private final Map<Integer, Deque<byte[]>> pool = new ConcurrentHashMap<>();
+    private final AtomicLong pooledBytes = new AtomicLong();
+
+    public OriginalImageLoader(StorageService storageService,
+                               @Value("${processing.original-buffer.max-in-memory-bytes:33554432}") long maxInMemoryBytes,
+                               @Value("${processing.original-buffer.max-pooled-bytes:268435456}") long maxPooledBytes,
+                               @Value("${processing.original-buffer.spool-dir:${java.io.tmpdir}}") String spoolDir) {
+        this.storageService = storageService;
+        this.maxInMemoryBytes = Math.min(maxInMemoryBytes, 1L << 30);
+        this.maxPooledBytes = maxPooledBytes;
+        this.spoolDir = Path.of(spoolDir);
+    }
+
+    /**
+     * @param expectedBytes size recorded for the object; decides buffer versus temp file
+     */
+    public OriginalImage load(String storagePath, long expectedBytes) throws IOException {
+        try (InputStream in = storageService.retrieve(storagePath)) {
+            if (expectedBytes > maxInMemoryBytes) {
+                return spool(in, null, 0);
+            }
+
+            byte[] buffer = borrow(expectedBytes);
+            int length = in.readNBytes(buffer, 0, buffer.length);
+            if (length < buffer.length) {
+                return OriginalImage.buffered(buffer, length, this::recycle);
+            }
+            // Filled the buffer - if the object is longer than announced, continue on disk
+            try {
+                return spool(in, buffer, length);
+            } finally {
+                recycle(buffer);
+            }
+        }
+    }
+
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    private OriginalImage spool(InputStream in, byte[] head, int headLength) throws IOException {
+        Files.createDirectories(spoolDir);
+        Path file = Files.createTempFile(spoolDir, "original-", ".tmp");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            if (head != null) {
+                out.write(head, 0, headLength);
+            }
+            in.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        logger.debug("Spooled original to {}", file);
+        return OriginalImage.spooled(file);
+    }
+
+    /**
+     * A buffer with room for expectedBytes plus at least one byte, so a full read
+     * proves the object was longer than expected
+     */
+    private byte[] borrow(long expectedBytes) {
+        int capacity = sizeClass(expectedBytes + 1);
+        Deque<byte[]> free = pool.get(capacity);
+        byte[] buffer = free != null ? free.pollFirst() : null;
+        if (buffer != null) {
+            pooledBytes.addAndGet(-buffer.length);
+            return buffer;
+        }
+        return new byte[capacity];
+    }
+
+    private void recycle(byte[] buffer) {
+        if (pooledBytes.addAndGet(buffer.length) > maxPooledBytes) {
+            pooledBytes.addAndGet(-buffer.length);
+            return;
+        }
+        pool.computeIfAbsent(buffer.length, size -> new ConcurrentLinkedDeque<>()).offerFirst(buffer);
+    }
+
+    private static int sizeClass(long bytes) {
+        long capacity = MIN_BUFFER_BYTES;
+        while (capacity < bytes) {
+            capacity <<= 1;
+        }
+        return (int) Math.min(capacity, Integer.MAX_VALUE - 8);
+    }
+}
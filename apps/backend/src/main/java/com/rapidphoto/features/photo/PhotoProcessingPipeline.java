@@ -0,0 +1,235 @@
+package com.rapidphoto.features.photo;
+
+import com.rapidphoto.domain.photo.Photo;
+import com.rapidphoto.domain.photo.PhotoMetadata;
+import com.rapidphoto.domain.photo.PhotoRepository;
+import com.rapidphoto.features.similarity.SimilarPhotoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Post-upload processing of one photo against a single fetch of its original: header
+ * (dimensions, EXIF) when the upload path did not capture it, content hash when none was
+ * recorded, then renditions, and the perceptual hashes and gallery placeholder (BlurHash,
+ * dominant colour) of the smallest one. Each stage reads
+ * the same local copy, and the photo is saved once at the end in a short transaction.
+ */
+@Service
+public class PhotoProcessingPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhotoProcessingPipeline.class);
+
+    private static final int THUMBNAIL_SIZE = 200;
+
+    private final OriginalImageLoader originalImageLoader;
+    private final ImageMetadataExtractor metadataExtractor;
+    private final RenditionEngine renditionEngine;
+    private final ThumbnailService thumbnailService;
+    private final PhotoRepository photoRepository;
+    private final SimilarPhotoService similarPhotoService;
+    private final TransactionTemplate transactionTemplate;
+
+    public PhotoProcessingPipeline(OriginalImageLoader originalImageLoader,
+                                   ImageMetadataExtractor metadataExtractor,
+                                   RenditionEngine renditionEngine,
+                                   ThumbnailService thumbnailService,
+                                   PhotoRepository photoRepository,
+                                   SimilarPhotoService similarPhotoService,
+                                   TransactionTemplate transactionTemplate) {
+        this.originalImageLoader = originalImageLoader;
+        this.metadataExtractor = metadataExtractor;
+        this.renditionEngine = renditionEngine;
+        this.thumbnailService = thumbnailService;
+        this.photoRepository = photoRepository;
+        this.similarPhotoService = similarPhotoService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Run all stages for a stored photo. Failures are logged - processing is best effort
+     * and the upload itself has already succeeded.
+     */
+    @Async("processingExecutor")
+    public void process(Photo photo) {
+        try {
+            run(photo);
+        } catch (Exception e) {
+            logger.error("Failed to process photo: {}", photo.getId().getValue(), e);
+            // Don't throw exception - thumbnails and metadata are optional
+        }
+    }
+
+    /**
+     * Run all stages on the calling thread. A missing header is tolerated; failing to fetch
+     * the original or to produce renditions is thrown so the caller can retry.
+     */
+    public void run(Photo photo) throws IOException {
+        UUID photoId = photo.getId().getValue();
+        logger.info("Processing photo: {}", photoId);
+
+        try (OriginalImage original = load(photo)) {
+            ImageHeader header = null;
+            if (photo.getWidth() == null || photo.getHeight() == null) {
+                header = readHeader(photoId, original);
+            }
+
+            String checksum = photo.getChecksumSha256() == null ? sha256(original) : null;
+
+            // Decode once, cascade 1600 -> 800 -> 200; analyse the 200px image while the encodes run
+            AtomicReference<ImageFingerprint> fingerprint = new AtomicReference<>();
+            AtomicReference<ImagePlaceholder> placeholder = new AtomicReference<>();
+            List<RenditionEngine.Rendition> renditions = renditionEngine.render(original, thumbnail -> {
+                fingerprint.set(ImageFingerprint.of(thumbnail));
+                placeholder.set(ImagePlaceholder.of(thumbnail));
+            });
+            Map<String, String> thumbnailPaths = thumbnailService.storeRenditions(photoId, renditions);
+
+            save(photoId, header, checksum, renditions, thumbnailPaths, fingerprint.get(), placeholder.get());
+            logger.info("Successfully processed photo: {}", photoId);
+        }
+    }
+
+    /**
+     * Header stage only: (re-)read dimensions and EXIF from the original
+     */
+    public void extractMetadata(Photo photo) throws IOException {
+        try (OriginalImage original = load(photo)) {
+            ImageHeader header = metadataExtractor.readHeader(original);
+            save(photo.getId().getValue(), header, null, null, null, null, null);
+        }
+    }
+
+    /**
+     * Hash stage only: the recorded content hash, computing and saving it when missing
+     */
+    public String ensureChecksum(Photo photo) throws IOException {
+        if (photo.getChecksumSha256() != null) {
+            return photo.getChecksumSha256();
+        }
+        try (OriginalImage original = load(photo)) {
+            String checksum = sha256(original);
+            save(photo.getId().getValue(), null, checksum, null, null, null, null);
+            return checksum;
+        }
+    }
+
+    /**
+     * Hashing stage only, for photos processed before perceptual hashes or placeholders were
+     * recorded: analyses the stored 200px rendition, or runs every stage when the photo has no
+     * renditions yet
+     */
+    public void computeFingerprint(Photo photo) throws IOException {
+        String thumbnailPath = storedThumbnailPath(photo);
+        if (thumbnailPath == null) {
+            run(photo);
+            return;
+        }
+        BufferedImage thumbnail;
+        try (OriginalImage stored = originalImageLoader.load(thumbnailPath, 0)) {
+            thumbnail = ImageDecoder.decode(stored, THUMBNAIL_SIZE);
+        }
+        save(photo.getId().getValue(), null, null, null, null,
+            ImageFingerprint.of(thumbnail), ImagePlaceholder.of(thumbnail));
+    }
+
+    private OriginalImage load(Photo photo) throws IOException {
+        return originalImageLoader.load(
+            photo.getStorageInfo().getStoragePath(),
+            photo.getFileSizeBytes() != null ? photo.getFileSizeBytes() : 0);
+    }
+
+    private static String storedThumbnailPath(Photo photo) {
+        PhotoMetadata photoMetadata = photo.getPhotoMetadata();
+        Map<String, Object> metadata = photoMetadata != null ? photoMetadata.getMetadata() : null;
+        Object thumbnails = metadata != null ? metadata.get("thumbnails") : null;
+        if (thumbnails instanceof Map<?, ?> paths && paths.get("thumbnail") instanceof String path) {
+            return path;
+        }
+        return null;
+    }
+
+    private ImageHeader readHeader(UUID photoId, OriginalImage original) {
+        try {
+            return metadataExtractor.readHeader(original);
+        } catch (Exception e) {
+            logger.warn("Failed to extract metadata for photo: {} - {}", photoId, e.getMessage());
+            // Continue without metadata
+            return null;
+        }
+    }
+
+    /**
+     * Reloads the photo so the single save applies on top of whatever the upload path
+     * committed meanwhile (status, session counters) instead of a stale copy. A new
+     * perceptual hash is indexed once committed.
+     */
+    private void save(UUID photoId, ImageHeader header, String checksum, List<RenditionEngine.Rendition> renditions,
+                      Map<String, String> thumbnailPaths, ImageFingerprint fingerprint,
+                      ImagePlaceholder placeholder) {
+        Photo saved = transactionTemplate.execute(status -> {
+            Photo photo = photoRepository.findById(photoId).orElse(null);
+            if (photo == null) {
+                logger.info("Photo deleted during processing: {}", photoId);
+                return null;
+            }
+            if (header != null) {
+                metadataExtractor.applyHeader(photo, header);
+            }
+            if (checksum != null && photo.getChecksumSha256() == null) {
+                photo.setChecksumSha256(checksum);
+            }
+            if (thumbnailPaths != null) {
+                thumbnailService.applyRenditions(photo, renditions, thumbnailPaths);
+            }
+            if (fingerprint != null) {
+                photo.setDifferenceHash(fingerprint.getDifferenceHash());
+                photo.setPerceptualHash(fingerprint.getPerceptualHash());
+            }
+            if (placeholder != null) {
+                photo.setBlurHash(placeholder.getBlurHash());
+                photo.setDominantColor(placeholder.getDominantColor());
+            }
+            return photoRepository.save(photo);
+        });
+
+        if (fingerprint != null && saved != null) {
+            try {
+                similarPhotoService.onHashed(saved);
+            } catch (Exception e) {
+                // The hash is stored: the index picks it up when the library is next loaded
+                logger.warn("Failed to index perceptual hash of photo: {} - {}", photoId, e.getMessage());
+            }
+        }
+    }
+
+    private static String sha256(OriginalImage original) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = original.openStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
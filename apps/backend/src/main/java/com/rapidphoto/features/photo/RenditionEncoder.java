@@ -0,0 +1,198 @@
+package com.rapidphoto.features.photo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.plugins.jpeg.JPEGImageWriteParam;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * JPEG encoding of renditions against a byte budget per size class (the named renditions'
+ * boxes: thumbnail, medium, large). A rendition is encoded at the default quality and kept
+ * when it fits; a noisy one that does not is re-encoded in a binary search over quality for
+ * the highest that fits, down to a floor and within a cap on encodes. Budgets are for a 4:3
+ * frame filling the class box and scale with pixel count, so panoramas and squares get the
+ * same bytes per pixel as the class.
+ *
+ * Large-class renditions are written progressive with optimized Huffman tables: they paint
+ * early in the browser and come out a few percent smaller at the same quality.
+ */
+@Component
+public class RenditionEncoder {
+
+    static final float DEFAULT_QUALITY = 0.85f;
+    // Below this the JPEG headers alone are a large share: not worth searching for
+    private static final long MIN_BUDGET_BYTES = 2048;
+
+    // Class boxes, smallest first, and the budget of each
+    private final int[] classSizes;
+    private final long[] budgets;
+    private final float minQuality;
+    private final int maxEncodes;
+
+    public RenditionEncoder(@Value("${processing.renditions.budget-bytes.thumbnail:12288}") long thumbnailBudget,
+                            @Value("${processing.renditions.budget-bytes.medium:102400}") long mediumBudget,
+                            @Value("${processing.renditions.budget-bytes.large:327680}") long largeBudget,
+                            @Value("${processing.renditions.min-quality:0.5}") float minQuality,
+                            @Value("${processing.renditions.max-encodes:5}") int maxEncodes) {
+        if (minQuality <= 0 || minQuality > DEFAULT_QUALITY) {
+            throw new IllegalArgumentException("min-quality must be in (0, " + DEFAULT_QUALITY + "]");
+        }
+        if (maxEncodes < 1) {
+            throw new IllegalArgumentException("max-encodes must be at least 1");
+        }
+        this.classSizes = new int[] {
+            RenditionEngine.sizeOf("thumbnail"), RenditionEngine.sizeOf("medium"), RenditionEngine.sizeOf("large")};
+        this.budgets = new long[] {thumbnailBudget, mediumBudget, largeBudget};
+        this.minQuality = minQuality;
+        this.maxEncodes = maxEncodes;
+    }
+
+    /**
+     * Encode within the image's byte budget
+     */
+    public Encoded encode(BufferedImage image) throws IOException {
+        BufferedImage rgb = toRgb(image);
+        boolean progressive = isLargeClass(rgb);
+        long budget = budgetFor(rgb.getWidth(), rgb.getHeight());
+
+        byte[] jpeg = encodeJpeg(rgb, DEFAULT_QUALITY, progressive);
+        int encodes = 1;
+        if (jpeg.length <= budget) {
+            return new Encoded(jpeg, DEFAULT_QUALITY, encodes);
+        }
+
+        // Invariant: high does not fit; the best fit found so far is at or below low
+        float low = minQuality;
+        float high = DEFAULT_QUALITY;
+        byte[] fit = null;
+        float fitQuality = 0;
+        byte[] smallest = jpeg;
+        float smallestQuality = DEFAULT_QUALITY;
+        while (encodes < maxEncodes && high - low > 0.01f) {
+            float quality = fit == null && encodes == maxEncodes - 1 ? low : (low + high) / 2;
+            byte[] attempt = encodeJpeg(rgb, quality, progressive);
+            encodes++;
+            if (attempt.length <= budget) {
+                fit = attempt;
+                fitQuality = quality;
+                low = quality;
+            } else {
+                high = quality;
+                if (attempt.length < smallest.length) {
+                    smallest = attempt;
+                    smallestQuality = quality;
+                }
+            }
+        }
+        return fit != null
+            ? new Encoded(fit, fitQuality, encodes)
+            : new Encoded(smallest, smallestQuality, encodes);
+    }
+
+    /**
+     * Encode at a fixed quality, ignoring the budget
+     */
+    public Encoded encode(BufferedImage image, float quality) throws IOException {
+        BufferedImage rgb = toRgb(image);
+        return new Encoded(encodeJpeg(rgb, quality, isLargeClass(rgb)), quality, 1);
+    }
+
+    long budgetFor(int width, int height) {
+        int longSide = Math.max(width, height);
+        int sizeClass = classSizes.length - 1;
+        for (int i = 0; i < classSizes.length; i++) {
+            if (longSide <= classSizes[i]) {
+                sizeClass = i;
+                break;
+            }
+        }
+        double frame = (double) classSizes[sizeClass] * classSizes[sizeClass] * 3 / 4;
+        return Math.max(MIN_BUDGET_BYTES, Math.round(budgets[sizeClass] * (width * (double) height) / frame));
+    }
+
+    private boolean isLargeClass(BufferedImage image) {
+        return Math.max(image.getWidth(), image.getHeight()) > classSizes[classSizes.length - 2];
+    }
+
+    static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        return encodeJpeg(toRgb(image), quality, false);
+    }
+
+    private static byte[] encodeJpeg(BufferedImage rgb, float quality, boolean progressive) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(4096, rgb.getWidth() * rgb.getHeight() / 4));
+        try (MemoryCacheImageOutputStream output = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            if (progressive) {
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                if (param instanceof JPEGImageWriteParam jpegParam) {
+                    jpegParam.setOptimizeHuffmanTables(true);
+                }
+            }
+            writer.write(null, new IIOImage(rgb, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * JPEG has no alpha channel - flatten onto white
+     */
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.drawImage(image, 0, 0, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+        return rgb;
+    }
+
+    public static final class Encoded {
+        private final byte[] jpeg;
+        private final float quality;
+        private final int encodes;
+
+        Encoded(byte[] jpeg, float quality, int encodes) {
+            this.jpeg = jpeg;
+            this.quality = quality;
+            this.encodes = encodes;
+        }
+
+        public byte[] getJpeg() {
+            return jpeg;
+        }
+
+        /**
+         * @return JPEG quality the bytes were written at (0-1)
+         */
+        public float getQuality() {
+            return quality;
+        }
+
+        /**
+         * @return encodes it took to meet the budget
+         */
+        public int getEncodes() {
+            return encodes;
+        }
+    }
+}
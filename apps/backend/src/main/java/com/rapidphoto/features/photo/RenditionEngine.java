@@ -0,0 +1,239 @@
+package com.rapidphoto.features.photo;
+
+import net.coobird.thumbnailator.Thumbnails;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Produces the eagerly rendered thumbnails of a photo from a single decode. The original is
+ * decoded subsampled to just above the largest of them (see {@link ImageDecoder}), the largest
+ * is scaled from that and each smaller one from the one before it, so the original is read
+ * once and never held at full resolution. Which renditions are eager is configured; the 200px
+ * thumbnail always is, and the rest are rendered on first request by {@link RenditionService}.
+ * The JPEG encodes ({@link RenditionEncoder}, each against its size class's byte budget) are
+ * independent and run in parallel on the given executor. Each render holds
+ * a {@link DecodeBudget} permit for its decoded pixels until the renditions are encoded.
+ */
+@Component
+public class RenditionEngine {
+
+    /**
+     * Named renditions, largest first: each is scaled from the previous one
+     */
+    private static final String[] CATALOG_NAMES = {"large", "medium", "thumbnail"};
+    private static final int[] CATALOG_SIZES = {1600, 800, 200};
+    static final String THUMBNAIL = "thumbnail";
+
+    private final Executor encodeExecutor;
+    private final RenditionEncoder encoder;
+    private final DecodeBudget decodeBudget;
+    // The eager subset of the catalog, in catalog order
+    private final String[] names;
+    private final int[] sizes;
+
+    public RenditionEngine(@Qualifier("processingExecutor") Executor encodeExecutor, RenditionEncoder encoder,
+                           DecodeBudget decodeBudget,
+                           @Value("${processing.renditions.eager:thumbnail}") String[] eager) {
+        this.encodeExecutor = encodeExecutor;
+        this.encoder = encoder;
+        this.decodeBudget = decodeBudget;
+
+        Set<String> selected = new HashSet<>();
+        Arrays.stream(eager).map(String::trim).filter(name -> !name.isEmpty()).forEach(selected::add);
+        selected.add(THUMBNAIL);
+        for (String name : selected) {
+            if (sizeOf(name) == 0) {
+                throw new IllegalArgumentException("Unknown rendition: " + name);
+            }
+        }
+        List<String> eagerNames = new ArrayList<>();
+        List<Integer> eagerSizes = new ArrayList<>();
+        for (int i = 0; i < CATALOG_NAMES.length; i++) {
+            if (selected.contains(CATALOG_NAMES[i])) {
+                eagerNames.add(CATALOG_NAMES[i]);
+                eagerSizes.add(CATALOG_SIZES[i]);
+            }
+        }
+        this.names = eagerNames.toArray(new String[0]);
+        this.sizes = eagerSizes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return the box size of a named rendition (large, medium, thumbnail), 0 when there is none
+     */
+    public static int sizeOf(String name) {
+        for (int i = 0; i < CATALOG_NAMES.length; i++) {
+            if (CATALOG_NAMES[i].equals(name)) {
+                return CATALOG_SIZES[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return rendition names, largest first
+     */
+    public static List<String> catalog() {
+        return List.of(CATALOG_NAMES);
+    }
+
+    /**
+     * Render an original already held in memory
+     */
+    public List<Rendition> render(byte[] original) throws IOException {
+        return render(OriginalImage.of(original));
+    }
+
+    /**
+     * @return the eager renditions, largest first - the 200px thumbnail last
+     */
+    public List<Rendition> render(OriginalImage original) throws IOException {
+        return render(original, null);
+    }
+
+    /**
+     * @param thumbnailAnalyzer given the smallest rendition's pixels while the encodes run, for
+     *                          analysis that should not decode the original again; may be null
+     * @return the eager renditions, largest first - the 200px thumbnail last
+     */
+    public List<Rendition> render(OriginalImage original, Consumer<BufferedImage> thumbnailAnalyzer)
+            throws IOException {
+        Dimension source;
+        try (InputStream in = original.openStream()) {
+            source = ImageDecoder.readDimensions(in);
+        }
+        if (source == null) {
+            throw new IOException("Unsupported image format");
+        }
+        // Reserve the subsampled decode's pixels; the renditions derived from it are smaller
+        int factor = ImageDecoder.subsamplingFactor(source.width, source.height, ImageDecoder.decodeSize(sizes[0]));
+        try (DecodeBudget.Permit permit = acquire((source.width + factor - 1) / factor,
+                (source.height + factor - 1) / factor)) {
+            return renderWithin(original, thumbnailAnalyzer);
+        }
+    }
+
+    private List<Rendition> renderWithin(OriginalImage original, Consumer<BufferedImage> thumbnailAnalyzer)
+            throws IOException {
+        BufferedImage[] scaled = new BufferedImage[sizes.length];
+        BufferedImage source = null;
+        for (int i = 0; i < sizes.length; i++) {
+            int size = sizes[i];
+            scaled[i] = source == null
+                ? Thumbnails.of(ImageDecoder.decode(original, ImageDecoder.decodeSize(size))).size(size, size).asBufferedImage()
+                : Thumbnails.of(source).size(size, size).asBufferedImage();
+            source = scaled[i];
+        }
+
+        // Hand the encodes to the pool, then run any not yet picked up on this thread. A task
+        // is only ever waited on once it is running elsewhere, so a saturated pool whose
+        // workers are all rendering cannot deadlock.
+        List<FutureTask<RenditionEncoder.Encoded>> encodes = new ArrayList<>(sizes.length);
+        for (BufferedImage image : scaled) {
+            FutureTask<RenditionEncoder.Encoded> encode = new FutureTask<>(() -> encoder.encode(image));
+            encodes.add(encode);
+            try {
+                encodeExecutor.execute(encode);
+            } catch (RejectedExecutionException e) {
+                // Run below on this thread
+            }
+        }
+
+        if (thumbnailAnalyzer != null) {
+            thumbnailAnalyzer.accept(scaled[sizes.length - 1]);
+        }
+
+        List<Rendition> renditions = new ArrayList<>(sizes.length);
+        for (int i = 0; i < sizes.length; i++) {
+            FutureTask<RenditionEncoder.Encoded> encode = encodes.get(i);
+            encode.run();
+            RenditionEncoder.Encoded encoded = await(encode);
+            renditions.add(new Rendition(names[i], scaled[i].getWidth(), scaled[i].getHeight(),
+                encoded.getJpeg(), encoded.getQuality()));
+        }
+        return renditions;
+    }
+
+    private DecodeBudget.Permit acquire(int width, int height) throws IOException {
+        try {
+            return decodeBudget.acquire(width, height);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for decode budget", e);
+        }
+    }
+
+    private static RenditionEncoder.Encoded await(FutureTask<RenditionEncoder.Encoded> encode) throws IOException {
+        try {
+            return encode.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while encoding rendition", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            throw new IOException("Failed to encode rendition", cause);
+        }
+    }
+
+    public static final class Rendition {
+        private final String name;
+        private final int width;
+        private final int height;
+        private final byte[] jpeg;
+        private final float quality;
+
+        Rendition(String name, int width, int height, byte[] jpeg, float quality) {
+            this.name = name;
+            this.width = width;
+            this.height = height;
+            this.jpeg = jpeg;
+            this.quality = quality;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public byte[] getJpeg() {
+            return jpeg;
+        }
+
+        /**
+         * @return JPEG quality the rendition was encoded at (0-1)
+         */
+        public float getQuality() {
+            return quality;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.rapidphoto.features.photo;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rapidphoto.domain.photo.Photo;
+import com.rapidphoto.domain.photo.PhotoMetadata;
+import com.rapidphoto.infrastructure.storage.StorageException;
+import com.rapidphoto.infrastructure.storage.StorageService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Renditions of any size, generated on first request and kept. A variant is looked up in a
+ * byte-bounded in-memory cache, then in storage (uploads/renditions/{photoId}/{key}.jpg); only
+ * when neither has it is it rendered - from the smallest stored named rendition that is still
+ * large enough, else from a subsampled decode of the original under the {@link DecodeBudget} -
+ * and written to storage for the next instance to find. Only budget-quality variants are
+ * written ({@link RenditionSpec#isPersistent()}); the rest live in the cache alone. A photo's
+ * stored variants are removed with it ({@link #deleteRenditions}).
+ *
+ * Concurrent requests for a variant that is being generated wait for that generation instead
+ * of starting their own (single-flight), so a burst for a new size costs one decode.
+ */
+@Service
+public class RenditionService implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(RenditionService.class);
+
+    private final StorageService storageService;
+    private final OriginalImageLoader originalImageLoader;
+    private final DecodeBudget decodeBudget;
+    private final RenditionEncoder encoder;
+    private final int maxDimension;
+    private final long waitTimeoutMillis;
+
+    private final Cache<String, byte[]> cache;
+    private final ConcurrentHashMap<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder storageHits = new LongAdder();
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+
+    public RenditionService(StorageService storageService,
+                            OriginalImageLoader originalImageLoader,
+                            DecodeBudget decodeBudget,
+                            RenditionEncoder encoder,
+                            @Value("${rendition.cache.max-bytes:134217728}") long cacheMaxBytes,
+                            @Value("${rendition.max-dimension:4096}") int maxDimension,
+                            @Value("${rendition.wait-timeout-ms:30000}") long waitTimeoutMillis) {
+        this.storageService = storageService;
+        this.originalImageLoader = originalImageLoader;
+        this.decodeBudget = decodeBudget;
+        this.encoder = encoder;
+        this.maxDimension = maxDimension;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(cacheMaxBytes)
+            .weigher((String key, byte[] jpeg) -> jpeg.length)
+            .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("image.rendition.requests", cacheHits, LongAdder::sum)
+            .description("On-demand rendition requests by where the bytes came from")
+            .tag("source", "cache")
+            .register(registry);
+        FunctionCounter.builder("image.rendition.requests", storageHits, LongAdder::sum)
+            .tag("source", "storage")
+            .register(registry);
+        FunctionCounter.builder("image.rendition.requests", generated, LongAdder::sum)
+            .tag("source", "generated")
+            .register(registry);
+        FunctionCounter.builder("image.rendition.requests", joined, LongAdder::sum)
+            .description("Requests that waited for a generation already in flight")
+            .tag("source", "joined")
+            .register(registry);
+        Gauge.builder("image.rendition.cache.size", cache,
+                c -> c.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+            .baseUnit("bytes")
+            .register(registry);
+    }
+
+    /**
+     * @return the rendition as JPEG
+     */
+    public byte[] render(Photo photo, RenditionSpec spec) throws IOException {
+        UUID photoId = photo.getId().getValue();
+        String path = storagePath(photoId, spec);
+        byte[] cached = cache.getIfPresent(path);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+
+        CompletableFuture<byte[]> flight = new CompletableFuture<>();
+        CompletableFuture<byte[]> leader = inFlight.putIfAbsent(path, flight);
+        if (leader != null) {
+            joined.increment();
+            return await(leader, path);
+        }
+        try {
+            byte[] jpeg = cache.getIfPresent(path);
+            if (jpeg == null) {
+                jpeg = loadOrGenerate(photo, spec, path);
+                cache.put(path, jpeg);
+            }
+            flight.complete(jpeg);
+            return jpeg;
+        } catch (IOException | RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(path, flight);
+        }
+    }
+
+    private byte[] loadOrGenerate(Photo photo, RenditionSpec spec, String path) throws IOException {
+        if (spec.isPersistent() && storageService.exists(path)) {
+            try (InputStream in = storageService.retrieve(path)) {
+                storageHits.increment();
+                return in.readAllBytes();
+            }
+        }
+
+        long start = System.nanoTime();
+        String sourcePath = photo.getStorageInfo().getStoragePath();
+        long sourceBytes = photo.getFileSizeBytes() != null ? photo.getFileSizeBytes() : 0;
+        int requiredSize = 0;
+        if (photo.getWidth() != null && photo.getHeight() != null) {
+            requiredSize = spec.requiredLongSide(photo.getWidth(), photo.getHeight());
+            String stored = smallestStoredRendition(photo, requiredSize);
+            if (stored != null) {
+                sourcePath = stored;
+                sourceBytes = 0;
+            }
+        }
+
+        RenditionEncoder.Encoded encoded;
+        try (OriginalImage source = originalImageLoader.load(sourcePath, sourceBytes)) {
+            encoded = renderFrom(source, spec, requiredSize);
+        }
+        byte[] jpeg = encoded.getJpeg();
+        if (spec.isPersistent()) {
+            storageService.store(path, new ByteArrayInputStream(jpeg), "image/jpeg", jpeg.length);
+        }
+        generated.increment();
+        logger.debug("Rendered {} for photo {} from {} in {} ms ({} bytes at quality {})", spec.key(),
+            photo.getId().getValue(), sourcePath, (System.nanoTime() - start) / 1_000_000, jpeg.length,
+            encoded.getQuality());
+        return jpeg;
+    }
+
+    /**
+     * @param requiredSize longer side the decode must keep, 0 when unknown (decode at full size)
+     */
+    private RenditionEncoder.Encoded renderFrom(OriginalImage source, RenditionSpec spec, int requiredSize) throws IOException {
+        Dimension dimensions;
+        try (InputStream in = source.openStream()) {
+            dimensions = ImageDecoder.readDimensions(in);
+        }
+        if (dimensions == null) {
+            throw new IOException("Unsupported image format");
+        }
+        int decodeSize = requiredSize > 0
+            ? ImageDecoder.decodeSize(requiredSize)
+            : Math.max(dimensions.width, dimensions.height);
+        int factor = ImageDecoder.subsamplingFactor(dimensions.width, dimensions.height, decodeSize);
+        try (DecodeBudget.Permit permit = acquire((dimensions.width + factor - 1) / factor,
+                (dimensions.height + factor - 1) / factor)) {
+            BufferedImage image = spec.apply(ImageDecoder.decode(source, decodeSize));
+            return spec.getQuality() > 0 ? encoder.encode(image, spec.getQuality() / 100f) : encoder.encode(image);
+        }
+    }
+
+    /**
+     * The smallest named rendition recorded for the photo whose longer side is at least
+     * {@code requiredSize}, or null when only the original is large enough
+     */
+    private static String smallestStoredRendition(Photo photo, int requiredSize) {
+        PhotoMetadata photoMetadata = photo.getPhotoMetadata();
+        Map<String, Object> metadata = photoMetadata != null ? photoMetadata.getMetadata() : null;
+        if (metadata == null || !(metadata.get("thumbnails") instanceof Map<?, ?> stored)) {
+            return null;
+        }
+        int longSide = Math.max(photo.getWidth(), photo.getHeight());
+        List<String> largestFirst = RenditionEngine.catalog();
+        for (int i = largestFirst.size() - 1; i >= 0; i--) {
+            String name = largestFirst.get(i);
+            // A rendition whose box exceeds the photo holds it at full size
+            int renditionLongSide = Math.min(RenditionEngine.sizeOf(name), longSide);
+            if (renditionLongSide >= requiredSize && stored.get(name) instanceof String path) {
+                return path;
+            }
+        }
+        return null;
+    }
+
+    private byte[] await(CompletableFuture<byte[]> leader, String path) throws IOException {
+        try {
+            return leader.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for rendition " + path, e);
+        } catch (TimeoutException e) {
+            throw new IOException("Timed out waiting for rendition " + path, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Failed to render " + path, cause);
+        }
+    }
+
+    private DecodeBudget.Permit acquire(int width, int height) throws IOException {
+        try {
+            return decodeBudget.acquire(width, height);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for decode budget", e);
+        }
+    }
+
+    /**
+     * Drop every on-demand rendition of a deleted photo, stored and cached
+     */
+    public void deleteRenditions(UUID photoId) {
+        String prefix = storageDirectory(photoId);
+        cache.asMap().keySet().removeIf(path -> path.startsWith(prefix));
+        try {
+            storageService.deleteAll(prefix);
+        } catch (StorageException e) {
+            // The photo is already deleted; orphaned variants are unreachable, only wasted space
+            logger.warn("Failed to delete renditions of photo {}: {}", photoId, e.getMessage());
+        }
+    }
+
+    /**
+     * @return largest width or height a request may ask for
+     */
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    static String storagePath(UUID photoId, RenditionSpec spec) {
+        return storageDirectory(photoId) + spec.key() + ".jpg";
+    }
+
+    private static String storageDirectory(UUID photoId) {
+        return "uploads/renditions/" + photoId + "/";
+    }
+}
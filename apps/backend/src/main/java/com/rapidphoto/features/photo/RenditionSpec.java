@@ -0,0 +1,179 @@
+package com.rapidphoto.features.photo;
+
+import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.geometry.Positions;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Requested size, fit and JPEG quality of an on-demand rendition. Output is never larger than
+ * its source: a box bigger than the photo yields the photo at full size (contain) or the
+ * largest crop of the requested aspect ratio (cover). Without a quality the rendition is
+ * encoded to its size class's byte budget ({@link RenditionEncoder}).
+ *
+ * Requested sides are rounded up to the next of a fixed ladder of sizes, so arbitrary request
+ * parameters map onto a bounded set of variants per photo; clients scale the (slightly larger)
+ * result down.
+ */
+public final class RenditionSpec {
+
+    public enum Fit {
+        /** Scale to fit inside the box, keeping the aspect ratio */
+        CONTAIN,
+        /** Scale to fill the box and crop the overflow, centred */
+        COVER
+    }
+
+    // Quality chosen by the encoder's byte budget
+    private static final int BUDGET_QUALITY = 0;
+
+    // Sides a request is rounded up to; includes the named rendition sizes
+    private static final int[] SIZE_STEPS = {
+        32, 48, 64, 96, 128, 160, 200, 256, 320, 400, 480, 640, 800, 960, 1200, 1600, 2048, 2560, 3200, 4096
+    };
+
+    private final int width;
+    private final int height;
+    private final Fit fit;
+    private final int quality;
+
+    private RenditionSpec(int width, int height, Fit fit, int quality) {
+        this.width = width;
+        this.height = height;
+        this.fit = fit;
+        this.quality = quality;
+    }
+
+    /**
+     * Parse request parameters; w or h may be omitted (unbounded), but not both
+     *
+     * @throws IllegalArgumentException for out-of-range values
+     */
+    public static RenditionSpec of(Integer width, Integer height, String fit, Integer quality, int maxDimension) {
+        if (width == null && height == null) {
+            throw new IllegalArgumentException("w or h is required");
+        }
+        if ((width != null && (width < 1 || width > maxDimension))
+                || (height != null && (height < 1 || height > maxDimension))) {
+            throw new IllegalArgumentException("w and h must be between 1 and " + maxDimension);
+        }
+        int w = width != null ? quantize(width, maxDimension) : 0;
+        int h = height != null ? quantize(height, maxDimension) : 0;
+        Fit parsedFit;
+        try {
+            parsedFit = fit == null ? Fit.CONTAIN : Fit.valueOf(fit.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("fit must be contain or cover");
+        }
+        if (parsedFit == Fit.COVER && (w == 0 || h == 0)) {
+            // Nothing to crop against: same as fitting the one given side
+            parsedFit = Fit.CONTAIN;
+        }
+        int q = quality != null ? quality : BUDGET_QUALITY;
+        if (quality != null && (q < 1 || q > 100)) {
+            throw new IllegalArgumentException("q must be between 1 and 100");
+        }
+        return new RenditionSpec(w, h, parsedFit, q);
+    }
+
+    /**
+     * A named rendition (large, medium, thumbnail): fit inside its box within its byte budget
+     */
+    public static RenditionSpec named(String name) {
+        int size = RenditionEngine.sizeOf(name);
+        if (size == 0) {
+            throw new IllegalArgumentException("Unknown rendition: " + name);
+        }
+        return new RenditionSpec(size, size, Fit.CONTAIN, BUDGET_QUALITY);
+    }
+
+    /**
+     * The smallest step at least {@code size}, capped at {@code maxDimension}
+     */
+    static int quantize(int size, int maxDimension) {
+        for (int step : SIZE_STEPS) {
+            if (step >= size) {
+                return Math.min(step, maxDimension);
+            }
+        }
+        return maxDimension;
+    }
+
+    /**
+     * Identifies the variant among a photo's renditions, e.g. 800x640-cover-q85 or 800x0-contain-auto
+     * (0 = unbounded, auto = budgeted quality)
+     */
+    public String key() {
+        return width + "x" + height + "-" + fit.name().toLowerCase(Locale.ROOT)
+            + (quality == BUDGET_QUALITY ? "-auto" : "-q" + quality);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Fit getFit() {
+        return fit;
+    }
+
+    /**
+     * @return requested JPEG quality 1-100, or 0 to encode within the byte budget
+     */
+    public int getQuality() {
+        return quality;
+    }
+
+    /**
+     * Whether the variant is worth keeping in storage. Budget-quality variants are bounded by
+     * the size ladder; an explicit quality multiplies them by up to 100, so those are only
+     * held in memory.
+     */
+    public boolean isPersistent() {
+        return quality == BUDGET_QUALITY;
+    }
+
+    /**
+     * Output size for a source of the given size
+     */
+    Dimension outputSize(int sourceWidth, int sourceHeight) {
+        double boxWidth = width > 0 ? width : Double.POSITIVE_INFINITY;
+        double boxHeight = height > 0 ? height : Double.POSITIVE_INFINITY;
+        if (fit == Fit.COVER) {
+            // Shrink the box until the source covers it, keeping its aspect ratio
+            double shrink = Math.min(1, Math.min(sourceWidth / boxWidth, sourceHeight / boxHeight));
+            return new Dimension(Math.max(1, (int) Math.round(boxWidth * shrink)),
+                Math.max(1, (int) Math.round(boxHeight * shrink)));
+        }
+        double scale = Math.min(1, Math.min(boxWidth / sourceWidth, boxHeight / sourceHeight));
+        return new Dimension(Math.max(1, (int) Math.round(sourceWidth * scale)),
+            Math.max(1, (int) Math.round(sourceHeight * scale)));
+    }
+
+    /**
+     * The longer side a source of the given aspect must have to produce this rendition
+     * without upscaling, in the source's own scale when it is smaller
+     */
+    int requiredLongSide(int sourceWidth, int sourceHeight) {
+        Dimension output = outputSize(sourceWidth, sourceHeight);
+        double scale = Math.max((double) output.width / sourceWidth, (double) output.height / sourceHeight);
+        return (int) Math.ceil(scale * Math.max(sourceWidth, sourceHeight));
+    }
+
+    BufferedImage apply(BufferedImage source) throws IOException {
+        Dimension output = outputSize(source.getWidth(), source.getHeight());
+        if (output.width == source.getWidth() && output.height == source.getHeight()) {
+            return source;
+        }
+        if (fit == Fit.COVER) {
+            return Thumbnails.of(source).crop(Positions.CENTER).size(output.width, output.height).asBufferedImage();
+        }
+        return Thumbnails.of(source).size(output.width, output.height).asBufferedImage();
+    }
+}
@@ -0,0 +1,52 @@
+package com.rapidphoto.features.processing;
+
+import com.rapidphoto.domain.photo.Photo;
+import com.rapidphoto.domain.photo.PhotoRepository;
+import com.rapidphoto.domain.photo.PhotoStatus;
+import com.rapidphoto.domain.processing.JobType;
+import com.rapidphoto.features.photo.PhotoProcessingPipeline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds photos in the owner's library with byte-identical content
+ */
+@Component
+public class DuplicateDetectionJobHandler implements ProcessingJobHandler {
+
+    private final PhotoProcessingPipeline processingPipeline;
+    private final PhotoRepository photoRepository;
+    private final int concurrency;
+
+    public DuplicateDetectionJobHandler(PhotoProcessingPipeline processingPipeline,
+                                        PhotoRepository photoRepository,
+                                        @Value("${processing.jobs.concurrency.duplicate-detection:2}") int concurrency) {
+        this.processingPipeline = processingPipeline;
+        this.photoRepository = photoRepository;
+        this.concurrency = concurrency;
+    }
+
+    @Override
+    public JobType getJobType() {
+        return JobType.DUPLICATE_DETECTION;
+    }
+
+    @Override
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    @Override
+    public Map<String, Object> handle(Photo photo) throws Exception {
+        String checksum = processingPipeline.ensureChecksum(photo);
+        List<String> duplicates = photoRepository.findByUserIdAndChecksumSha256AndStatusAndIdNot(
+                photo.getUserId().getValue(), checksum, PhotoStatus.COMPLETED, photo.getId().getValue())
+            .stream()
+            .map(duplicate -> duplicate.getId().getValue().toString())
+            .toList();
+        return Map.of("checksumSha256", checksum, "duplicateOf", duplicates);
+    }
+}
@@ -0,0 +1,41 @@
+package com.rapidphoto.features.processing;
+
+import com.rapidphoto.domain.photo.Photo;
+import com.rapidphoto.domain.processing.JobType;
+import com.rapidphoto.features.photo.PhotoProcessingPipeline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Re-reads dimensions and EXIF from the stored original
+ */
+@Component
+public class ExifExtractionJobHandler implements ProcessingJobHandler {
+
+    private final PhotoProcessingPipeline processingPipeline;
+    private final int concurrency;
+
+    public ExifExtractionJobHandler(PhotoProcessingPipeline processingPipeline,
+                                    @Value("${processing.jobs.concurrency.exif-extraction:2}") int concurrency) {
+        this.processingPipeline = processingPipeline;
+        this.concurrency = concurrency;
+    }
+
+    @Override
+    public JobType getJobType() {
+        return JobType.EXIF_EXTRACTION;
+    }
+
+    @Override
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    @Override
+    public Map<String, Object> handle(Photo photo) throws Exception {
+        processingPipeline.extractMetadata(photo);
+        return null;
+    }
+}
@@ -0,0 +1,42 @@
+package com.rapidphoto.features.processing;
+
+import com.rapidphoto.domain.photo.Photo;
+import com.rapidphoto.domain.processing.JobType;
+import com.rapidphoto.features.photo.PhotoProcessingPipeline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Computes the gallery placeholder of a photo hashed before placeholders were recorded. The
+ * hashing stage produces both from one decode of the 200px rendition, so this reruns it.
+ */
+@Component
+public class GalleryPlaceholderJobHandler implements ProcessingJobHandler {
+
+    private final PhotoProcessingPipeline processingPipeline;
+    private final int concurrency;
+
+    public GalleryPlaceholderJobHandler(PhotoProcessingPipeline processingPipeline,
+                                        @Value("${processing.jobs.concurrency.gallery-placeholder:1}") int concurrency) {
+        this.processingPipeline = processingPipeline;
+        this.concurrency = concurrency;
+    }
+
+    @Override
+    public JobType getJobType() {
+        return JobType.GALLERY_PLACEHOLDER;
+    }
+
+    @Override
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    @Override
+    public Map<String, Object> handle(Photo photo) throws Exception {
+        processingPipeline.computeFingerprint(photo);
+        return null;
+    }
+}
@@ -0,0 +1,64 @@
+package com.rapidphoto.features.processing;
+
+import com.rapidphoto.domain.photo.PhotoId;
+import com.rapidphoto.domain.photo.PhotoRepository;
+import com.rapidphoto.domain.processing.JobType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Queues PERCEPTUAL_HASH jobs for photos processed before perceptual hashes were recorded, and
+ * GALLERY_PLACEHOLDER jobs for photos hashed before placeholders were, a batch at a time and
+ * below upload work. Once every photo has both (or a job) each run is a single index scan
+ * that finds nothing.
+ */
+@Component
+@ConditionalOnProperty(name = "processing.jobs.enabled", havingValue = "true")
+public class PerceptualHashBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(PerceptualHashBackfill.class);
+
+    static final int BACKFILL_PRIORITY = 1;
+
+    private final PhotoRepository photoRepository;
+    private final ProcessingJobService processingJobService;
+    private final int batchSize;
+
+    public PerceptualHashBackfill(PhotoRepository photoRepository,
+                                  ProcessingJobService processingJobService,
+                                  @Value("${processing.backfill.perceptual-hash.batch-size:100}") int batchSize) {
+        this.photoRepository = photoRepository;
+        this.processingJobService = processingJobService;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${processing.backfill.perceptual-hash.interval-ms:60000}",
+               fixedDelayString = "${processing.backfill.perceptual-hash.interval-ms:60000}")
+    public void enqueueMissing() {
+        if (batchSize <= 0) {
+            return;
+        }
+        List<UUID> photoIds = photoRepository.findIdsMissingPerceptualHash(batchSize);
+        for (UUID photoId : photoIds) {
+            processingJobService.enqueue(new PhotoId(photoId), JobType.PERCEPTUAL_HASH, BACKFILL_PRIORITY);
+        }
+        if (!photoIds.isEmpty()) {
+            logger.info("Queued perceptual hash backfill for {} photos", photoIds.size());
+        }
+
+        List<UUID> placeholderIds = photoRepository.findIdsMissingPlaceholder(batchSize);
+        for (UUID photoId : placeholderIds) {
+            processingJobService.enqueue(new PhotoId(photoId), JobType.GALLERY_PLACEHOLDER, BACKFILL_PRIORITY);
+        }
+        if (!placeholderIds.isEmpty()) {
+            logger.info("Queued placeholder backfill for {} photos", placeholderIds.size());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.rapidphoto.features.processing;
+
+import com.rapidphoto.domain.photo.Photo;
+import com.rapidphoto.domain.processing.JobType;
+import com.rapidphoto.features.photo.PhotoProcessingPipeline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Computes the perceptual hashes and gallery placeholder of a photo processed before they
+ * were recorded
+ */
+@Component
+public class PerceptualHashJobHandler implements ProcessingJobHandler {
+
+    private final PhotoProcessingPipeline processingPipeline;
+    private final int concurrency;
+
+    public PerceptualHashJobHandler(PhotoProcessingPipeline processingPipeline,
+                                    @Value("${processing.jobs.concurrency.perceptual-hash:1}") int concurrency) {
+        this.processingPipeline = processingPipeline;
+        this.concurrency = concurrency;
+    }
+
+    @Override
+    public JobType getJobType() {
+        return JobType.PERCEPTUAL_HASH;
+    }
+
+    @Override
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    @Override
+    public Map<String, Object> handle(Photo photo) throws Exception {
+        processingPipeline.computeFingerprint(photo);
+        return null;
+    }
+}
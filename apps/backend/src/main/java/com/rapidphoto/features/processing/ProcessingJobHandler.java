@@ -0,0 +1,25 @@
+package com.rapidphoto.features.processing;
+
+import com.rapidphoto.domain.photo.Photo;
+import com.rapidphoto.domain.processing.JobType;
+
+import java.util.Map;
+
+/**
+ * Runs one type of processing job for {@link ProcessingJobWorker}. Throwing fails the
+ * attempt; the job is retried with back-off until its max_retries are spent.
+ */
+public interface ProcessingJobHandler {
+
+    JobType getJobType();
+
+    /**
+     * Jobs of this type running at once on one app instance
+     */
+    int getConcurrency();
+
+    /**
+     * @return result recorded on the job, may be null
+     */
+    Map<String, Object> handle(Photo photo) throws Exception;
+}
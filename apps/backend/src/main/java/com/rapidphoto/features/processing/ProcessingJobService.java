@@ -0,0 +1,66 @@
+package com.rapidphoto.features.processing;
+
+import com.rapidphoto.domain.photo.Photo;
+import com.rapidphoto.domain.photo.PhotoId;
+import com.rapidphoto.domain.processing.JobType;
+import com.rapidphoto.domain.processing.ProcessingJob;
+import com.rapidphoto.domain.processing.ProcessingJobRepository;
+import com.rapidphoto.features.photo.PhotoProcessingPipeline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/**
+ * Entry point for post-upload processing. With processing.jobs.enabled the work is recorded
+ * as a durable job in processing_jobs and picked up by {@link ProcessingJobWorker} on any
+ * instance, surviving restarts; otherwise it runs as an in-memory async task.
+ */
+@Service
+public class ProcessingJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessingJobService.class);
+
+    public static final int DEFAULT_PRIORITY = 5;
+
+    private final ProcessingJobRepository jobRepository;
+    private final PhotoProcessingPipeline processingPipeline;
+    private final boolean jobsEnabled;
+
+    public ProcessingJobService(ProcessingJobRepository jobRepository,
+                                PhotoProcessingPipeline processingPipeline,
+                                @Value("${processing.jobs.enabled:false}") boolean jobsEnabled) {
+        this.jobRepository = jobRepository;
+        this.processingPipeline = processingPipeline;
+        this.jobsEnabled = jobsEnabled;
+    }
+
+    /**
+     * Schedule metadata, hashing and renditions for a stored photo. Call after the photo's
+     * own transaction has committed.
+     */
+    public void submit(Photo photo) {
+        if (jobsEnabled) {
+            enqueue(photo.getId(), JobType.THUMBNAIL_GENERATION, DEFAULT_PRIORITY);
+        } else {
+            processingPipeline.process(photo);
+        }
+    }
+
+    /**
+     * @param priority higher runs first; ties run oldest first
+     */
+    public ProcessingJob enqueue(PhotoId photoId, JobType jobType, int priority) {
+        ProcessingJob job = new ProcessingJob(UUID.randomUUID(), photoId, jobType);
+        job.setPriority(priority);
+        job = jobRepository.save(job);
+        logger.debug("Enqueued {} job {} for photo: {}", jobType, job.getId(), photoId.getValue());
+        return job;
+    }
+
+    public boolean isJobsEnabled() {
+        return jobsEnabled;
+    }
+}
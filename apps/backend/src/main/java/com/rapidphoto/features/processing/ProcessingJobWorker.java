@@ -0,0 +1,265 @@
+package com.rapidphoto.features.processing;
+
+import com.rapidphoto.domain.photo.Photo;
+import com.rapidphoto.domain.photo.PhotoRepository;
+import com.rapidphoto.domain.processing.JobStatus;
+import com.rapidphoto.domain.processing.JobType;
+import com.rapidphoto.domain.processing.ProcessingJob;
+import com.rapidphoto.domain.processing.ProcessingJobRepository;
+import com.rapidphoto.infrastructure.scheduling.WorkTenant;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Runs durable processing jobs from the processing_jobs table. Each poll claims, per job
+ * type, as many PENDING rows as that type has free slots (SELECT ... FOR UPDATE SKIP LOCKED,
+ * highest priority then oldest first) and marks them RUNNING under a lease in the same
+ * short transaction. Any number of instances can poll the same table: a row is claimed by
+ * exactly one of them, with nothing but Postgres in between.
+ *
+ * Claimed jobs run on the processing executor under the photo owner's fair share. Running
+ * leases are renewed by a heartbeat; a job whose lease runs out (its instance died) is
+ * requeued by whichever instance notices first. Failures retry with exponential back-off
+ * until max_retries are spent.
+ */
+@Component
+@ConditionalOnProperty(name = "processing.jobs.enabled", havingValue = "true")
+public class ProcessingJobWorker implements MeterBinder, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessingJobWorker.class);
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final ProcessingJobRepository jobRepository;
+    private final PhotoRepository photoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor executor;
+    private final long leaseMillis;
+    private final long retryBackoffMillis;
+    private final long maxRetryBackoffMillis;
+    private final String workerId;
+
+    private final Map<JobType, ProcessingJobHandler> handlers = new EnumMap<>(JobType.class);
+    private final Map<JobType, Semaphore> slots = new EnumMap<>(JobType.class);
+    private final Map<JobType, AtomicBoolean> backlog = new EnumMap<>(JobType.class);
+
+    // Set while a worker thread dispatches, so a job run by the caller (full executor) does not claim recursively
+    private final ThreadLocal<Boolean> dispatching = ThreadLocal.withInitial(() -> false);
+    private volatile boolean stopping;
+
+    public ProcessingJobWorker(List<ProcessingJobHandler> handlers,
+                               ProcessingJobRepository jobRepository,
+                               PhotoRepository photoRepository,
+                               TransactionTemplate transactionTemplate,
+                               @Qualifier("processingExecutor") Executor executor,
+                               @Value("${processing.jobs.lease-ms:300000}") long leaseMillis,
+                               @Value("${processing.jobs.retry-backoff-ms:30000}") long retryBackoffMillis,
+                               @Value("${processing.jobs.max-retry-backoff-ms:1800000}") long maxRetryBackoffMillis) {
+        this.jobRepository = jobRepository;
+        this.photoRepository = photoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.leaseMillis = leaseMillis;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.maxRetryBackoffMillis = maxRetryBackoffMillis;
+        this.workerId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+        for (ProcessingJobHandler handler : handlers) {
+            if (handler.getConcurrency() <= 0) {
+                continue;
+            }
+            this.handlers.put(handler.getJobType(), handler);
+            this.slots.put(handler.getJobType(), new Semaphore(handler.getConcurrency()));
+            this.backlog.put(handler.getJobType(), new AtomicBoolean());
+        }
+        logger.info("Processing job worker {} started for {}", workerId, this.handlers.keySet());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("processing.jobs.pending", jobRepository, repository -> repository.countByStatus(JobStatus.PENDING))
+            .description("Processing jobs waiting to be claimed, across all instances")
+            .register(registry);
+        for (Map.Entry<JobType, ProcessingJobHandler> entry : handlers.entrySet()) {
+            Semaphore free = slots.get(entry.getKey());
+            int limit = entry.getValue().getConcurrency();
+            Gauge.builder("processing.jobs.running", free, s -> limit - s.availablePermits())
+                .description("Processing jobs running on this instance")
+                .tag("type", entry.getKey().name())
+                .register(registry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${processing.jobs.poll-interval-ms:1000}")
+    public void poll() {
+        for (JobType jobType : handlers.keySet()) {
+            claimAndDispatch(jobType);
+        }
+    }
+
+    /**
+     * Heartbeat for this instance's leases, and recovery of jobs left behind by dead ones
+     */
+    @Scheduled(fixedDelayString = "${processing.jobs.heartbeat-interval-ms:30000}")
+    public void heartbeat() {
+        LocalDateTime now = LocalDateTime.now();
+        jobRepository.renewLeases(workerId, now.plus(Duration.ofMillis(leaseMillis)));
+        int requeued = jobRepository.requeueExpired(now);
+        int failed = jobRepository.failExpired(now);
+        if (requeued > 0 || failed > 0) {
+            logger.warn("Recovered jobs with expired leases: requeued={}, failed={}", requeued, failed);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        // Stop claiming; jobs still running finish or are requeued once their lease expires
+        stopping = true;
+    }
+
+    private void claimAndDispatch(JobType jobType) {
+        if (stopping) {
+            return;
+        }
+        Semaphore free = slots.get(jobType);
+        int limit = free.drainPermits();
+        if (limit == 0) {
+            return;
+        }
+
+        List<ProcessingJob> claimed;
+        try {
+            claimed = claim(jobType, limit);
+        } catch (RuntimeException e) {
+            free.release(limit);
+            logger.error("Failed to claim {} jobs", jobType, e);
+            return;
+        }
+        free.release(limit - claimed.size());
+        // A full batch means more may be waiting: claim again as soon as a slot frees up
+        backlog.get(jobType).set(claimed.size() == limit);
+
+        for (ProcessingJob job : claimed) {
+            dispatch(job);
+        }
+    }
+
+    private List<ProcessingJob> claim(JobType jobType, int limit) {
+        List<ProcessingJob> claimed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<ProcessingJob> jobs = jobRepository.lockRunnable(jobType.name(), now, limit);
+            LocalDateTime leaseExpiresAt = now.plus(Duration.ofMillis(leaseMillis));
+            for (ProcessingJob job : jobs) {
+                job.claim(workerId, leaseExpiresAt);
+            }
+            return jobRepository.saveAll(jobs);
+        });
+        return claimed != null ? claimed : Collections.emptyList();
+    }
+
+    private void dispatch(ProcessingJob job) {
+        Photo photo = photoRepository.findById(job.getPhotoId().getValue()).orElse(null);
+        Runnable task = () -> execute(job, photo);
+        boolean nested = dispatching.get();
+        dispatching.set(true);
+        try {
+            if (photo != null) {
+                // Queue under the owner's fair share, sized by the original
+                WorkTenant.run(photo.getUserId().getValue(), photo.getFileSizeBytes(), () -> executor.execute(task));
+            } else {
+                executor.execute(task);
+            }
+        } catch (RejectedExecutionException e) {
+            logger.warn("Processing executor rejected job {} - returning it to the queue", job.getId());
+            record(job, ProcessingJob::unclaim);
+            slots.get(job.getJobType()).release();
+        } finally {
+            dispatching.set(nested);
+        }
+    }
+
+    private void execute(ProcessingJob job, Photo photo) {
+        JobType jobType = job.getJobType();
+        try {
+            if (photo == null) {
+                record(job, ProcessingJob::cancel);
+                return;
+            }
+            Map<String, Object> result = handlers.get(jobType).handle(photo);
+            record(job, claimed -> claimed.complete(result));
+            logger.debug("Completed {} job {} for photo: {}", jobType, job.getId(), job.getPhotoId().getValue());
+        } catch (Exception e) {
+            logger.warn("{} job {} failed (attempt {} of {}): {}", jobType, job.getId(),
+                job.getRetryCount() + 1, job.getMaxRetries() + 1, e.getMessage());
+            LocalDateTime retryAt = LocalDateTime.now().plus(Duration.ofMillis(backoffMillis(job.getRetryCount())));
+            record(job, claimed -> claimed.failAttempt(truncate(e.toString()), retryAt));
+        } finally {
+            slots.get(jobType).release();
+            if (backlog.get(jobType).get() && !dispatching.get()) {
+                claimAndDispatch(jobType);
+            }
+        }
+    }
+
+    /**
+     * Apply an outcome to the job if this worker still holds it - after a lease expiry
+     * another instance may have requeued or taken it
+     */
+    private void record(ProcessingJob job, Consumer<ProcessingJob> outcome) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                jobRepository.findById(job.getId()).ifPresent(current -> {
+                    if (!current.isClaimedBy(workerId)) {
+                        logger.warn("Lost lease on job {} before recording its outcome", job.getId());
+                        return;
+                    }
+                    outcome.accept(current);
+                    jobRepository.save(current);
+                }));
+        } catch (RuntimeException e) {
+            // The lease expires and the job is requeued
+            logger.error("Failed to record outcome of job {}", job.getId(), e);
+        }
+    }
+
+    private long backoffMillis(int retryCount) {
+        long backoff = retryBackoffMillis << Math.min(retryCount, 20);
+        return Math.min(backoff, maxRetryBackoffMillis);
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "worker";
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.rapidphoto.features.processing;
+
+import com.rapidphoto.domain.photo.Photo;
+import com.rapidphoto.domain.processing.JobType;
+import com.rapidphoto.features.photo.PhotoProcessingPipeline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Full post-upload pipeline: missing header, content hash and renditions from one fetch
+ */
+@Component
+public class ThumbnailGenerationJobHandler implements ProcessingJobHandler {
+
+    private final PhotoProcessingPipeline processingPipeline;
+    private final int concurrency;
+
+    public ThumbnailGenerationJobHandler(PhotoProcessingPipeline processingPipeline,
+                                         @Value("${processing.jobs.concurrency.thumbnail-generation:4}") int concurrency) {
+        this.processingPipeline = processingPipeline;
+        this.concurrency = concurrency;
+    }
+
+    @Override
+    public JobType getJobType() {
+        return JobType.THUMBNAIL_GENERATION;
+    }
+
+    @Override
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    @Override
+    public Map<String, Object> handle(Photo photo) throws Exception {
+        processingPipeline.run(photo);
+        return null;
+    }
+}
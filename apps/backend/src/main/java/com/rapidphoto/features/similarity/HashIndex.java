@@ -0,0 +1,368 @@
+package com.rapidphoto.features.similarity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Multi-index hash over 64-bit perceptual hashes, held in primitive arrays. Each hash is split
+ * into four 16-bit bands, and per band the hashes are kept sorted by that band's value with an
+ * offset table over all 2^16 values. Two hashes within distance d agree to within d/4 bits on
+ * at least one band, so a search reads only the runs of band values within that radius of the
+ * query's bands - each run contiguous - and checks full distances there.
+ *
+ * Photos added since the sorted runs were built sit in a short tail that every search scans;
+ * the runs are rebuilt once the tail (or the removed entries) grow past a fraction of the index.
+ * Small libraries have no runs at all: scanning a few thousand hashes is as fast as probing.
+ *
+ * Photo ids map to their live entry through an open-addressing table of entry numbers (linear
+ * probing, keys compared against the id arrays), so moving or removing a photo is O(1).
+ *
+ * Not thread-safe: {@link SimilarityIndex} guards each instance with a read/write lock.
+ */
+final class HashIndex {
+
+    private static final int BANDS = 4;
+    private static final int BAND_BITS = 16;
+    private static final int BAND_VALUES = 1 << BAND_BITS;
+    private static final int BAND_MASK = BAND_VALUES - 1;
+    private static final int MIN_CAPACITY = 16;
+    // Tail entries scanned linearly before the runs are (re)built: at least this many, else 1/16 of the index
+    private static final int MIN_TAIL = 4096;
+
+    // Band values within radius r of a given one: sum of C(16, k) for k <= r
+    private static final int[] BALL_SIZE = new int[BAND_BITS + 1];
+
+    static {
+        long binomial = 1;
+        int ball = 0;
+        for (int k = 0; k <= BAND_BITS; k++) {
+            ball += (int) binomial;
+            BALL_SIZE[k] = ball;
+            binomial = binomial * (BAND_BITS - k) / (k + 1);
+        }
+    }
+
+    // Entries in insertion order
+    private long[] hashes;
+    private long[] idHigh;
+    private long[] idLow;
+    private long[] removed;
+    private int size;
+    private int removedCount;
+
+    // Photo id -> live entry + 1 (0 = empty slot), at most half full
+    private int[] slots;
+    private int slotMask;
+
+    // Per band, entries [0, sortedSize) ordered by band value: run of value v is [offsets[v], offsets[v + 1])
+    private final int[][] offsets = new int[BANDS][];
+    private final long[][] sortedHashes = new long[BANDS][];
+    private final int[][] sortedEntries = new int[BANDS][];
+    private int sortedSize;
+
+    HashIndex(int expectedSize) {
+        int capacity = Math.max(MIN_CAPACITY, expectedSize);
+        hashes = new long[capacity];
+        idHigh = new long[capacity];
+        idLow = new long[capacity];
+        removed = new long[(capacity + 63) >>> 6];
+        slots = new int[tableSizeFor(capacity)];
+        slotMask = slots.length - 1;
+    }
+
+    /**
+     * @return photos in the index
+     */
+    int size() {
+        return size - removedCount;
+    }
+
+    /**
+     * Add a photo, or move it if it is already indexed under another hash
+     */
+    void put(UUID photoId, long hash) {
+        int existing = indexOf(photoId);
+        if (existing >= 0) {
+            if (hashes[existing] == hash) {
+                return;
+            }
+            markRemoved(existing);
+        }
+        append(photoId, hash);
+        if (removedCount > MIN_CAPACITY && removedCount > size / 2) {
+            compact();
+        } else if (size - sortedSize > Math.max(MIN_TAIL, sortedSize / 16)) {
+            sort();
+        }
+    }
+
+    /**
+     * Bulk load: add a photo known not to be indexed yet, without looking for an existing
+     * entry. Call {@link #sort()} once done.
+     */
+    void append(UUID photoId, long hash) {
+        if (size == hashes.length) {
+            int capacity = hashes.length * 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            idHigh = Arrays.copyOf(idHigh, capacity);
+            idLow = Arrays.copyOf(idLow, capacity);
+            removed = Arrays.copyOf(removed, (capacity + 63) >>> 6);
+        }
+        hashes[size] = hash;
+        idHigh[size] = photoId.getMostSignificantBits();
+        idLow[size] = photoId.getLeastSignificantBits();
+        size++;
+        if (size() * 2 > slots.length) {
+            rebuildSlots(tableSizeFor(size()));
+        } else {
+            mapEntry(size - 1);
+        }
+    }
+
+    boolean remove(UUID photoId) {
+        int entry = indexOf(photoId);
+        if (entry < 0) {
+            return false;
+        }
+        markRemoved(entry);
+        if (removedCount > MIN_CAPACITY && removedCount > size / 2) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * @return up to {@code limit} photos within {@code maxDistance} bits of the hash, closest first
+     */
+    List<SimilarPhoto> search(long hash, int maxDistance, int limit) {
+        if (limit <= 0 || size() == 0) {
+            return List.of();
+        }
+        int radius = Math.min(maxDistance / BANDS, BAND_BITS);
+        Candidates candidates = new Candidates();
+        // Probing every band value in the radius costs more than a scan once the radius is wide
+        if ((long) BANDS * BALL_SIZE[radius] >= sortedSize) {
+            scan(hash, maxDistance, 0, candidates);
+        } else {
+            for (int band = 0; band < BANDS; band++) {
+                probe(hash, band, radius, maxDistance, candidates);
+            }
+            scan(hash, maxDistance, sortedSize, candidates);
+        }
+        return candidates.closest(limit);
+    }
+
+    private void probe(long hash, int band, int radius, int maxDistance, Candidates candidates) {
+        int queryBand = band(hash, band);
+        int[] bandOffsets = offsets[band];
+        long[] bandHashes = sortedHashes[band];
+        int[] bandEntries = sortedEntries[band];
+        for (int flips = 0; flips <= radius; flips++) {
+            // Every 16-bit mask with exactly this many bits set (Gosper's hack)
+            int mask = (1 << flips) - 1;
+            while (mask <= BAND_MASK) {
+                int value = queryBand ^ mask;
+                for (int i = bandOffsets[value], end = bandOffsets[value + 1]; i < end; i++) {
+                    long candidate = bandHashes[i];
+                    int distance = Long.bitCount(hash ^ candidate);
+                    if (distance <= maxDistance && !foundInEarlierBand(hash, candidate, band, radius)
+                            && !isRemoved(bandEntries[i])) {
+                        candidates.add(bandEntries[i], distance);
+                    }
+                }
+                if (mask == 0) {
+                    break;
+                }
+                int lowest = mask & -mask;
+                int ripple = mask + lowest;
+                mask = (((ripple ^ mask) >>> 2) / lowest) | ripple;
+            }
+        }
+    }
+
+    private void scan(long hash, int maxDistance, int from, Candidates candidates) {
+        for (int entry = from; entry < size; entry++) {
+            int distance = Long.bitCount(hash ^ hashes[entry]);
+            if (distance <= maxDistance && !isRemoved(entry)) {
+                candidates.add(entry, distance);
+            }
+        }
+    }
+
+    /**
+     * A candidate close enough on an earlier band was already visited while probing that band
+     */
+    private static boolean foundInEarlierBand(long hash, long candidate, int band, int radius) {
+        for (int earlier = 0; earlier < band; earlier++) {
+            if (Integer.bitCount(band(hash, earlier) ^ band(candidate, earlier)) <= radius) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int band(long hash, int band) {
+        return (int) (hash >>> (band * BAND_BITS)) & BAND_MASK;
+    }
+
+    private int indexOf(UUID photoId) {
+        long high = photoId.getMostSignificantBits();
+        long low = photoId.getLeastSignificantBits();
+        for (int slot = slotHash(high, low) & slotMask; ; slot = (slot + 1) & slotMask) {
+            int entry = slots[slot] - 1;
+            if (entry < 0) {
+                return -1;
+            }
+            if (idLow[entry] == low && idHigh[entry] == high) {
+                return entry;
+            }
+        }
+    }
+
+    private boolean isRemoved(int entry) {
+        return (removed[entry >>> 6] & (1L << entry)) != 0;
+    }
+
+    private void markRemoved(int entry) {
+        removed[entry >>> 6] |= 1L << entry;
+        removedCount++;
+        unmapEntry(entry);
+    }
+
+    private void mapEntry(int entry) {
+        int slot = slotHash(idHigh[entry], idLow[entry]) & slotMask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & slotMask;
+        }
+        slots[slot] = entry + 1;
+    }
+
+    /**
+     * Backward-shift deletion: later slots of the probe cluster move up into the hole,
+     * so lookups never need tombstones
+     */
+    private void unmapEntry(int entry) {
+        int hole = slotHash(idHigh[entry], idLow[entry]) & slotMask;
+        while (slots[hole] != entry + 1) {
+            hole = (hole + 1) & slotMask;
+        }
+        for (int next = (hole + 1) & slotMask; slots[next] != 0; next = (next + 1) & slotMask) {
+            int moved = slots[next] - 1;
+            int home = slotHash(idHigh[moved], idLow[moved]) & slotMask;
+            // Movable if the hole lies on its probe path, i.e. between its home slot and where it sits
+            if (((next - home) & slotMask) >= ((next - hole) & slotMask)) {
+                slots[hole] = slots[next];
+                hole = next;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    private void rebuildSlots(int tableSize) {
+        slots = new int[tableSize];
+        slotMask = tableSize - 1;
+        for (int entry = 0; entry < size; entry++) {
+            if (!isRemoved(entry)) {
+                mapEntry(entry);
+            }
+        }
+    }
+
+    /**
+     * Power of two holding {@code entries} at most half full
+     */
+    private static int tableSizeFor(int entries) {
+        return Integer.highestOneBit(Math.max(MIN_CAPACITY, entries) * 2 - 1) << 1;
+    }
+
+    private static int slotHash(long high, long low) {
+        long h = high * 0x9E3779B97F4A7C15L + low;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * Counting sort of all entries into per-band runs
+     */
+    void sort() {
+        if (size < MIN_TAIL) {
+            Arrays.fill(offsets, null);
+            Arrays.fill(sortedHashes, null);
+            Arrays.fill(sortedEntries, null);
+            sortedSize = 0;
+            return;
+        }
+        for (int band = 0; band < BANDS; band++) {
+            int[] bandOffsets = new int[BAND_VALUES + 1];
+            for (int entry = 0; entry < size; entry++) {
+                bandOffsets[band(hashes[entry], band) + 1]++;
+            }
+            for (int value = 0; value < BAND_VALUES; value++) {
+                bandOffsets[value + 1] += bandOffsets[value];
+            }
+            long[] bandHashes = new long[size];
+            int[] bandEntries = new int[size];
+            int[] fill = Arrays.copyOf(bandOffsets, BAND_VALUES);
+            for (int entry = 0; entry < size; entry++) {
+                int position = fill[band(hashes[entry], band)]++;
+                bandHashes[position] = hashes[entry];
+                bandEntries[position] = entry;
+            }
+            offsets[band] = bandOffsets;
+            sortedHashes[band] = bandHashes;
+            sortedEntries[band] = bandEntries;
+        }
+        sortedSize = size;
+    }
+
+    /**
+     * Drop removed entries and re-sort what is left
+     */
+    private void compact() {
+        int live = 0;
+        for (int entry = 0; entry < size; entry++) {
+            if (isRemoved(entry)) {
+                continue;
+            }
+            hashes[live] = hashes[entry];
+            idHigh[live] = idHigh[entry];
+            idLow[live] = idLow[entry];
+            live++;
+        }
+        size = live;
+        removedCount = 0;
+        Arrays.fill(removed, 0);
+        rebuildSlots(tableSizeFor(live));
+        sort();
+    }
+
+    /**
+     * Matches as distance and entry packed into one long, so ordering them is a primitive sort
+     */
+    private final class Candidates {
+        private long[] packed = new long[16];
+        private int count;
+
+        void add(int entry, int distance) {
+            if (count == packed.length) {
+                packed = Arrays.copyOf(packed, count * 2);
+            }
+            packed[count++] = ((long) distance << 32) | entry;
+        }
+
+        List<SimilarPhoto> closest(int limit) {
+            Arrays.sort(packed, 0, count);
+            int n = Math.min(limit, count);
+            List<SimilarPhoto> matches = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                int entry = (int) packed[i];
+                matches.add(new SimilarPhoto(new UUID(idHigh[entry], idLow[entry]), (int) (packed[i] >>> 32)));
+            }
+            return matches;
+        }
+    }
+}
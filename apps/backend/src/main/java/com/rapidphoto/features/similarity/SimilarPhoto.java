@@ -0,0 +1,9 @@
+package com.rapidphoto.features.similarity;
+
+import java.util.UUID;
+
+/**
+ * A photo whose perceptual hash is {@code distance} bits from the one searched for
+ */
+public record SimilarPhoto(UUID photoId, int distance) {
+}
@@ -0,0 +1,91 @@
+package com.rapidphoto.features.similarity;
+
+import com.rapidphoto.domain.photo.DuplicatePhoto;
+import com.rapidphoto.domain.photo.DuplicatePhotoRepository;
+import com.rapidphoto.domain.photo.Photo;
+import com.rapidphoto.domain.photo.PhotoStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Near-duplicate lookups within a user's library, and upkeep of the index and the
+ * duplicate_photos table as photos are hashed and deleted
+ */
+@Service
+public class SimilarPhotoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimilarPhotoService.class);
+
+    private static final int HASH_BITS = 64;
+
+    private final SimilarityIndex similarityIndex;
+    private final DuplicatePhotoRepository duplicatePhotoRepository;
+    private final int duplicateMaxDistance;
+    private final int maxDuplicatesPerPhoto;
+
+    public SimilarPhotoService(SimilarityIndex similarityIndex,
+                               DuplicatePhotoRepository duplicatePhotoRepository,
+                               @Value("${similarity.duplicate.max-distance:6}") int duplicateMaxDistance,
+                               @Value("${similarity.duplicate.max-per-photo:20}") int maxDuplicatesPerPhoto) {
+        this.similarityIndex = similarityIndex;
+        this.duplicatePhotoRepository = duplicatePhotoRepository;
+        this.duplicateMaxDistance = duplicateMaxDistance;
+        this.maxDuplicatesPerPhoto = maxDuplicatesPerPhoto;
+    }
+
+    /**
+     * Other photos in the owner's library within {@code maxDistance} bits, closest first
+     */
+    public List<SimilarPhoto> findSimilar(Photo photo, int maxDistance, int limit) {
+        if (photo.getPerceptualHash() == null) {
+            return List.of();
+        }
+        UUID photoId = photo.getId().getValue();
+        // One more, in case the photo finds itself
+        return similarityIndex.search(photo.getUserId().getValue(), photo.getPerceptualHash(), maxDistance, limit + 1)
+            .stream()
+            .filter(match -> !match.photoId().equals(photoId))
+            .limit(limit)
+            .toList();
+    }
+
+    /**
+     * A photo's perceptual hash was committed: index it and record the photos it duplicates
+     */
+    public void onHashed(Photo photo) {
+        if (photo.getPerceptualHash() == null || photo.getStatus() != PhotoStatus.COMPLETED) {
+            return;
+        }
+        UUID userId = photo.getUserId().getValue();
+        UUID photoId = photo.getId().getValue();
+        similarityIndex.put(userId, photoId, photo.getPerceptualHash());
+
+        int recorded = 0;
+        for (SimilarPhoto match : findSimilar(photo, duplicateMaxDistance, maxDuplicatesPerPhoto)) {
+            recorded += duplicatePhotoRepository.insertIfAbsent(photoId, match.photoId(),
+                similarityScore(match.distance()), match.distance(), DuplicatePhoto.METHOD_PERCEPTUAL_HASH);
+        }
+        if (recorded > 0) {
+            logger.info("Photo {} is a near-duplicate of {} other photos", photoId, recorded);
+        }
+    }
+
+    public void onDeleted(Photo photo) {
+        similarityIndex.remove(photo.getUserId().getValue(), photo.getId().getValue());
+    }
+
+    /**
+     * 1 for identical hashes, falling linearly to 0 at all 64 bits different
+     */
+    static BigDecimal similarityScore(int distance) {
+        return BigDecimal.valueOf(HASH_BITS - distance)
+            .divide(BigDecimal.valueOf(HASH_BITS), 4, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,153 @@
+package com.rapidphoto.features.similarity;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rapidphoto.domain.photo.PhotoRepository;
+import com.rapidphoto.domain.photo.PhotoStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-user near-duplicate index over perceptual hashes. A user's {@link HashIndex} is loaded
+ * from the photos table on first use - ids and hashes only - and then kept current as photos
+ * are hashed or deleted, so a lookup never touches the database. Idle libraries are evicted
+ * and reload on their next lookup.
+ *
+ * Updates only apply to libraries already in memory: one that is not will read them from the
+ * database when it loads, as long as they are reported after their transaction commits.
+ */
+@Component
+public class SimilarityIndex implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimilarityIndex.class);
+
+    private final PhotoRepository photoRepository;
+    private final Cache<UUID, Library> libraries;
+    private Timer searchTimer;
+
+    public SimilarityIndex(PhotoRepository photoRepository,
+                           @Value("${similarity.index.max-photos:2000000}") long maxPhotos,
+                           @Value("${similarity.index.idle-expiry-minutes:30}") long idleExpiryMinutes) {
+        this.photoRepository = photoRepository;
+        this.libraries = Caffeine.newBuilder()
+            .maximumWeight(maxPhotos)
+            .weigher((UUID userId, Library library) -> Math.max(1, library.size()))
+            .expireAfterAccess(Duration.ofMinutes(idleExpiryMinutes))
+            .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("similarity.index.libraries", libraries, cache -> cache.estimatedSize())
+            .description("User libraries held in the similarity index")
+            .register(registry);
+        Gauge.builder("similarity.index.photos", libraries,
+                cache -> cache.asMap().values().stream().mapToLong(Library::size).sum())
+            .description("Perceptual hashes held in the similarity index")
+            .register(registry);
+        searchTimer = Timer.builder("similarity.index.search")
+            .description("Near-duplicate lookups, excluding library loads")
+            .register(registry);
+    }
+
+    /**
+     * @return up to {@code limit} of the user's photos within {@code maxDistance} bits of the
+     *         hash, closest first
+     */
+    public List<SimilarPhoto> search(UUID userId, long hash, int maxDistance, int limit) {
+        Library library = load(userId);
+        library.lock.readLock().lock();
+        try {
+            long start = System.nanoTime();
+            List<SimilarPhoto> matches = library.index.search(hash, maxDistance, limit);
+            if (searchTimer != null) {
+                searchTimer.record(Duration.ofNanos(System.nanoTime() - start));
+            }
+            return matches;
+        } finally {
+            library.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A photo was hashed (or re-hashed). Call after the hash is committed.
+     */
+    public void put(UUID userId, UUID photoId, long hash) {
+        Library library = libraries.getIfPresent(userId);
+        if (library == null) {
+            return;
+        }
+        library.lock.writeLock().lock();
+        try {
+            if (library.loaded) {
+                library.index.put(photoId, hash);
+            }
+        } finally {
+            library.lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID userId, UUID photoId) {
+        Library library = libraries.getIfPresent(userId);
+        if (library == null) {
+            return;
+        }
+        library.lock.writeLock().lock();
+        try {
+            if (library.loaded) {
+                library.index.remove(photoId);
+            }
+        } finally {
+            library.lock.writeLock().unlock();
+        }
+    }
+
+    private Library load(UUID userId) {
+        Library library = libraries.get(userId, id -> new Library());
+        if (library.loaded) {
+            return library;
+        }
+        library.lock.writeLock().lock();
+        try {
+            if (!library.loaded) {
+                long start = System.nanoTime();
+                List<Object[]> rows = photoRepository.findPerceptualHashes(userId, PhotoStatus.COMPLETED);
+                HashIndex index = new HashIndex(rows.size());
+                for (Object[] row : rows) {
+                    index.append((UUID) row[0], (Long) row[1]);
+                }
+                index.sort();
+                library.index = index;
+                library.loaded = true;
+                logger.debug("Loaded similarity index for user {}: {} photos in {} ms",
+                    userId, rows.size(), (System.nanoTime() - start) / 1_000_000);
+            }
+        } finally {
+            library.lock.writeLock().unlock();
+        }
+        // Re-insert so the cache weighs the loaded library
+        libraries.asMap().replace(userId, library, library);
+        return library;
+    }
+
+    private static final class Library {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile boolean loaded;
+        private volatile HashIndex index = new HashIndex(0);
+
+        int size() {
+            return index.size();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.rapidphoto.features.upload;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
 
 public class PresignedUploadRequest {
@@ -15,6 +16,10 @@ public class PresignedUploadRequest {
     @Positive(message = "File size must be positive")
     private Long fileSizeBytes;
 
+    // Optional: lets the server skip the transfer if it already has this content
+    @Pattern(regexp = "^[0-9a-fA-F]{64}$", message = "SHA-256 checksum must be 64 hex characters")
+    private String checksumSha256;
+
     public PresignedUploadRequest() {}
 
     public PresignedUploadRequest(String originalFileName, String mimeType, Long fileSizeBytes) {
@@ -46,5 +51,12 @@ public class PresignedUploadRequest {
     public void setFileSizeBytes(Long fileSizeBytes) {
         this.fileSizeBytes = fileSizeBytes;
     }
-}
 
+    public String getChecksumSha256() {
+        return checksumSha256;
+    }
+
+    public void setChecksumSha256(String checksumSha256) {
+        this.checksumSha256 = checksumSha256;
+    }
+}
@@ -7,14 +7,20 @@ public class PresignedUploadResponse {
     private String uploadUrl;
     private String storagePath;
     private String message;
+    private String status;
 
     public PresignedUploadResponse() {}
 
     public PresignedUploadResponse(UUID photoId, String uploadUrl, String storagePath, String message) {
+        this(photoId, uploadUrl, storagePath, message, "PENDING_UPLOAD");
+    }
+
+    public PresignedUploadResponse(UUID photoId, String uploadUrl, String storagePath, String message, String status) {
         this.photoId = photoId;
         this.uploadUrl = uploadUrl;
         this.storagePath = storagePath;
         this.message = message;
+        this.status = status;
     }
 
     public UUID getPhotoId() {
@@ -48,5 +54,12 @@ public class PresignedUploadResponse {
     public void setMessage(String message) {
         this.message = message;
     }
-}
 
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,151 @@
+package com.rapidphoto.features.upload;
+
+import com.rapidphoto.features.upload.adaptive.ThroughputEstimator;
+import com.rapidphoto.features.upload.chunk.ChunkSession;
+import com.rapidphoto.features.upload.chunk.ChunkSessionRegistry;
+import com.rapidphoto.features.upload.chunk.ChunkUploadRequest;
+import com.rapidphoto.features.upload.chunk.ChunkUploadResponse;
+import com.rapidphoto.features.upload.chunk.ChunkUploadService;
+import com.rapidphoto.infrastructure.web.ClientIpResolver;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URLConnection;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Upload endpoints that take the file as a raw application/octet-stream body.
+ * The body is streamed from the servlet input stream straight into storage, skipping
+ * multipart parsing and the temp file Tomcat spools large multipart parts to.
+ * File metadata travels in headers.
+ */
+@RestController
+@RequestMapping("/api/upload")
+@CrossOrigin(origins = "http://localhost:3000")
+public class RawUploadController {
+
+    private static final Logger logger = LoggerFactory.getLogger(RawUploadController.class);
+
+    private final UploadService uploadService;
+    private final ChunkUploadService chunkUploadService;
+    private final ChunkSessionRegistry sessionRegistry;
+
+    public RawUploadController(UploadService uploadService,
+                               ChunkUploadService chunkUploadService,
+                               ChunkSessionRegistry sessionRegistry) {
+        this.uploadService = uploadService;
+        this.chunkUploadService = chunkUploadService;
+        this.sessionRegistry = sessionRegistry;
+    }
+
+    /**
+     * Single-shot upload: body is the file, X-File-Name carries the (URL-encoded) original name
+     */
+    @PutMapping(value = "/raw", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<UploadPhotoResponse> uploadRaw(
+            @RequestHeader("X-File-Name") String encodedFileName,
+            @RequestHeader(value = "X-Mime-Type", required = false) String mimeType,
+            HttpServletRequest request) {
+
+        // Get authenticated user ID
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        UUID userId = UUID.fromString(authentication.getName());
+
+        long contentLength = request.getContentLengthLong();
+        if (contentLength < 0) {
+            return ResponseEntity.status(HttpStatus.LENGTH_REQUIRED).body(
+                new UploadPhotoResponse(null, null, "ERROR", "Content-Length header is required")
+            );
+        }
+
+        String fileName = URLDecoder.decode(encodedFileName, StandardCharsets.UTF_8);
+        if (mimeType == null) {
+            mimeType = URLConnection.guessContentTypeFromName(fileName);
+            if (mimeType == null) {
+                mimeType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+            }
+        }
+
+        logger.info("Raw upload request received: userId={}, fileName={}, size={}",
+            userId, fileName, contentLength);
+
+        try {
+            UploadPhotoResponse response = uploadService.uploadPhoto(
+                userId, request.getInputStream(), fileName, mimeType, contentLength);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid raw upload request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(
+                new UploadPhotoResponse(null, null, "ERROR", e.getMessage())
+            );
+        } catch (IOException e) {
+            logger.error("Raw upload failed", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                new UploadPhotoResponse(null, null, "ERROR", "Upload failed: " + e.getMessage())
+            );
+        }
+    }
+
+    /**
+     * Chunk upload: body is the chunk, X-Total-Chunks announces the chunk count and
+     * the optional X-Chunk-Checksum (CRC32C, hex) is verified against the stored bytes
+     */
+    @PutMapping(value = "/{photoId}/chunk/{chunkNumber}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<ChunkUploadResponse> uploadChunk(
+            @PathVariable UUID photoId,
+            @PathVariable Integer chunkNumber,
+            @RequestHeader("X-Total-Chunks") Integer totalChunks,
+            @RequestHeader(value = "X-Chunk-Checksum", required = false) String checksum,
+            HttpServletRequest request) throws IOException {
+
+        // Get authenticated user ID
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        UUID userId = UUID.fromString(authentication.getName());
+
+        long contentLength = request.getContentLengthLong();
+        if (contentLength < 0) {
+            return ResponseEntity.status(HttpStatus.LENGTH_REQUIRED).build();
+        }
+
+        // Verify photo ownership (owner is cached on the chunk session)
+        ChunkSession session = sessionRegistry.getOrLoad(photoId, totalChunks);
+
+        if (!session.getUserId().equals(userId)) {
+            logger.warn("Unauthorized chunk upload attempt: userId={}, photoId={}", userId, photoId);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        logger.info("Raw chunk upload: photoId={}, chunk={}/{}, size={}",
+            photoId, chunkNumber + 1, totalChunks, contentLength);
+
+        ChunkUploadRequest chunkRequest = new ChunkUploadRequest();
+        chunkRequest.setPhotoId(photoId);
+        chunkRequest.setChunkNumber(chunkNumber);
+        chunkRequest.setTotalChunks(totalChunks);
+        chunkRequest.setChunkSize(contentLength);
+        chunkRequest.setChecksum(checksum);
+        chunkRequest.setClientKey(ThroughputEstimator.clientKey(userId, ClientIpResolver.resolve(request)));
+
+        ChunkUploadResponse response = chunkUploadService.uploadChunk(
+            chunkRequest, request.getInputStream(), MediaType.APPLICATION_OCTET_STREAM_VALUE, contentLength);
+        return ResponseEntity.ok(response);
+    }
+}
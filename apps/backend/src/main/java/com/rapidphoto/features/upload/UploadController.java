@@ -1,6 +1,9 @@
 package com.rapidphoto.features.upload;
 
+import com.rapidphoto.features.upload.adaptive.ThroughputEstimator;
 import com.rapidphoto.features.upload.progress.ProgressTracker;
+import com.rapidphoto.infrastructure.web.ClientIpResolver;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -69,7 +72,8 @@ public class UploadController {
      */
     @PostMapping("/initialize")
     public ResponseEntity<UploadPhotoResponse> initializeUpload(
-            @Valid @RequestBody UploadPhotoRequest request) {
+            @Valid @RequestBody UploadPhotoRequest request,
+            HttpServletRequest httpRequest) {
         
         // Get authenticated user ID
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -86,7 +90,8 @@ public class UploadController {
             userId, request.getOriginalFileName(), request.getFileSizeBytes());
 
         try {
-            UploadPhotoResponse response = uploadService.initializeUpload(request);
+            UploadPhotoResponse response = uploadService.initializeUpload(
+                request, ThroughputEstimator.clientKey(userId, ClientIpResolver.resolve(httpRequest)));
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Failed to initialize upload", e);
@@ -2,6 +2,7 @@ package com.rapidphoto.features.upload;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
 import java.util.UUID;
 
@@ -20,6 +21,13 @@ public class UploadPhotoRequest {
     @Positive(message = "File size must be positive")
     private Long fileSizeBytes;
 
+    // Optional: lets the server skip the transfer if it already has this content
+    @Pattern(regexp = "^[0-9a-fA-F]{64}$", message = "SHA-256 checksum must be 64 hex characters")
+    private String checksumSha256;
+
+    // Optional: client will use the chunk size returned by initialize instead of its own
+    private Boolean adaptiveChunking;
+
     // Constructors
     public UploadPhotoRequest() {}
 
@@ -46,5 +54,11 @@ public class UploadPhotoRequest {
     public void setFileSizeBytes(Long fileSizeBytes) { 
         this.fileSizeBytes = fileSizeBytes; 
     }
+
+    public String getChecksumSha256() { return checksumSha256; }
+    public void setChecksumSha256(String checksumSha256) { this.checksumSha256 = checksumSha256; }
+
+    public boolean isAdaptiveChunking() { return Boolean.TRUE.equals(adaptiveChunking); }
+    public void setAdaptiveChunking(Boolean adaptiveChunking) { this.adaptiveChunking = adaptiveChunking; }
 }
 
@@ -7,6 +7,9 @@ public class UploadPhotoResponse {
     private String uploadUrl;
     private String status;
     private String message;
+    private Long chunkSize;
+    private Integer totalChunks;
+    private Integer parallelism;
 
     public UploadPhotoResponse() {}
 
@@ -29,5 +32,15 @@ public class UploadPhotoResponse {
     
     public String getMessage() { return message; }
     public void setMessage(String message) { this.message = message; }
+
+    // Chunking to use for this upload (chunked initialize only)
+    public Long getChunkSize() { return chunkSize; }
+    public void setChunkSize(Long chunkSize) { this.chunkSize = chunkSize; }
+
+    public Integer getTotalChunks() { return totalChunks; }
+    public void setTotalChunks(Integer totalChunks) { this.totalChunks = totalChunks; }
+
+    public Integer getParallelism() { return parallelism; }
+    public void setParallelism(Integer parallelism) { this.parallelism = parallelism; }
 }
 
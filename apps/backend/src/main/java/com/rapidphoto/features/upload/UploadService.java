@@ -2,11 +2,21 @@ package com.rapidphoto.features.upload;
 
 import com.rapidphoto.application.command.photo.StartPhotoUploadCommand;
 import com.rapidphoto.application.command.photo.StartPhotoUploadCommandHandler;
+import com.rapidphoto.domain.photo.ContentObject;
 import com.rapidphoto.domain.photo.Photo;
 import com.rapidphoto.domain.photo.PhotoRepository;
+import com.rapidphoto.domain.photo.PhotoStatus;
 import com.rapidphoto.features.photo.ImageMetadataExtractor;
-import com.rapidphoto.features.photo.ThumbnailService;
+import com.rapidphoto.features.processing.ProcessingJobService;
+import com.rapidphoto.features.upload.adaptive.ChunkPlan;
+import com.rapidphoto.features.upload.adaptive.ChunkSizingPolicy;
+import com.rapidphoto.features.upload.content.ContentAdoption;
+import com.rapidphoto.features.upload.content.ContentStoreService;
+import com.rapidphoto.features.upload.ingest.ChecksumAlgorithm;
+import com.rapidphoto.features.upload.ingest.IngestResult;
+import com.rapidphoto.features.upload.ingest.IngestService;
 import com.rapidphoto.features.upload.progress.ProgressTracker;
+import com.rapidphoto.infrastructure.scheduling.WorkTenant;
 import com.rapidphoto.infrastructure.storage.StorageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,7 +25,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -23,44 +36,69 @@ public class UploadService {
 
     private static final Logger logger = LoggerFactory.getLogger(UploadService.class);
 
+    // S3 rejects multipart parts smaller than 5MB (except the last one)
+    public static final long MIN_MULTIPART_PART_SIZE = 5L * 1024 * 1024;
+
     private final StartPhotoUploadCommandHandler uploadCommandHandler;
     private final N8nWebhookService webhookService;
     private final StorageService storageService;
     private final ProgressTracker progressTracker;
     private final PhotoRepository photoRepository;
-    private final ThumbnailService thumbnailService;
+    private final ProcessingJobService processingJobService;
     private final ImageMetadataExtractor metadataExtractor;
+    private final IngestService ingestService;
+    private final ContentStoreService contentStoreService;
+    private final ChunkSizingPolicy chunkSizingPolicy;
 
-    @Value("${upload.chunk-size:5242880}")
-    private long chunkSize;
+    // "user" only matches content already in the caller's library; "global" matches any user's
+    @Value("${upload.instant.scope:user}")
+    private String instantUploadScope;
 
     public UploadService(StartPhotoUploadCommandHandler uploadCommandHandler,
                         N8nWebhookService webhookService,
                         StorageService storageService,
                         ProgressTracker progressTracker,
                         PhotoRepository photoRepository,
-                        ThumbnailService thumbnailService,
-                        ImageMetadataExtractor metadataExtractor) {
+                        ProcessingJobService processingJobService,
+                        ImageMetadataExtractor metadataExtractor,
+                        IngestService ingestService,
+                        ContentStoreService contentStoreService,
+                        ChunkSizingPolicy chunkSizingPolicy) {
         this.uploadCommandHandler = uploadCommandHandler;
         this.webhookService = webhookService;
         this.storageService = storageService;
         this.progressTracker = progressTracker;
         this.photoRepository = photoRepository;
-        this.thumbnailService = thumbnailService;
+        this.processingJobService = processingJobService;
         this.metadataExtractor = metadataExtractor;
+        this.ingestService = ingestService;
+        this.contentStoreService = contentStoreService;
+        this.chunkSizingPolicy = chunkSizingPolicy;
     }
 
-    private int calculateTotalChunks(long fileSizeBytes) {
-        return (int) Math.ceil((double) fileSizeBytes / chunkSize);
+    public UploadPhotoResponse uploadPhoto(UUID userId, MultipartFile file) {
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("File is empty");
+        }
+        try {
+            return uploadPhoto(userId, file.getInputStream(), file.getOriginalFilename(),
+                file.getContentType(), file.getSize());
+        } catch (IOException e) {
+            logger.error("File upload failed for user: {}", userId, e);
+            throw new RuntimeException("File upload failed: " + e.getMessage(), e);
+        }
     }
 
-    public UploadPhotoResponse uploadPhoto(UUID userId, MultipartFile file) {
+    /**
+     * Single-shot upload from a raw stream (multipart part or request body)
+     */
+    public UploadPhotoResponse uploadPhoto(UUID userId, InputStream inputStream, String originalFileName,
+                                           String contentType, long contentLength) {
         try {
-            if (file.isEmpty()) {
+            if (contentLength <= 0) {
                 throw new IllegalArgumentException("File is empty");
             }
 
-            String originalFileName = file.getOriginalFilename();
             String fileName = UUID.randomUUID().toString() + "_" + originalFileName;
             String storagePath = userId.toString() + "/" + fileName;
             
@@ -69,57 +107,72 @@ public class UploadService {
                 userId,
                 fileName,
                 originalFileName,
-                file.getSize(),
-                file.getContentType()
+                contentLength,
+                contentType
             );
 
             // Execute command (saves to DB, updates user storage)
             UUID photoId = uploadCommandHandler.handle(command);
 
-            // Store file using storage abstraction (local or S3)
-            String storageUrl = storageService.store(
-                storagePath,
-                file.getInputStream(),
-                file.getContentType(),
-                file.getSize()
+            // Store file using storage abstraction (local or S3), hashing and reading
+            // the image header from the same pass over the upload
+            IngestResult ingest = ingestService.ingest(
+                inputStream,
+                ChecksumAlgorithm.SHA256,
+                true,
+                in -> storageService.store(storagePath, in, contentType, contentLength)
             );
+            String storageUrl = ingest.getLocation();
 
             logger.info("Photo uploaded successfully: photoId={}, userId={}, storage={}, type={}", 
                 photoId, userId, storageUrl, storageService.getStorageType());
 
+            // Hand the bytes to the content store: identical content is kept once
+            ContentAdoption adoption = contentStoreService.adopt(
+                storagePath, ingest.getChecksum(), contentLength, contentType);
+
             // Get photo from repository for processing
             Photo photo = photoRepository.findById(photoId)
                 .orElseThrow(() -> new RuntimeException("Photo not found after upload: " + photoId));
 
-            // Mark as processing
-            photo.markAsProcessing();
-            photoRepository.save(photo);
-
-            // Extract metadata synchronously (dimensions, EXIF data)
-            try {
-                metadataExtractor.extractMetadata(photo);
-                logger.info("Extracted metadata for photo: {}", photoId);
-            } catch (Exception e) {
-                logger.warn("Failed to extract metadata for photo: {} - {}", photoId, e.getMessage());
-                // Continue without metadata
+            contentStoreService.linkPhoto(photo, ingest.getChecksum(), adoption.getStoragePath());
+
+            // Duplicate content: reuse the renditions already generated for it
+            Optional<Photo> donor = adoption.isDuplicate()
+                ? contentStoreService.findRenditionDonor(ingest.getChecksum())
+                : Optional.empty();
+
+            if (donor.isPresent()) {
+                contentStoreService.copyRenditions(donor.get(), photo);
+                photo.markAsCompleted();
+                photoRepository.save(photo);
+                logger.info("Reused renditions for duplicate content: photoId={}, donor={}",
+                    photoId, donor.get().getId().getValue());
+            } else {
+                // Apply metadata captured during ingest (dimensions, EXIF data); the pipeline
+                // reads whatever is missing from the stored original
+                if (ingest.getHeader() != null) {
+                    metadataExtractor.applyHeader(photo, ingest.getHeader());
+                }
+
+                // Mark as completed (bypass n8n for basic functionality)
+                photo.markAsCompleted();
+                Photo saved = photoRepository.save(photo);
+                logger.info("Marked photo as completed: {}", photoId);
+
+                // Metadata, hash and thumbnails from one fetch of the original, as a durable job or
+                // an async task queued under the owner's fair share
+                WorkTenant.run(userId, saved.getFileSizeBytes(), () -> processingJobService.submit(saved));
             }
 
-            // Generate thumbnails asynchronously
-            thumbnailService.generateThumbnails(photo);
-
-            // Mark as completed (bypass n8n for basic functionality)
-            photo.markAsCompleted();
-            photoRepository.save(photo);
-            logger.info("Marked photo as completed: {}", photoId);
-
             // Trigger n8n webhook - notify photo uploaded (optional)
             try {
-                String relativePath = storagePath; // userId/fileName format
+                String relativePath = adoption.getStoragePath(); // originals/{ab}/{sha256} format
                 webhookService.triggerPhotoUploadedWebhook(
                     photoId, 
                     userId, 
                     fileName, 
-                    file.getSize(),
+                    contentLength,
                     relativePath
                 );
             } catch (Exception e) {
@@ -141,21 +194,63 @@ public class UploadService {
     }
 
     public UploadPhotoResponse initializeUpload(UploadPhotoRequest request) {
+        return initializeUpload(request, null);
+    }
+
+    /**
+     * @param clientKey throughput-estimator key of the caller, used when the client negotiates chunking
+     */
+    public UploadPhotoResponse initializeUpload(UploadPhotoRequest request, String clientKey) {
         // For chunked uploads - initialize upload session
         String fileName = UUID.randomUUID().toString() + "_" + request.getOriginalFileName();
-        
+        String storagePath = request.getUserId() + "/" + fileName;
+
+        Optional<UUID> presentPhotoId = tryInstantUpload(request.getUserId(), fileName,
+            request.getOriginalFileName(), request.getFileSizeBytes(), request.getMimeType(),
+            request.getChecksumSha256());
+        if (presentPhotoId.isPresent()) {
+            return new UploadPhotoResponse(
+                presentPhotoId.get(),
+                null,
+                "ALREADY_PRESENT",
+                "Content already stored. No upload needed."
+            );
+        }
+
+        // Negotiating clients get a chunk size fitted to their measured link; others keep the static one
+        ChunkPlan plan = request.isAdaptiveChunking()
+            ? chunkSizingPolicy.plan(clientKey, request.getFileSizeBytes())
+            : chunkSizingPolicy.defaultPlan();
+
+        // Chunks become parts of a native multipart upload when the backend supports it,
+        // so completion is a single server-side stitch instead of download-and-reassemble
+        String multipartUploadId = null;
+        if (storageService.supportsMultipartUpload() && plan.getChunkSize() >= MIN_MULTIPART_PART_SIZE) {
+            multipartUploadId = storageService.initiateMultipartUpload(storagePath, request.getMimeType());
+        }
+
         StartPhotoUploadCommand command = new StartPhotoUploadCommand(
             request.getUserId(),
             fileName,
             request.getOriginalFileName(),
             request.getFileSizeBytes(),
-            request.getMimeType()
+            request.getMimeType(),
+            multipartUploadId,
+            request.isAdaptiveChunking() ? plan.getChunkSize() : null
         );
 
-        UUID photoId = uploadCommandHandler.handle(command);
+        UUID photoId;
+        try {
+            photoId = uploadCommandHandler.handle(command);
+        } catch (RuntimeException e) {
+            if (multipartUploadId != null) {
+                storageService.abortMultipartUpload(storagePath, multipartUploadId);
+            }
+            throw e;
+        }
 
         // Initialize progress tracking
-        int totalChunks = calculateTotalChunks(request.getFileSizeBytes());
+        int totalChunks = plan.totalChunks(request.getFileSizeBytes());
         progressTracker.initializeProgress(
             photoId,
             request.getUserId(),
@@ -163,15 +258,19 @@ public class UploadService {
             totalChunks
         );
 
-        logger.info("Upload initialized: photoId={}, userId={}, totalChunks={}", 
-            photoId, request.getUserId(), totalChunks);
+        logger.info("Upload initialized: photoId={}, userId={}, totalChunks={}, chunkSize={}, multipart={}",
+            photoId, request.getUserId(), totalChunks, plan.getChunkSize(), multipartUploadId != null);
 
-        return new UploadPhotoResponse(
+        UploadPhotoResponse response = new UploadPhotoResponse(
             photoId,
             "/api/upload/" + photoId + "/chunk",
             "INITIALIZED",
             "Upload session created. Ready to receive chunks."
         );
+        response.setChunkSize(plan.getChunkSize());
+        response.setTotalChunks(totalChunks);
+        response.setParallelism(plan.getParallelism());
+        return response;
     }
 
     /**
@@ -182,6 +281,18 @@ public class UploadService {
         // Create photo record in database
         String fileName = UUID.randomUUID().toString() + "_" + request.getOriginalFileName();
         String storagePath = userId.toString() + "/" + fileName;
+
+        Optional<UUID> presentPhotoId = tryInstantUpload(userId, fileName, request.getOriginalFileName(),
+            request.getFileSizeBytes(), request.getMimeType(), request.getChecksumSha256());
+        if (presentPhotoId.isPresent()) {
+            return new PresignedUploadResponse(
+                presentPhotoId.get(),
+                null,
+                ContentObject.storagePathFor(request.getChecksumSha256().toLowerCase(Locale.ROOT)),
+                "Content already stored. No upload needed.",
+                "ALREADY_PRESENT"
+            );
+        }
         
         StartPhotoUploadCommand command = new StartPhotoUploadCommand(
             userId,
@@ -222,33 +333,88 @@ public class UploadService {
         if (!photo.getUserId().getValue().equals(userId)) {
             throw new IllegalArgumentException("Photo does not belong to user: " + userId);
         }
-
-        // Mark as processing
-        photo.markAsProcessing();
-        photoRepository.save(photo);
-
-        // Extract metadata synchronously
-        try {
-            metadataExtractor.extractMetadata(photo);
-            logger.info("Extracted metadata for photo: {}", photoId);
-        } catch (Exception e) {
-            logger.warn("Failed to extract metadata for photo: {} - {}", photoId, e.getMessage());
+        if (photo.getStatus() != PhotoStatus.UPLOADING) {
+            // Repeated completion: the object has already moved to its content-addressed path
+            throw new IllegalArgumentException("Upload already completed: " + photoId);
         }
 
-        // Generate thumbnails asynchronously
-        thumbnailService.generateThumbnails(photo);
+        // The bytes went straight to storage: hash them there and hand them to the content store
+        String sha256 = contentStoreService.hashStored(photo.getStorageInfo().getStoragePath());
+        ContentAdoption adoption = contentStoreService.adopt(photo.getStorageInfo().getStoragePath(),
+            sha256, photo.getFileSizeBytes(), photo.getMimeType());
+        contentStoreService.linkPhoto(photo, sha256, adoption.getStoragePath());
+
+        // Duplicate content: reuse the renditions already generated for it
+        Optional<Photo> donor = adoption.isDuplicate()
+            ? contentStoreService.findRenditionDonor(sha256)
+            : Optional.empty();
+        donor.ifPresent(d -> contentStoreService.copyRenditions(d, photo));
 
         // Mark as completed
         photo.markAsCompleted();
-        photoRepository.save(photo);
+        Photo saved = photoRepository.save(photo);
+
+        if (donor.isPresent()) {
+            logger.info("Reused renditions for duplicate content: photoId={}, donor={}",
+                photoId, donor.get().getId().getValue());
+        } else {
+            // Metadata, hash and thumbnails from one fetch of the original, as a durable job or
+            // an async task queued under the owner's fair share
+            WorkTenant.run(userId, saved.getFileSizeBytes(), () -> processingJobService.submit(saved));
+        }
         logger.info("Completed direct upload: photoId={}, userId={}", photoId, userId);
 
         return new UploadPhotoResponse(
             photoId,
-            photo.getStorageInfo().getStoragePath(),
+            saved.getStorageInfo().getStoragePath(),
             "COMPLETED",
             "Photo uploaded and processed successfully"
         );
     }
-}
 
+    /**
+     * Instant upload: when a completed photo with the announced content already exists, register
+     * the new photo against the stored object and its renditions without transferring any bytes.
+     * @return id of the new, already completed photo; empty if the client has to upload
+     */
+    private Optional<UUID> tryInstantUpload(UUID userId, String fileName, String originalFileName,
+                                            Long fileSizeBytes, String mimeType, String checksumSha256) {
+        if (checksumSha256 == null) {
+            return Optional.empty();
+        }
+        String sha256 = checksumSha256.toLowerCase(Locale.ROOT);
+
+        Optional<Photo> donor = "global".equalsIgnoreCase(instantUploadScope)
+            ? contentStoreService.findRenditionDonor(sha256)
+            : photoRepository.findFirstByUserIdAndChecksumSha256AndStatusAndThumbnailSmallUrlIsNotNullOrderByUploadedAtAsc(
+                userId, sha256, PhotoStatus.COMPLETED);
+        if (donor.isEmpty() || !donor.get().getFileSizeBytes().equals(fileSizeBytes)) {
+            return Optional.empty();
+        }
+
+        // Donors stored before content addressing have no content object to reference
+        Optional<String> contentPath = contentStoreService.acquire(sha256);
+        if (contentPath.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try {
+            UUID photoId = uploadCommandHandler.handle(new StartPhotoUploadCommand(
+                userId, fileName, originalFileName, fileSizeBytes, mimeType));
+
+            Photo photo = photoRepository.findById(photoId)
+                .orElseThrow(() -> new RuntimeException("Photo not found after upload: " + photoId));
+            contentStoreService.linkPhoto(photo, sha256, contentPath.get());
+            contentStoreService.copyRenditions(donor.get(), photo);
+            photo.markAsCompleted();
+            photoRepository.save(photo);
+
+            logger.info("Instant upload: photoId={}, userId={}, donor={}",
+                photoId, userId, donor.get().getId().getValue());
+            return Optional.of(photoId);
+        } catch (RuntimeException e) {
+            contentStoreService.releaseReference(sha256);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.rapidphoto.features.upload.adaptive;
+
+/**
+ * Chunking chosen for one upload
+ */
+public class ChunkPlan {
+
+    private final long chunkSize;
+    private final int parallelism;
+    private final boolean measured;
+
+    public ChunkPlan(long chunkSize, int parallelism, boolean measured) {
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.measured = measured;
+    }
+
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Suggested number of chunk requests in flight for this upload
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * True if derived from measurements of this client, false for the static default
+     */
+    public boolean isMeasured() {
+        return measured;
+    }
+
+    public int totalChunks(long fileSizeBytes) {
+        return (int) Math.max(1, Math.ceil((double) fileSizeBytes / chunkSize));
+    }
+}
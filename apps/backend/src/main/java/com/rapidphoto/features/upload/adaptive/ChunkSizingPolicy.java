@@ -0,0 +1,96 @@
+package com.rapidphoto.features.upload.adaptive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Picks chunk size and parallelism for a new upload from the client's measured link.
+ * Chunks are sized to take roughly {@code target-chunk-seconds} each: fast links get fewer,
+ * larger requests; slow links get chunks small enough that a failed one is cheap to resend.
+ * A high error rate shrinks chunks further and lowers parallelism.
+ */
+@Component
+public class ChunkSizingPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkSizingPolicy.class);
+    private static final long SIZE_GRANULARITY = 256 * 1024;
+    private static final double LOSSY_ERROR_RATE = 0.2;
+
+    private final ThroughputEstimator estimator;
+
+    @Value("${upload.chunk-size:5242880}")
+    private long defaultChunkSize;
+
+    @Value("${upload.adaptive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${upload.adaptive.target-chunk-seconds:4}")
+    private double targetChunkSeconds;
+
+    @Value("${upload.adaptive.min-chunk-size:1048576}")
+    private long minChunkSize;
+
+    @Value("${upload.adaptive.max-chunk-size:33554432}")
+    private long maxChunkSize;
+
+    @Value("${upload.adaptive.min-samples:3}")
+    private int minSamples;
+
+    @Value("${upload.adaptive.default-parallelism:4}")
+    private int defaultParallelism;
+
+    @Value("${upload.adaptive.max-parallelism:8}")
+    private int maxParallelism;
+
+    public ChunkSizingPolicy(ThroughputEstimator estimator) {
+        this.estimator = estimator;
+    }
+
+    /**
+     * Static plan used when the client does not negotiate or has no history yet
+     */
+    public ChunkPlan defaultPlan() {
+        return new ChunkPlan(defaultChunkSize, defaultParallelism, false);
+    }
+
+    public ChunkPlan plan(String clientKey, long fileSizeBytes) {
+        Optional<LinkEstimate> estimate = enabled
+            ? estimator.estimate(clientKey).filter(e -> e.getSamples() >= minSamples)
+            : Optional.empty();
+        if (estimate.isEmpty()) {
+            return defaultPlan();
+        }
+
+        double bytesPerSecond = estimate.get().getBytesPerSecond();
+        double errorRate = estimate.get().getErrorRate();
+
+        double size = bytesPerSecond * targetChunkSeconds;
+        if (errorRate > 0) {
+            size *= Math.max(0.25, 1 - 2 * errorRate);
+        }
+        long chunkSize = Math.max(minChunkSize, Math.min(maxChunkSize,
+            ((long) size / SIZE_GRANULARITY) * SIZE_GRANULARITY));
+
+        int parallelism;
+        if (errorRate >= LOSSY_ERROR_RATE) {
+            // Parallel requests on a lossy link mostly multiply retries
+            parallelism = 2;
+        } else if (chunkSize >= maxChunkSize) {
+            // One connection outruns the largest chunk: spread over more connections instead
+            parallelism = maxParallelism;
+        } else {
+            parallelism = defaultParallelism;
+        }
+
+        ChunkPlan plan = new ChunkPlan(chunkSize, parallelism, true);
+        parallelism = Math.min(parallelism, plan.totalChunks(fileSizeBytes));
+
+        logger.debug("Chunk plan: client={}, rate={} B/s, errors={}, chunkSize={}, parallelism={}",
+            clientKey, (long) bytesPerSecond, String.format("%.2f", errorRate), chunkSize, parallelism);
+        return new ChunkPlan(chunkSize, parallelism, true);
+    }
+}
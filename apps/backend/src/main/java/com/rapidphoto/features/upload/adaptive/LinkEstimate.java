@@ -0,0 +1,35 @@
+package com.rapidphoto.features.upload.adaptive;
+
+/**
+ * Snapshot of a client's measured upload link
+ */
+public class LinkEstimate {
+
+    private final double bytesPerSecond;
+    private final double errorRate;
+    private final int samples;
+
+    public LinkEstimate(double bytesPerSecond, double errorRate, int samples) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.errorRate = errorRate;
+        this.samples = samples;
+    }
+
+    /**
+     * EWMA of per-request throughput (one connection, not the client's aggregate bandwidth)
+     */
+    public double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * EWMA of chunk failures, 0..1
+     */
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+}
@@ -0,0 +1,91 @@
+package com.rapidphoto.features.upload.adaptive;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Per user/IP estimate of chunk throughput and failure rate, kept as exponentially
+ * weighted moving averages over recent chunk requests. In-memory only: a restart
+ * just falls back to the static chunk size until new samples arrive.
+ */
+@Component
+public class ThroughputEstimator {
+
+    // Chunks this small are dominated by request overhead and say little about the link
+    private static final long MIN_SAMPLE_BYTES = 64 * 1024;
+
+    private final Cache<String, LinkStats> stats;
+    private final double alpha;
+
+    public ThroughputEstimator(@Value("${upload.adaptive.ewma-alpha:0.3}") double alpha,
+                               @Value("${upload.adaptive.idle-expiry-minutes:60}") long idleExpiryMinutes) {
+        this.alpha = alpha;
+        this.stats = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofMinutes(idleExpiryMinutes))
+            .build();
+    }
+
+    public static String clientKey(UUID userId, String clientIp) {
+        return "user:" + userId + "|ip:" + clientIp;
+    }
+
+    /**
+     * A chunk body of {@code bytes} was received in {@code nanos}
+     */
+    public void recordSuccess(String clientKey, long bytes, long nanos) {
+        if (clientKey == null || bytes < MIN_SAMPLE_BYTES || nanos <= 0) {
+            return;
+        }
+        double bytesPerSecond = bytes / (nanos / 1_000_000_000.0);
+        stats.get(clientKey, k -> new LinkStats()).success(bytesPerSecond, alpha);
+    }
+
+    /**
+     * A chunk request failed (body cut off, checksum mismatch, storage error)
+     */
+    public void recordFailure(String clientKey) {
+        if (clientKey == null) {
+            return;
+        }
+        stats.get(clientKey, k -> new LinkStats()).failure(alpha);
+    }
+
+    public Optional<LinkEstimate> estimate(String clientKey) {
+        if (clientKey == null) {
+            return Optional.empty();
+        }
+        LinkStats link = stats.getIfPresent(clientKey);
+        return link != null ? link.snapshot() : Optional.empty();
+    }
+
+    private static final class LinkStats {
+        private double bytesPerSecond = Double.NaN;
+        private double errorRate;
+        private int samples;
+
+        synchronized void success(double sample, double alpha) {
+            bytesPerSecond = Double.isNaN(bytesPerSecond) ? sample : alpha * sample + (1 - alpha) * bytesPerSecond;
+            errorRate = (1 - alpha) * errorRate;
+            samples++;
+        }
+
+        synchronized void failure(double alpha) {
+            errorRate = alpha + (1 - alpha) * errorRate;
+            samples++;
+        }
+
+        synchronized Optional<LinkEstimate> snapshot() {
+            if (Double.isNaN(bytesPerSecond)) {
+                return Optional.empty();
+            }
+            return Optional.of(new LinkEstimate(bytesPerSecond, errorRate, samples));
+        }
+    }
+}
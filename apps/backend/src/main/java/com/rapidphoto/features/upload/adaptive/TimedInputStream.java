@@ -0,0 +1,55 @@
+package com.rapidphoto.features.upload.adaptive;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Times a request body from its first byte to its last, for {@link ThroughputEstimator}.
+ * Time spent before the first byte (queueing, auth, session lookup) is not counted, and the
+ * clock stops at the last byte read whether or not the consumer goes on to see EOF.
+ */
+public class TimedInputStream extends FilterInputStream {
+
+    private boolean started;
+    private long firstByteNanos;
+    private long lastByteNanos;
+
+    public TimedInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            bytesArrived();
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            bytesArrived();
+        }
+        return n;
+    }
+
+    /**
+     * @return nanoseconds between the first and the last byte read, 0 before any bytes
+     */
+    public long getElapsedNanos() {
+        return lastByteNanos - firstByteNanos;
+    }
+
+    private void bytesArrived() {
+        long now = System.nanoTime();
+        if (!started) {
+            started = true;
+            firstByteNanos = now;
+        }
+        lastByteNanos = now;
+    }
+}
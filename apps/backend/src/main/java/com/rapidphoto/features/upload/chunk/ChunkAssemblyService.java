@@ -2,11 +2,15 @@ package com.rapidphoto.features.upload.chunk;
 
 import com.rapidphoto.domain.photo.Photo;
 import com.rapidphoto.domain.photo.PhotoRepository;
-import com.rapidphoto.domain.photo.UploadChunk;
-import com.rapidphoto.domain.photo.UploadChunkRepository;
-import com.rapidphoto.features.photo.ThumbnailService;
+import com.rapidphoto.domain.photo.PhotoStatus;
+import com.rapidphoto.features.photo.ImageHeader;
 import com.rapidphoto.features.photo.ImageMetadataExtractor;
+import com.rapidphoto.features.processing.ProcessingJobService;
 import com.rapidphoto.features.upload.N8nWebhookService;
+import com.rapidphoto.features.upload.content.ContentAdoption;
+import com.rapidphoto.features.upload.content.ContentStoreService;
+import com.rapidphoto.features.upload.session.UploadSessionService;
+import com.rapidphoto.infrastructure.admission.InFlightByteBudget;
 import com.rapidphoto.infrastructure.retry.ExponentialBackoffRetryService;
 import com.rapidphoto.infrastructure.retry.RetryPolicy;
 import com.rapidphoto.infrastructure.storage.StorageService;
@@ -14,146 +18,141 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 public class ChunkAssemblyService {
 
     private static final Logger logger = LoggerFactory.getLogger(ChunkAssemblyService.class);
 
-    private final UploadChunkRepository chunkRepository;
+    private final ChunkSessionRegistry sessionRegistry;
     private final PhotoRepository photoRepository;
     private final StorageService storageService;
     private final N8nWebhookService webhookService;
-    private final ThumbnailService thumbnailService;
+    private final ProcessingJobService processingJobService;
     private final ImageMetadataExtractor metadataExtractor;
     private final ExponentialBackoffRetryService retryService;
+    private final UploadSessionService uploadSessionService;
+    private final InFlightByteBudget admissionBudget;
+    private final ContentStoreService contentStoreService;
+    private final TransactionTemplate transactionTemplate;
 
-    public ChunkAssemblyService(UploadChunkRepository chunkRepository,
+    public ChunkAssemblyService(ChunkSessionRegistry sessionRegistry,
                                PhotoRepository photoRepository,
                                StorageService storageService,
                                N8nWebhookService webhookService,
-                               ThumbnailService thumbnailService,
+                               ProcessingJobService processingJobService,
                                ImageMetadataExtractor metadataExtractor,
-                               ExponentialBackoffRetryService retryService) {
-        this.chunkRepository = chunkRepository;
+                               ExponentialBackoffRetryService retryService,
+                               UploadSessionService uploadSessionService,
+                               InFlightByteBudget admissionBudget,
+                               ContentStoreService contentStoreService,
+                               TransactionTemplate transactionTemplate) {
+        this.sessionRegistry = sessionRegistry;
         this.photoRepository = photoRepository;
         this.storageService = storageService;
         this.webhookService = webhookService;
-        this.thumbnailService = thumbnailService;
+        this.processingJobService = processingJobService;
         this.metadataExtractor = metadataExtractor;
         this.retryService = retryService;
+        this.uploadSessionService = uploadSessionService;
+        this.admissionBudget = admissionBudget;
+        this.contentStoreService = contentStoreService;
+        this.transactionTemplate = transactionTemplate;
     }
 
+    /**
+     * Runs without a surrounding transaction: storage I/O and retry back-off never hold a
+     * pooled connection, the DB work is a short transaction once the object is in place.
+     * @param admittedBytes bytes reserved on the admission budget for this assembly, released when it ends
+     */
     @Async("uploadExecutor")
-    @Transactional
-    public void assembleChunks(UUID photoId, Integer totalChunks) {
+    public void assembleChunks(UUID photoId, Integer totalChunks, long admittedBytes) {
         try {
-            retryService.executeWithRetry(
-                "Assemble-Chunks-" + photoId,
-                () -> {
-                    logger.info("Starting chunk assembly for photo: {}", photoId);
-
-                    Photo photo = photoRepository.findById(photoId)
-                        .orElseThrow(() -> new IllegalStateException("Photo not found: " + photoId));
+            assemble(photoId, totalChunks);
+        } finally {
+            admissionBudget.release(admittedBytes);
+        }
+    }
 
-                    // Get all chunks in order
-                    List<UploadChunk> chunks = chunkRepository.findByPhotoIdOrderByChunkNumberAsc(photoId);
-                    
-                    if (chunks.size() != totalChunks) {
-                        throw new IllegalStateException(
-                            String.format("Missing chunks: expected %d, found %d", totalChunks, chunks.size())
-                        );
-                    }
-
-                    // Create temporary file for assembly
-                    Path tempFile = Files.createTempFile("assembly_" + photoId, ".tmp");
-                    
-                    try (FileOutputStream fos = new FileOutputStream(tempFile.toFile())) {
-                        for (UploadChunk chunk : chunks) {
-                            String chunkPath = String.format("%s/chunks/chunk_%d", photoId, chunk.getChunkNumber());
-                            
-                            try (InputStream chunkStream = storageService.retrieve(chunkPath)) {
-                                byte[] buffer = new byte[8192];
-                                int bytesRead;
-                                while ((bytesRead = chunkStream.read(buffer)) != -1) {
-                                    fos.write(buffer, 0, bytesRead);
-                                }
-                            }
-                            
-                            logger.debug("Assembled chunk {}/{} for photo: {}", 
-                                chunk.getChunkNumber() + 1, totalChunks, photoId);
-                        }
-                    }
-
-                    // Store assembled file
-                    String finalPath = photo.getUserId().getValue() + "/" + photoId;
-                    try (FileInputStream fis = new FileInputStream(tempFile.toFile())) {
-                        storageService.store(
-                            finalPath,
-                            fis,
-                            "application/octet-stream",
-                            Files.size(tempFile)
-                        );
-                    }
-
-                    // Clean up chunks
-                    for (UploadChunk chunk : chunks) {
-                        String chunkPath = String.format("%s/chunks/chunk_%d", photoId, chunk.getChunkNumber());
-                        storageService.delete(chunkPath);
-                    }
-
-                    // Delete temp file
-                    Files.deleteIfExists(tempFile);
-
-                    // Mark photo as processing (metadata extraction and thumbnails will be generated)
-                    photo.markAsProcessing();
-                    photoRepository.save(photo);
+    private void assemble(UUID photoId, Integer totalChunks) {
+        String adoptedSha256 = null;
+        try {
+            String sha256 = retryService.executeWithRetry(
+                "Assemble-Chunks-" + photoId,
+                () -> assembleObject(photoId, totalChunks),
+                RetryPolicy.aggressivePolicy()
+            );
+            logger.info("Successfully assembled {} chunks for photo: {}", totalChunks, photoId);
 
-                    logger.info("Successfully assembled {} chunks for photo: {}", totalChunks, photoId);
+            // Hand the assembled object to the content store: identical content is kept once
+            Photo uploaded = photoRepository.findById(photoId)
+                .orElseThrow(() -> new IllegalStateException("Photo not found: " + photoId));
+            ContentAdoption adoption = contentStoreService.adopt(uploaded.getStorageInfo().getStoragePath(),
+                sha256, uploaded.getFileSizeBytes(), uploaded.getMimeType());
+            adoptedSha256 = sha256;
 
-                    // Extract metadata synchronously (dimensions, EXIF data)
-                    try {
-                        metadataExtractor.extractMetadata(photo);
-                        logger.info("Extracted metadata for photo: {}", photoId);
-                    } catch (Exception e) {
-                        logger.warn("Failed to extract metadata for photo: {} - {}", photoId, e.getMessage());
-                        // Continue without metadata
-                    }
+            // Duplicate content: reuse the renditions already generated for it
+            Optional<Photo> donor = adoption.isDuplicate()
+                ? contentStoreService.findRenditionDonor(sha256)
+                : Optional.empty();
 
-                    // Generate thumbnails asynchronously
-                    thumbnailService.generateThumbnails(photo);
+            // Metadata captured from chunk 0; the processing pipeline reads the stored original
+            // for anything the header bytes did not contain
+            ImageHeader header = sessionRegistry.getOrLoad(photoId, totalChunks).getHeader();
 
-                    // Mark as completed (bypass n8n for basic functionality)
-                    photo.markAsCompleted();
-                    photoRepository.save(photo);
-                    logger.info("Marked photo as completed: {}", photoId);
-
-                    // Trigger n8n webhook - notify photo uploaded (optional)
-                    try {
-                        webhookService.notifyPhotoUploaded(photo);
-                    } catch (Exception e) {
-                        logger.warn("Failed to notify n8n: {} - {}", photoId, e.getMessage());
-                        // Continue without n8n
-                    }
-
-                    return null;
-                },
+            Photo photo = retryService.executeWithRetry(
+                "Complete-Assembly-" + photoId,
+                () -> completeAssembly(photoId, header, sha256, adoption, donor),
                 RetryPolicy.aggressivePolicy()
             );
+            adoptedSha256 = null;
+            logger.info("Marked photo as completed: {}", photoId);
+            sessionRegistry.remove(photoId);
+
+            if (donor.isPresent()) {
+                logger.info("Reused renditions for duplicate content: photoId={}, donor={}",
+                    photoId, donor.get().getId().getValue());
+            } else {
+                // Metadata, hash and thumbnails from one fetch of the original, as a durable job or
+                // an async task (inherits this task's user and size for fair queueing)
+                processingJobService.submit(photo);
+            }
+
+            // Trigger n8n webhook - notify photo uploaded (optional)
+            try {
+                webhookService.notifyPhotoUploaded(photo);
+            } catch (Exception e) {
+                logger.warn("Failed to notify n8n: {} - {}", photoId, e.getMessage());
+                // Continue without n8n
+            }
         } catch (Exception e) {
             logger.error("Failed to assemble chunks for photo: {} after all retries", photoId, e);
             
             // If retry fails, mark photo as failed and notify n8n
             try {
+                if (adoptedSha256 != null) {
+                    // Adopted but never linked: the photo holds no reference to release later
+                    contentStoreService.releaseReference(adoptedSha256);
+                }
                 Photo photo = photoRepository.findById(photoId).orElse(null);
-                if (photo != null && photo.getStatus().name().equals("PROCESSING")) {
+                if (photo != null && photo.getMultipartUploadId() != null && adoptedSha256 == null) {
+                    storageService.abortMultipartUpload(
+                        photo.getStorageInfo().getStoragePath(),
+                        photo.getMultipartUploadId()
+                    );
+                }
+                if (photo != null && photo.getUploadSessionId() != null) {
+                    uploadSessionService.recordFileFailed(photo.getUploadSessionId().getValue());
+                }
+                if (photo != null && (photo.getStatus() == PhotoStatus.UPLOADING
+                        || photo.getStatus() == PhotoStatus.PROCESSING)) {
                     photo.markAsFailed();
                     photoRepository.save(photo);
                     logger.error("Failed to assemble chunks for photo: {} after all retries", photoId);
@@ -166,5 +165,92 @@ public class ChunkAssemblyService {
             }
         }
     }
-}
 
+    /**
+     * Put the chunks together into the photo's final object - storage I/O only
+     * @return SHA-256 of the assembled object
+     */
+    private String assembleObject(UUID photoId, Integer totalChunks) {
+        logger.info("Starting chunk assembly for photo: {}", photoId);
+
+        Photo photo = photoRepository.findById(photoId)
+            .orElseThrow(() -> new IllegalStateException("Photo not found: " + photoId));
+
+        ChunkSession session = sessionRegistry.getOrLoad(photoId, totalChunks);
+        
+        if (!session.isComplete()) {
+            throw new IllegalStateException(
+                String.format("Missing chunks: expected %d, found %d", totalChunks, session.getReceivedChunks())
+            );
+        }
+
+        if (photo.getMultipartUploadId() != null) {
+            // Parts already live in the final object - S3 stitches them server-side
+            storageService.completeMultipartUpload(
+                photo.getStorageInfo().getStoragePath(),
+                photo.getMultipartUploadId(),
+                totalChunks
+            );
+        } else {
+            reassembleChunks(photo, totalChunks);
+        }
+        // Chunks arrive out of order and S3 stitches server-side, so the content hash is
+        // taken from one sequential read of the result
+        return contentStoreService.hashStored(photo.getStorageInfo().getStoragePath());
+    }
+
+    /**
+     * Short transaction recording the assembled upload: content link, metadata, status, session counters
+     */
+    private Photo completeAssembly(UUID photoId, ImageHeader header, String sha256,
+                                   ContentAdoption adoption, Optional<Photo> donor) {
+        return transactionTemplate.execute(status -> {
+            Photo photo = photoRepository.findById(photoId)
+                .orElseThrow(() -> new IllegalStateException("Photo not found: " + photoId));
+            photo.setMultipartUploadId(null);
+            contentStoreService.linkPhoto(photo, sha256, adoption.getStoragePath());
+
+            if (donor.isPresent()) {
+                contentStoreService.copyRenditions(donor.get(), photo);
+            } else if (header != null) {
+                metadataExtractor.applyHeader(photo, header);
+                logger.info("Extracted metadata for photo: {}", photoId);
+            }
+
+            // Mark as completed (bypass n8n for basic functionality)
+            photo.markAsCompleted();
+            photo = photoRepository.save(photo);
+
+            if (photo.getUploadSessionId() != null) {
+                uploadSessionService.recordFileCompleted(
+                    photo.getUploadSessionId().getValue(), photo.getFileSizeBytes());
+            }
+            return photo;
+        });
+    }
+
+    /**
+     * Concatenate chunk objects into the photo's final storage path for backends
+     * without native multipart uploads
+     */
+    private void reassembleChunks(Photo photo, Integer totalChunks) {
+        UUID photoId = photo.getId().getValue();
+
+        List<String> chunkPaths = IntStream.range(0, totalChunks)
+            .mapToObj(chunkNumber -> String.format("%s/chunks/chunk_%d", photoId, chunkNumber))
+            .collect(Collectors.toList());
+
+        storageService.concatenate(
+            chunkPaths,
+            photo.getStorageInfo().getStoragePath(),
+            photo.getMimeType()
+        );
+
+        logger.debug("Assembled {} chunks for photo: {}", totalChunks, photoId);
+
+        // Clean up chunks
+        for (String chunkPath : chunkPaths) {
+            storageService.delete(chunkPath);
+        }
+    }
+}
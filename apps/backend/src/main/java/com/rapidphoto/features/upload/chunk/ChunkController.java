@@ -1,7 +1,7 @@
 package com.rapidphoto.features.upload.chunk;
 
-import com.rapidphoto.domain.photo.Photo;
-import com.rapidphoto.domain.photo.PhotoRepository;
+import com.rapidphoto.features.upload.adaptive.ThroughputEstimator;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,19 +22,26 @@ public class ChunkController {
     private static final Logger logger = LoggerFactory.getLogger(ChunkController.class);
 
     private final ChunkUploadService chunkUploadService;
-    private final PhotoRepository photoRepository;
+    private final ChunkSessionRegistry sessionRegistry;
 
-    public ChunkController(ChunkUploadService chunkUploadService, PhotoRepository photoRepository) {
+    public ChunkController(ChunkUploadService chunkUploadService, ChunkSessionRegistry sessionRegistry) {
         this.chunkUploadService = chunkUploadService;
-        this.photoRepository = photoRepository;
+        this.sessionRegistry = sessionRegistry;
     }
 
+    /**
+     * Multipart chunk upload. The part has been parsed to a temp file before this runs, so
+     * reading it says nothing about the client's link: these chunks are not sampled by the
+     * {@link ThroughputEstimator}. Clients that want adaptive chunk sizes use the raw
+     * PUT /api/upload/{photoId}/chunk/{chunkNumber} endpoint.
+     */
     @PostMapping
     public ResponseEntity<ChunkUploadResponse> uploadChunk(
             @RequestParam("photoId") UUID photoId,
             @RequestParam("chunkNumber") Integer chunkNumber,
             @RequestParam("totalChunks") Integer totalChunks,
-            @RequestParam("file") MultipartFile file) {
+            @RequestParam("file") MultipartFile file,
+            HttpServletRequest httpRequest) {
         
         // Get authenticated user ID
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -44,11 +51,10 @@ public class ChunkController {
         
         UUID userId = UUID.fromString(authentication.getName());
         
-        // Verify photo ownership
-        Photo photo = photoRepository.findById(photoId)
-            .orElseThrow(() -> new IllegalArgumentException("Photo not found: " + photoId));
+        // Verify photo ownership (owner is cached on the chunk session)
+        ChunkSession session = sessionRegistry.getOrLoad(photoId, totalChunks);
         
-        if (!photo.getUserId().getValue().equals(userId)) {
+        if (!session.getUserId().equals(userId)) {
             logger.warn("Unauthorized chunk upload attempt: userId={}, photoId={}", userId, photoId);
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
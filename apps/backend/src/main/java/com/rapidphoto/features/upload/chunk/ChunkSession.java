@@ -0,0 +1,241 @@
+package com.rapidphoto.features.upload.chunk;
+
+import com.rapidphoto.features.photo.ImageHeader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory state of one chunked upload. Chunk receipt is tracked in a lock-free
+ * bitmap so concurrent chunk requests for the same photo never touch the database.
+ */
+public class ChunkSession {
+
+    private final UUID photoId;
+    private final UUID userId;
+    private final String storagePath;
+    private final String multipartUploadId;
+    private final long expectedSize;
+    private final int totalChunks;
+    // Negotiated chunk size, 0 if the upload uses client-chosen chunking
+    private final long chunkSize;
+
+    private final AtomicLongArray bitmap;
+    private final AtomicInteger receivedChunks = new AtomicInteger();
+    private final AtomicBoolean assemblyTriggered = new AtomicBoolean();
+
+    // Bumped on every change; the write-behind flush persists when it moves past flushedVersion
+    private final AtomicLong version = new AtomicLong();
+    private volatile long flushedVersion;
+    private volatile long lastAccessMillis = System.currentTimeMillis();
+
+    // Dimensions/EXIF parsed from chunk 0 while it streamed to storage
+    private volatile ImageHeader header;
+
+    public ChunkSession(UUID photoId, UUID userId, String storagePath, String multipartUploadId,
+                        long expectedSize, int totalChunks) {
+        this(photoId, userId, storagePath, multipartUploadId, expectedSize, totalChunks, 0);
+    }
+
+    public ChunkSession(UUID photoId, UUID userId, String storagePath, String multipartUploadId,
+                        long expectedSize, int totalChunks, long chunkSize) {
+        if (totalChunks <= 0) {
+            throw new IllegalArgumentException("totalChunks must be positive");
+        }
+        this.photoId = photoId;
+        this.userId = userId;
+        this.storagePath = storagePath;
+        this.multipartUploadId = multipartUploadId;
+        this.expectedSize = expectedSize;
+        this.totalChunks = totalChunks;
+        this.chunkSize = chunkSize;
+        this.bitmap = new AtomicLongArray((totalChunks + 63) >>> 6);
+    }
+
+    /**
+     * Mark a chunk as received
+     * @return true if this call set the bit, false if the chunk was already received
+     */
+    public boolean markReceived(int chunkNumber) {
+        checkRange(chunkNumber);
+        int word = chunkNumber >>> 6;
+        long mask = 1L << (chunkNumber & 63);
+        lastAccessMillis = System.currentTimeMillis();
+        while (true) {
+            long current = bitmap.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (bitmap.compareAndSet(word, current, current | mask)) {
+                receivedChunks.incrementAndGet();
+                version.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    public boolean isReceived(int chunkNumber) {
+        checkRange(chunkNumber);
+        return (bitmap.get(chunkNumber >>> 6) & (1L << (chunkNumber & 63))) != 0;
+    }
+
+    public boolean isComplete() {
+        return receivedChunks.get() == totalChunks;
+    }
+
+    /**
+     * Claim the right to start assembly - only the first caller after completion wins
+     */
+    public boolean tryStartAssembly() {
+        return isComplete() && assemblyTriggered.compareAndSet(false, true);
+    }
+
+    /**
+     * Undo {@link #tryStartAssembly()} when the assembly could not be scheduled, so a
+     * retried chunk can trigger it again
+     */
+    public void cancelAssembly() {
+        assemblyTriggered.set(false);
+    }
+
+    public boolean isAssemblyTriggered() {
+        return assemblyTriggered.get();
+    }
+
+    public List<Integer> getMissingChunks() {
+        List<Integer> missing = new ArrayList<>(totalChunks - receivedChunks.get());
+        for (int i = 0; i < totalChunks; i++) {
+            if (!isReceived(i)) {
+                missing.add(i);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Little-endian bitmap bytes (bit n of byte n/8 = chunk n) for persistence
+     */
+    public byte[] toBitmapBytes() {
+        byte[] bytes = new byte[(totalChunks + 7) >>> 3];
+        for (int i = 0; i < bytes.length; i++) {
+            long word = bitmap.get(i >>> 3);
+            bytes[i] = (byte) (word >>> ((i & 7) << 3));
+        }
+        return bytes;
+    }
+
+    /**
+     * Restore received chunks from persisted bitmap bytes
+     */
+    public void restoreBitmap(byte[] bytes) {
+        for (int i = 0; i < totalChunks && (i >>> 3) < bytes.length; i++) {
+            if ((bytes[i >>> 3] & (1 << (i & 7))) != 0) {
+                markReceived(i);
+            }
+        }
+        flushedVersion = version.get();
+    }
+
+    /**
+     * Add chunks recorded by other instances (merged persisted bitmap). They are already
+     * persisted, so unlike {@link #markReceived} this does not make the session dirty.
+     */
+    public void absorbBitmap(byte[] bytes) {
+        for (int i = 0; i < totalChunks && (i >>> 3) < bytes.length; i++) {
+            if ((bytes[i >>> 3] & (1 << (i & 7))) == 0) {
+                continue;
+            }
+            int word = i >>> 6;
+            long mask = 1L << (i & 63);
+            while (true) {
+                long current = bitmap.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+                if (bitmap.compareAndSet(word, current, current | mask)) {
+                    receivedChunks.incrementAndGet();
+                    break;
+                }
+            }
+        }
+    }
+
+    private void checkRange(int chunkNumber) {
+        if (chunkNumber < 0 || chunkNumber >= totalChunks) {
+            throw new IllegalArgumentException(
+                String.format("Chunk number %d out of range [0, %d)", chunkNumber, totalChunks));
+        }
+    }
+
+    long getVersion() {
+        return version.get();
+    }
+
+    boolean isDirty() {
+        return version.get() != flushedVersion;
+    }
+
+    void markFlushed(long flushed) {
+        this.flushedVersion = flushed;
+    }
+
+    long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    public ImageHeader getHeader() {
+        return header;
+    }
+
+    public void setHeader(ImageHeader header) {
+        this.header = header;
+    }
+
+    public UUID getPhotoId() {
+        return photoId;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public String getStoragePath() {
+        return storagePath;
+    }
+
+    public String getMultipartUploadId() {
+        return multipartUploadId;
+    }
+
+    public long getExpectedSize() {
+        return expectedSize;
+    }
+
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Byte length chunk {@code chunkNumber} must have, or -1 if chunking is client-chosen
+     */
+    public long getExpectedChunkLength(int chunkNumber) {
+        checkRange(chunkNumber);
+        if (chunkSize <= 0) {
+            return -1;
+        }
+        return Math.min(chunkSize, expectedSize - chunkNumber * chunkSize);
+    }
+
+    public int getTotalChunks() {
+        return totalChunks;
+    }
+
+    public int getReceivedChunks() {
+        return receivedChunks.get();
+    }
+}
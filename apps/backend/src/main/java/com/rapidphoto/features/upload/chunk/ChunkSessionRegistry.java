@@ -0,0 +1,182 @@
+package com.rapidphoto.features.upload.chunk;
+
+import com.rapidphoto.domain.photo.ChunkUploadState;
+import com.rapidphoto.domain.photo.ChunkUploadStateRepository;
+import com.rapidphoto.domain.photo.Photo;
+import com.rapidphoto.domain.photo.PhotoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Chunk sessions keyed by photoId. The photo is loaded once per upload; after that
+ * each chunk only flips a bit in memory. Bitmaps are persisted write-behind to
+ * chunk_upload_state so an upload can resume after a restart.
+ *
+ * Chunks of one upload may land on different instances. Each flush ORs the session's bitmap
+ * into the stored one under a row lock and takes the merged bits back, so no instance
+ * overwrites another's chunks and each learns what the others received. The instance whose
+ * merge completes the bitmap reports it through {@link #onComplete}, since no single
+ * instance saw the last chunk arrive.
+ */
+@Component
+public class ChunkSessionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkSessionRegistry.class);
+
+    private final Map<UUID, ChunkSession> sessions = new ConcurrentHashMap<>();
+
+    private final PhotoRepository photoRepository;
+    private final ChunkUploadStateRepository stateRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Consumer<ChunkSession> completionListener = session -> {};
+
+    @Value("${upload.chunk-session.idle-timeout-ms:3600000}")
+    private long idleTimeoutMillis;
+
+    public ChunkSessionRegistry(PhotoRepository photoRepository,
+                                ChunkUploadStateRepository stateRepository,
+                                TransactionTemplate transactionTemplate) {
+        this.photoRepository = photoRepository;
+        this.stateRepository = stateRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Get the session for a photo, loading it from the database on first use
+     * @param totalChunks Chunk count announced by the client (used when no state exists yet)
+     */
+    public ChunkSession getOrLoad(UUID photoId, int totalChunks) {
+        ChunkSession session = sessions.computeIfAbsent(photoId, id -> load(id, totalChunks));
+        if (session.getTotalChunks() != totalChunks) {
+            throw new IllegalArgumentException(String.format(
+                "Total chunks mismatch for photo %s: expected %d, got %d",
+                photoId, session.getTotalChunks(), totalChunks));
+        }
+        return session;
+    }
+
+    /**
+     * Register the callback for sessions a flush found complete after merging other instances' chunks
+     */
+    public void onComplete(Consumer<ChunkSession> listener) {
+        this.completionListener = listener;
+    }
+
+    public ChunkSession get(UUID photoId) {
+        return sessions.get(photoId);
+    }
+
+    /**
+     * Take in chunks other instances have persisted since the session was loaded
+     */
+    public void refresh(ChunkSession session) {
+        stateRepository.findById(session.getPhotoId())
+            .ifPresent(state -> session.absorbBitmap(state.getReceivedBitmap()));
+    }
+
+    /**
+     * Drop a finished upload's session and its persisted bitmap
+     */
+    public void remove(UUID photoId) {
+        sessions.remove(photoId);
+        if (stateRepository.existsById(photoId)) {
+            stateRepository.deleteById(photoId);
+        }
+    }
+
+    private ChunkSession load(UUID photoId, int totalChunks) {
+        Photo photo = photoRepository.findById(photoId)
+            .orElseThrow(() -> new IllegalArgumentException("Photo not found: " + photoId));
+
+        ChunkUploadState state = stateRepository.findById(photoId).orElse(null);
+
+        // A negotiated chunk size fixes the chunk count; otherwise the client's announcement is taken
+        Long chunkSize = photo.getChunkSizeBytes();
+        if (state == null && chunkSize != null) {
+            totalChunks = (int) Math.max(1, Math.ceil((double) photo.getFileSizeBytes() / chunkSize));
+        }
+
+        ChunkSession session = new ChunkSession(
+            photoId,
+            photo.getUserId().getValue(),
+            photo.getStorageInfo().getStoragePath(),
+            photo.getMultipartUploadId(),
+            photo.getFileSizeBytes(),
+            state != null ? state.getTotalChunks() : totalChunks,
+            chunkSize != null ? chunkSize : 0
+        );
+        if (state != null) {
+            session.restoreBitmap(state.getReceivedBitmap());
+            logger.info("Restored chunk session: photoId={}, received={}/{}",
+                photoId, session.getReceivedChunks(), session.getTotalChunks());
+        }
+        return session;
+    }
+
+    /**
+     * Write-behind: persist bitmaps that changed since the last flush and evict idle sessions
+     */
+    @Scheduled(fixedDelayString = "${upload.chunk-session.flush-interval-ms:2000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        for (ChunkSession session : sessions.values()) {
+            try {
+                // Completed uploads are removed by assembly; no point persisting them
+                if (session.isDirty() && !session.isAssemblyTriggered()) {
+                    persist(session);
+                }
+                if (now - session.getLastAccessMillis() > idleTimeoutMillis) {
+                    sessions.remove(session.getPhotoId(), session);
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to flush chunk session: {} - {}", session.getPhotoId(), e.getMessage());
+            }
+        }
+    }
+
+    private void persist(ChunkSession session) {
+        // Read the version before the bitmap so concurrent updates leave the session dirty
+        long version = session.getVersion();
+        byte[] bitmap = session.toBitmapBytes();
+
+        byte[] merged = transactionTemplate.execute(status -> {
+            ChunkUploadState state = stateRepository.findForUpdate(session.getPhotoId())
+                .orElseGet(() -> new ChunkUploadState(session.getPhotoId(), session.getTotalChunks()));
+            byte[] union = or(bitmap, state.getReceivedBitmap());
+            state.update(union, countBits(union));
+            stateRepository.save(state);
+            return union;
+        });
+        session.markFlushed(version);
+        session.absorbBitmap(merged);
+        if (session.isComplete()) {
+            completionListener.accept(session);
+        }
+    }
+
+    private static byte[] or(byte[] a, byte[] b) {
+        byte[] union = new byte[Math.max(a.length, b.length)];
+        for (int i = 0; i < union.length; i++) {
+            union[i] = (byte) ((i < a.length ? a[i] : 0) | (i < b.length ? b[i] : 0));
+        }
+        return union;
+    }
+
+    private static int countBits(byte[] bitmap) {
+        int count = 0;
+        for (byte b : bitmap) {
+            count += Integer.bitCount(b & 0xff);
+        }
+        return count;
+    }
+}
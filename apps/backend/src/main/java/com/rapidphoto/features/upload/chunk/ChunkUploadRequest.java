@@ -23,6 +23,9 @@ public class ChunkUploadRequest {
     
     private String checksum;
 
+    // Throughput-estimator key of the sender (set by the controller, null for server-side callers)
+    private String clientKey;
+
     // Constructors
     public ChunkUploadRequest() {}
 
@@ -41,5 +44,8 @@ public class ChunkUploadRequest {
     
     public String getChecksum() { return checksum; }
     public void setChecksum(String checksum) { this.checksum = checksum; }
+    
+    public String getClientKey() { return clientKey; }
+    public void setClientKey(String clientKey) { this.clientKey = clientKey; }
 }
 
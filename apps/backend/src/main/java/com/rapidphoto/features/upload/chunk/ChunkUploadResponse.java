@@ -12,6 +12,7 @@ public class ChunkUploadResponse {
     private Double progress;
     private List<Integer> missingChunks;
     private String message;
+    private String checksum;
 
     public ChunkUploadResponse() {}
 
@@ -49,5 +50,8 @@ public class ChunkUploadResponse {
     
     public String getMessage() { return message; }
     public void setMessage(String message) { this.message = message; }
+
+    public String getChecksum() { return checksum; }
+    public void setChecksum(String checksum) { this.checksum = checksum; }
 }
 
@@ -1,114 +1,177 @@
 package com.rapidphoto.features.upload.chunk;
 
-import com.rapidphoto.domain.photo.Photo;
 import com.rapidphoto.domain.photo.PhotoRepository;
-import com.rapidphoto.domain.photo.UploadChunk;
-import com.rapidphoto.domain.photo.UploadChunkRepository;
+import com.rapidphoto.domain.photo.PhotoStatus;
+import com.rapidphoto.features.upload.adaptive.ThroughputEstimator;
+import com.rapidphoto.features.upload.adaptive.TimedInputStream;
+import com.rapidphoto.features.upload.ingest.ChecksumAlgorithm;
+import com.rapidphoto.features.upload.ingest.IngestResult;
+import com.rapidphoto.features.upload.ingest.IngestService;
 import com.rapidphoto.features.upload.progress.ProgressBroadcastService;
+import com.rapidphoto.infrastructure.admission.InFlightByteBudget;
+import com.rapidphoto.infrastructure.scheduling.WorkTenant;
 import com.rapidphoto.infrastructure.storage.StorageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.security.MessageDigest;
-import java.util.List;
+import java.io.InputStream;
 import java.util.UUID;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 @Service
 public class ChunkUploadService {
 
     private static final Logger logger = LoggerFactory.getLogger(ChunkUploadService.class);
 
-    private final UploadChunkRepository chunkRepository;
-    private final PhotoRepository photoRepository;
+    private final ChunkSessionRegistry sessionRegistry;
     private final StorageService storageService;
     private final ChunkAssemblyService assemblyService;
     private final ProgressBroadcastService progressBroadcastService;
+    private final IngestService ingestService;
+    private final ThroughputEstimator throughputEstimator;
+    private final InFlightByteBudget admissionBudget;
+    private final PhotoRepository photoRepository;
 
-    @Value("${upload.chunk-size:5242880}")
-    private long chunkSize;
-
-    public ChunkUploadService(UploadChunkRepository chunkRepository,
-                             PhotoRepository photoRepository,
+    public ChunkUploadService(ChunkSessionRegistry sessionRegistry,
                              StorageService storageService,
                              ChunkAssemblyService assemblyService,
-                             ProgressBroadcastService progressBroadcastService) {
-        this.chunkRepository = chunkRepository;
-        this.photoRepository = photoRepository;
+                             ProgressBroadcastService progressBroadcastService,
+                             IngestService ingestService,
+                             ThroughputEstimator throughputEstimator,
+                             InFlightByteBudget admissionBudget,
+                             PhotoRepository photoRepository) {
+        this.sessionRegistry = sessionRegistry;
         this.storageService = storageService;
         this.assemblyService = assemblyService;
         this.progressBroadcastService = progressBroadcastService;
+        this.ingestService = ingestService;
+        this.throughputEstimator = throughputEstimator;
+        this.admissionBudget = admissionBudget;
+        this.photoRepository = photoRepository;
+        // Uploads whose last chunks landed on other instances complete during a flush
+        sessionRegistry.onComplete(this::assembleIfComplete);
     }
 
-    @Transactional
     public ChunkUploadResponse uploadChunk(ChunkUploadRequest request, MultipartFile file) {
+        try {
+            return uploadChunk(request, file.getInputStream(), file.getContentType(), file.getSize());
+        } catch (IOException e) {
+            logger.error("Failed to upload chunk: photoId={}, chunk={}", 
+                request.getPhotoId(), request.getChunkNumber(), e);
+            throw new RuntimeException("Chunk upload failed", e);
+        }
+    }
+
+    /**
+     * Store one chunk from a raw stream (multipart part or request body)
+     */
+    public ChunkUploadResponse uploadChunk(ChunkUploadRequest request, InputStream inputStream,
+                                           String contentType, long contentLength) {
         try {
             UUID photoId = request.getPhotoId();
             Integer chunkNumber = request.getChunkNumber();
 
-            // Validate photo exists
-            Photo photo = photoRepository.findById(photoId)
-                .orElseThrow(() -> new IllegalArgumentException("Photo not found: " + photoId));
+            // Validate photo exists (loaded once per upload, then served from memory)
+            ChunkSession session = sessionRegistry.getOrLoad(photoId, request.getTotalChunks());
 
             // Check if chunk already uploaded (idempotency)
-            if (chunkRepository.existsByPhotoIdAndChunkNumber(photoId, chunkNumber)) {
+            if (session.isReceived(chunkNumber)) {
                 logger.info("Chunk already uploaded: photoId={}, chunk={}", photoId, chunkNumber);
+                // The rest may have gone to other instances: pick up what they persisted
+                if (!session.isComplete()) {
+                    sessionRegistry.refresh(session);
+                }
+                // Retry of a last chunk whose assembly was turned away by a saturated executor,
+                // or whose other chunks were received elsewhere
+                if (session.tryStartAssembly()) {
+                    startAssembly(session);
+                }
                 return getUploadProgress(photoId, request.getTotalChunks());
             }
 
-            // Store chunk to temporary location
-            String chunkPath = String.format("%s/chunks/chunk_%d", photoId, chunkNumber);
-            String storageUrl = storageService.store(
-                chunkPath,
-                file.getInputStream(),
-                file.getContentType(),
-                file.getSize()
-            );
+            // Negotiated chunking: every chunk but the last has exactly the agreed size
+            long expectedLength = session.getExpectedChunkLength(chunkNumber);
+            if (expectedLength > 0 && contentLength >= 0 && contentLength != expectedLength) {
+                throw new IllegalArgumentException(String.format(
+                    "Chunk %d must be %d bytes, got %d", chunkNumber, expectedLength, contentLength));
+            }
 
-            // Calculate checksum if not provided
-            String checksum = request.getChecksum();
-            if (checksum == null) {
-                checksum = calculateChecksum(file.getBytes());
+            // Chunk 0 carries the file header - capture it so assembly never re-reads the original
+            boolean firstChunk = chunkNumber == 0;
+            // Link throughput is timed over the body bytes themselves (first to last)
+            TimedInputStream body = new TimedInputStream(inputStream);
+            IngestResult ingest;
+            try {
+                ingest = ingestService.ingest(
+                    body,
+                    ChecksumAlgorithm.CRC32C,
+                    firstChunk,
+                    in -> {
+                        if (session.getMultipartUploadId() != null) {
+                            // Write the chunk straight into the final object as a multipart part
+                            return storageService.uploadPart(
+                                session.getStoragePath(),
+                                session.getMultipartUploadId(),
+                                chunkNumber + 1,
+                                in,
+                                contentLength
+                            );
+                        }
+                        // Store chunk to temporary location
+                        String chunkPath = String.format("%s/chunks/chunk_%d", photoId, chunkNumber);
+                        return storageService.store(chunkPath, in, contentType, contentLength);
+                    }
+                );
+            } catch (IOException | RuntimeException e) {
+                throughputEstimator.recordFailure(request.getClientKey());
+                throw e;
+            }
+            // Client-supplied CRC32C must match what was stored; otherwise the chunk stays missing
+            // and the client re-sends it (the retry overwrites the same chunk/part)
+            if (request.getChecksum() != null && !request.getChecksum().equalsIgnoreCase(ingest.getChecksum())) {
+                throughputEstimator.recordFailure(request.getClientKey());
+                throw new IllegalArgumentException(String.format(
+                    "Checksum mismatch for chunk %d: expected %s, got %s",
+                    chunkNumber, request.getChecksum(), ingest.getChecksum()));
+            }
+            throughputEstimator.recordSuccess(
+                request.getClientKey(), ingest.getBytesRead(), body.getElapsedNanos());
+            if (firstChunk) {
+                session.setHeader(ingest.getHeader());
             }
 
-            // Save chunk metadata
-            UploadChunk chunk = new UploadChunk(UUID.randomUUID(), photoId, chunkNumber, file.getSize());
-            chunk.setChecksum(checksum);
-            chunk.markAsUploaded();
-            chunkRepository.save(chunk);
+            // Record the chunk (persisted write-behind by the registry)
+            session.markReceived(chunkNumber);
 
             logger.info("Chunk uploaded: photoId={}, chunk={}/{}, size={}", 
-                photoId, chunkNumber + 1, request.getTotalChunks(), file.getSize());
+                photoId, chunkNumber + 1, request.getTotalChunks(), contentLength);
 
             // Broadcast progress
             progressBroadcastService.broadcastChunkUploaded(
                 photoId,
                 chunkNumber,
-                file.getSize()
+                contentLength
             );
 
-            // Check if all chunks uploaded
-            long uploadedCount = chunkRepository.countByPhotoIdAndStatus(photoId, UploadChunk.ChunkStatus.UPLOADED);
+            int uploadedCount = session.getReceivedChunks();
             
             ChunkUploadResponse response = new ChunkUploadResponse(
                 photoId,
                 chunkNumber,
                 "SUCCESS",
-                (int) uploadedCount,
+                uploadedCount,
                 request.getTotalChunks()
             );
+            response.setChecksum(ingest.getChecksum());
 
-            if (uploadedCount == request.getTotalChunks()) {
-                // All chunks uploaded - trigger assembly
+            if (session.tryStartAssembly()) {
+                // All chunks uploaded - trigger assembly (exactly once, even with concurrent last chunks)
                 logger.info("All chunks uploaded for photo: {}, starting assembly", photoId);
                 progressBroadcastService.broadcastUploadCompleted(photoId);
-                assemblyService.assembleChunks(photoId, request.getTotalChunks());
+                startAssembly(session);
                 response.setStatus("COMPLETED");
                 response.setMessage("Upload completed. Assembling file.");
             } else {
@@ -125,48 +188,61 @@ public class ChunkUploadService {
         }
     }
 
+    private void assembleIfComplete(ChunkSession session) {
+        if (session.tryStartAssembly()) {
+            logger.info("All chunks received across instances for photo: {}, starting assembly",
+                session.getPhotoId());
+            startAssembly(session);
+        }
+    }
+
+    /**
+     * Hand a complete upload to the assembly executor. Local reassembly copies the whole file,
+     * so its size counts against the admission budget until done. If the executor is saturated
+     * the rejection propagates (503) and the trigger is reset, so re-sending any chunk retries it.
+     *
+     * Every instance holding the complete bitmap may get here; moving the photo from UPLOADING
+     * to PROCESSING is the claim, so only one of them assembles.
+     */
+    private void startAssembly(ChunkSession session) {
+        UUID photoId = session.getPhotoId();
+        if (photoRepository.transitionStatus(photoId, PhotoStatus.UPLOADING, PhotoStatus.PROCESSING) == 0) {
+            logger.info("Assembly already started elsewhere: photoId={}", photoId);
+            return;
+        }
+        long assemblyBytes = session.getMultipartUploadId() == null ? session.getExpectedSize() : 0;
+        admissionBudget.acquire(assemblyBytes);
+        try {
+            WorkTenant.run(session.getUserId(), session.getExpectedSize(), () ->
+                assemblyService.assembleChunks(photoId, session.getTotalChunks(), assemblyBytes));
+        } catch (TaskRejectedException e) {
+            admissionBudget.release(assemblyBytes);
+            photoRepository.transitionStatus(photoId, PhotoStatus.PROCESSING, PhotoStatus.UPLOADING);
+            session.cancelAssembly();
+            logger.warn("Assembly rejected, upload executor saturated: photoId={}", session.getPhotoId());
+            throw e;
+        }
+    }
+
     public ChunkUploadResponse getUploadProgress(UUID photoId, Integer totalChunks) {
-        long uploadedCount = chunkRepository.countByPhotoIdAndStatus(photoId, UploadChunk.ChunkStatus.UPLOADED);
-        
-        // Find missing chunks
-        List<UploadChunk> uploadedChunks = chunkRepository.findByPhotoIdOrderByChunkNumberAsc(photoId);
-        List<Integer> uploadedNumbers = uploadedChunks.stream()
-            .map(UploadChunk::getChunkNumber)
-            .collect(Collectors.toList());
-        
-        List<Integer> missingChunks = IntStream.range(0, totalChunks)
-            .filter(i -> !uploadedNumbers.contains(i))
-            .boxed()
-            .collect(Collectors.toList());
+        ChunkSession session = sessionRegistry.getOrLoad(photoId, totalChunks);
+        if (!session.isComplete()) {
+            sessionRegistry.refresh(session);
+        }
+        // Other instances may have received the rest; whoever notices completion starts assembly
+        assembleIfComplete(session);
+        int uploadedCount = session.getReceivedChunks();
 
         ChunkUploadResponse response = new ChunkUploadResponse(
             photoId,
             null,
             "IN_PROGRESS",
-            (int) uploadedCount,
+            uploadedCount,
             totalChunks
         );
-        response.setMissingChunks(missingChunks);
+        response.setMissingChunks(session.getMissingChunks());
         response.setMessage(String.format("%d/%d chunks uploaded", uploadedCount, totalChunks));
         
         return response;
     }
-
-    private String calculateChecksum(byte[] data) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(data);
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (Exception e) {
-            logger.warn("Failed to calculate checksum", e);
-            return null;
-        }
-    }
 }
-
@@ -0,0 +1,29 @@
+package com.rapidphoto.features.upload.content;
+
+/**
+ * Outcome of handing freshly uploaded bytes to the content store
+ */
+public class ContentAdoption {
+
+    private final String storagePath;
+    private final boolean duplicate;
+
+    public ContentAdoption(String storagePath, boolean duplicate) {
+        this.storagePath = storagePath;
+        this.duplicate = duplicate;
+    }
+
+    /**
+     * Content-addressed path the photo should point at
+     */
+    public String getStoragePath() {
+        return storagePath;
+    }
+
+    /**
+     * True if identical content was already stored and the upload was discarded
+     */
+    public boolean isDuplicate() {
+        return duplicate;
+    }
+}
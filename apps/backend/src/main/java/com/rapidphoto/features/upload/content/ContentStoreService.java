@@ -0,0 +1,195 @@
+package com.rapidphoto.features.upload.content;
+
+import com.rapidphoto.domain.photo.ContentObject;
+import com.rapidphoto.domain.photo.ContentObjectRepository;
+import com.rapidphoto.domain.photo.Photo;
+import com.rapidphoto.domain.photo.PhotoMetadata;
+import com.rapidphoto.domain.photo.PhotoRepository;
+import com.rapidphoto.domain.photo.PhotoStatus;
+import com.rapidphoto.domain.photo.StorageInfo;
+import com.rapidphoto.features.upload.ingest.ChecksumAlgorithm;
+import com.rapidphoto.features.upload.ingest.IngestInputStream;
+import com.rapidphoto.infrastructure.storage.StorageException;
+import com.rapidphoto.infrastructure.storage.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Content-addressed originals: each distinct SHA-256 is stored once under
+ * originals/{ab}/{sha256} and reference-counted by the photos that use it.
+ */
+@Service
+public class ContentStoreService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentStoreService.class);
+    private static final int MAX_ADOPT_ATTEMPTS = 3;
+
+    private final ContentObjectRepository contentObjectRepository;
+    private final PhotoRepository photoRepository;
+    private final StorageService storageService;
+    private final TransactionTemplate transactionTemplate;
+
+    public ContentStoreService(ContentObjectRepository contentObjectRepository,
+                               PhotoRepository photoRepository,
+                               StorageService storageService,
+                               TransactionTemplate transactionTemplate) {
+        this.contentObjectRepository = contentObjectRepository;
+        this.photoRepository = photoRepository;
+        this.storageService = storageService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Take ownership of bytes just stored at {@code uploadedPath}. If the content is already
+     * known the upload is deleted and a reference is taken on the existing object; otherwise
+     * the upload is moved to its content-addressed path.
+     */
+    public ContentAdoption adopt(String uploadedPath, String sha256, long sizeBytes, String mimeType) {
+        String contentPath = ContentObject.storagePathFor(sha256);
+
+        for (int attempt = 0; attempt < MAX_ADOPT_ATTEMPTS; attempt++) {
+            if (contentObjectRepository.incrementRefCount(sha256) == 1) {
+                storageService.delete(uploadedPath);
+                logger.info("Deduplicated upload: sha256={}, discarded={}", sha256, uploadedPath);
+                return new ContentAdoption(contentPath, true);
+            }
+
+            try {
+                register(uploadedPath, sha256, contentPath, sizeBytes, mimeType);
+            } catch (DataIntegrityViolationException e) {
+                // Lost the race to another upload of the same content - take a reference instead
+                continue;
+            }
+            return new ContentAdoption(contentPath, false);
+        }
+        throw new IllegalStateException("Could not register content " + sha256);
+    }
+
+    /**
+     * Insert the row and move the upload into place in one transaction. Row first: a concurrent
+     * release holding the row lock makes the insert wait until its delete (and object removal)
+     * has committed. Until the move has succeeded the row is uncommitted, so no concurrent
+     * upload can take a reference on an object that is not there, and a failed move rolls
+     * the row back instead of leaving it pointing at nothing.
+     */
+    private void register(String uploadedPath, String sha256, String contentPath, long sizeBytes, String mimeType) {
+        transactionTemplate.executeWithoutResult(status -> {
+            contentObjectRepository.saveAndFlush(new ContentObject(sha256, contentPath, sizeBytes, mimeType));
+            storageService.move(uploadedPath, contentPath);
+        });
+    }
+
+    /**
+     * SHA-256 of an object already in storage, for uploads whose bytes never passed through an
+     * ingest stream in order (chunks stitched into place, direct-to-storage uploads)
+     */
+    public String hashStored(String path) {
+        try (IngestInputStream in = new IngestInputStream(storageService.retrieve(path), ChecksumAlgorithm.SHA256, 0)) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return in.getChecksum();
+        } catch (IOException e) {
+            throw new StorageException("Failed to hash stored object: " + path, e);
+        }
+    }
+
+    /**
+     * Take a reference on existing content without uploading anything
+     * @return content-addressed path, or empty if the content is unknown
+     */
+    public Optional<String> acquire(String sha256) {
+        if (contentObjectRepository.incrementRefCount(sha256) == 1) {
+            return Optional.of(ContentObject.storagePathFor(sha256));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Completed photo with the same content whose renditions can be reused
+     */
+    public Optional<Photo> findRenditionDonor(String sha256) {
+        return photoRepository.findFirstByChecksumSha256AndStatusAndThumbnailSmallUrlIsNotNullOrderByUploadedAtAsc(
+            sha256, PhotoStatus.COMPLETED);
+    }
+
+    /**
+     * Copy content-derived state (dimensions, EXIF, rendition paths) from a donor photo.
+     * User-specific state (tags, AI tags, other metadata) is not copied.
+     */
+    public void copyRenditions(Photo donor, Photo target) {
+        target.setWidth(donor.getWidth());
+        target.setHeight(donor.getHeight());
+
+        PhotoMetadata donorMetadata = donor.getPhotoMetadata();
+        PhotoMetadata targetMetadata = target.getPhotoMetadata();
+        Map<String, Object> metadata = targetMetadata != null && targetMetadata.getMetadata() != null
+            ? new HashMap<>(targetMetadata.getMetadata())
+            : new HashMap<>();
+        if (donorMetadata != null && donorMetadata.getMetadata() != null
+                && donorMetadata.getMetadata().containsKey("thumbnails")) {
+            metadata.put("thumbnails", donorMetadata.getMetadata().get("thumbnails"));
+        }
+        target.setPhotoMetadata(new PhotoMetadata(
+            metadata,
+            donorMetadata != null ? donorMetadata.getExifData() : null,
+            targetMetadata != null ? targetMetadata.getAiTags() : null,
+            donorMetadata != null ? donorMetadata.getLocationLat() : null,
+            donorMetadata != null ? donorMetadata.getLocationLon() : null,
+            donorMetadata != null ? donorMetadata.getTakenAt() : null
+        ));
+
+        target.setThumbnailSmallUrl(donor.getThumbnailSmallUrl());
+        target.setThumbnailMediumUrl(donor.getThumbnailMediumUrl());
+        target.setThumbnailLargeUrl(donor.getThumbnailLargeUrl());
+    }
+
+    /**
+     * Point a photo at content-addressed storage
+     */
+    public void linkPhoto(Photo photo, String sha256, String contentPath) {
+        StorageInfo current = photo.getStorageInfo();
+        photo.setStorageInfo(new StorageInfo(contentPath, current.getStorageType(),
+            current.getS3Bucket(), current.getS3Key() != null ? contentPath : null));
+        photo.setChecksumSha256(sha256);
+    }
+
+    /**
+     * Drop a deleted photo's reference; the object is removed with its last reference.
+     * No-op for photos not stored content-addressed.
+     */
+    @Transactional
+    public void release(Photo photo) {
+        String sha256 = photo.getChecksumSha256();
+        if (sha256 == null
+                || !ContentObject.storagePathFor(sha256).equals(photo.getStorageInfo().getStoragePath())) {
+            return;
+        }
+        releaseReference(sha256);
+    }
+
+    /**
+     * Drop one reference taken by {@link #adopt} or {@link #acquire}
+     */
+    @Transactional
+    public void releaseReference(String sha256) {
+        contentObjectRepository.findForUpdate(sha256).ifPresent(content -> {
+            content.decrementRefCount();
+            if (content.getRefCount() == 0) {
+                storageService.delete(content.getStoragePath());
+                contentObjectRepository.delete(content);
+                logger.info("Released last reference, deleted content: sha256={}", sha256);
+            } else {
+                contentObjectRepository.save(content);
+            }
+        });
+    }
+}
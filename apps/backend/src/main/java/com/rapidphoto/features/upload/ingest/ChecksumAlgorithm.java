@@ -0,0 +1,8 @@
+package com.rapidphoto.features.upload.ingest;
+
+public enum ChecksumAlgorithm {
+    /** Whole-file content hash (dedupe, integrity of originals) */
+    SHA256,
+    /** Cheap hardware-accelerated check for individual chunks */
+    CRC32C
+}
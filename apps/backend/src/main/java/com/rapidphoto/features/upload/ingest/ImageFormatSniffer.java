@@ -0,0 +1,57 @@
+package com.rapidphoto.features.upload.ingest;
+
+/**
+ * Detects the image type from magic bytes rather than trusting the client's Content-Type
+ */
+public final class ImageFormatSniffer {
+
+    private ImageFormatSniffer() {}
+
+    /**
+     * @return MIME type of the image, or null if the bytes are not a recognised image format
+     */
+    public static String detectMimeType(byte[] header, int length) {
+        if (length >= 3 && u(header[0]) == 0xFF && u(header[1]) == 0xD8 && u(header[2]) == 0xFF) {
+            return "image/jpeg";
+        }
+        if (length >= 8 && u(header[0]) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G'
+                && header[4] == 0x0D && header[5] == 0x0A && header[6] == 0x1A && header[7] == 0x0A) {
+            return "image/png";
+        }
+        if (length >= 6 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8') {
+            return "image/gif";
+        }
+        if (length >= 12 && ascii(header, 0, "RIFF") && ascii(header, 8, "WEBP")) {
+            return "image/webp";
+        }
+        if (length >= 4 && ((header[0] == 'I' && header[1] == 'I' && header[2] == 42 && header[3] == 0)
+                || (header[0] == 'M' && header[1] == 'M' && header[2] == 0 && header[3] == 42))) {
+            return "image/tiff";
+        }
+        if (length >= 2 && header[0] == 'B' && header[1] == 'M') {
+            return "image/bmp";
+        }
+        if (length >= 12 && ascii(header, 4, "ftyp")) {
+            if (ascii(header, 8, "avif") || ascii(header, 8, "avis")) {
+                return "image/avif";
+            }
+            if (ascii(header, 8, "heic") || ascii(header, 8, "heix") || ascii(header, 8, "mif1") || ascii(header, 8, "msf1")) {
+                return "image/heic";
+            }
+        }
+        return null;
+    }
+
+    private static int u(byte b) {
+        return b & 0xFF;
+    }
+
+    private static boolean ascii(byte[] header, int offset, String expected) {
+        for (int i = 0; i < expected.length(); i++) {
+            if (header[offset + i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
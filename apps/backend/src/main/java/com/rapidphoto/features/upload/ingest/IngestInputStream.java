@@ -0,0 +1,125 @@
+package com.rapidphoto.features.upload.ingest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+/**
+ * Tee over an upload stream: every byte the consumer reads is checksummed and the
+ * first {@code prefixCapacity} bytes are kept for format sniffing and header parsing,
+ * so a single read of the request body feeds both storage and metadata.
+ */
+public class IngestInputStream extends FilterInputStream {
+
+    private final ChecksumAlgorithm algorithm;
+    private final MessageDigest digest;
+    private final Checksum crc;
+    private final byte[] prefix;
+    private final byte[] single = new byte[1];
+    private int prefixLength;
+    private long bytesRead;
+    private String checksum;
+
+    public IngestInputStream(InputStream in, ChecksumAlgorithm algorithm, int prefixCapacity) {
+        super(in);
+        this.algorithm = algorithm;
+        this.prefix = new byte[prefixCapacity];
+        if (algorithm == ChecksumAlgorithm.SHA256) {
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+            this.crc = null;
+        } else {
+            this.digest = null;
+            this.crc = new CRC32C();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            single[0] = (byte) b;
+            update(single, 0, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            update(b, off, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // Skipped bytes would be missing from the checksum - read them instead
+        byte[] buffer = new byte[8192];
+        long remaining = n;
+        while (remaining > 0) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                break;
+            }
+            remaining -= read;
+        }
+        return n - remaining;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void update(byte[] b, int off, int len) {
+        if (digest != null) {
+            digest.update(b, off, len);
+        } else {
+            crc.update(b, off, len);
+        }
+        if (prefixLength < prefix.length) {
+            int copy = Math.min(len, prefix.length - prefixLength);
+            System.arraycopy(b, off, prefix, prefixLength, copy);
+            prefixLength += copy;
+        }
+        bytesRead += len;
+    }
+
+    /**
+     * Hex checksum of the stream; call once the consumer has finished reading
+     */
+    public String getChecksum() {
+        if (checksum == null) {
+            checksum = digest != null
+                ? HexFormat.of().formatHex(digest.digest())
+                : String.format("%08x", crc.getValue());
+        }
+        return checksum;
+    }
+
+    public ChecksumAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public byte[] getPrefix() {
+        return prefix;
+    }
+
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+}
@@ -0,0 +1,59 @@
+package com.rapidphoto.features.upload.ingest;
+
+import com.rapidphoto.features.photo.ImageHeader;
+
+/**
+ * Everything learned while streaming an upload into storage
+ */
+public class IngestResult {
+
+    private final String location;
+    private final String checksum;
+    private final ChecksumAlgorithm algorithm;
+    private final long bytesRead;
+    private final String detectedMimeType;
+    private final ImageHeader header;
+
+    public IngestResult(String location, String checksum, ChecksumAlgorithm algorithm, long bytesRead,
+                        String detectedMimeType, ImageHeader header) {
+        this.location = location;
+        this.checksum = checksum;
+        this.algorithm = algorithm;
+        this.bytesRead = bytesRead;
+        this.detectedMimeType = detectedMimeType;
+        this.header = header;
+    }
+
+    /**
+     * Value returned by the sink (storage URL, part ETag, ...)
+     */
+    public String getLocation() {
+        return location;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public ChecksumAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * MIME type from magic bytes, null if not a recognised image
+     */
+    public String getDetectedMimeType() {
+        return detectedMimeType;
+    }
+
+    /**
+     * Dimensions/EXIF parsed from the header prefix, null if not captured
+     */
+    public ImageHeader getHeader() {
+        return header;
+    }
+}
@@ -0,0 +1,65 @@
+package com.rapidphoto.features.upload.ingest;
+
+import com.rapidphoto.features.photo.ImageHeader;
+import com.rapidphoto.features.photo.ImageMetadataExtractor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Single-pass ingest: the upload stream is read exactly once by the storage backend
+ * while checksum, format detection and header capture happen on the same bytes.
+ */
+@Service
+public class IngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestService.class);
+
+    // Enough for EXIF (APP1 is capped at 64KB) plus ICC/MPF segments before the JPEG SOF marker
+    static final int HEADER_PREFIX_SIZE = 256 * 1024;
+
+    private final ImageMetadataExtractor metadataExtractor;
+
+    public IngestService(ImageMetadataExtractor metadataExtractor) {
+        this.metadataExtractor = metadataExtractor;
+    }
+
+    /**
+     * Consumer that writes the stream to its destination (storage put, multipart part, ...)
+     * and returns where it ended up (storage URL, part ETag, ...)
+     */
+    @FunctionalInterface
+    public interface Sink {
+        String write(InputStream inputStream) throws IOException;
+    }
+
+    /**
+     * Stream {@code inputStream} into {@code sink}, computing the checksum as bytes pass through
+     * @param captureHeader Whether to keep the leading bytes and parse image headers from them
+     *                      (only meaningful for the first bytes of a file)
+     */
+    public IngestResult ingest(InputStream inputStream, ChecksumAlgorithm algorithm,
+                               boolean captureHeader, Sink sink) throws IOException {
+        IngestInputStream tee = new IngestInputStream(inputStream, algorithm, captureHeader ? HEADER_PREFIX_SIZE : 0);
+        String location = sink.write(tee);
+
+        String checksum = tee.getChecksum();
+        String detectedMimeType = null;
+        ImageHeader header = null;
+        if (captureHeader && tee.getPrefixLength() > 0) {
+            detectedMimeType = ImageFormatSniffer.detectMimeType(tee.getPrefix(), tee.getPrefixLength());
+            if (detectedMimeType != null) {
+                header = metadataExtractor.parseHeader(tee.getPrefix(), tee.getPrefixLength());
+            }
+        }
+
+        logger.debug("Ingested {} bytes: {}={}, type={}, dimensions={}",
+            tee.getBytesRead(), algorithm, checksum, detectedMimeType,
+            header != null && header.hasDimensions() ? header.getWidth() + "x" + header.getHeight() : "unknown");
+
+        return new IngestResult(location, checksum, algorithm, tee.getBytesRead(), detectedMimeType, header);
+    }
+}
@@ -0,0 +1,162 @@
+package com.rapidphoto.features.upload.resumable;
+
+import com.rapidphoto.domain.exceptions.UploadOffsetConflictException;
+import com.rapidphoto.features.upload.UploadPhotoResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Resumable uploads following the tus 1.0 core protocol: POST creates an upload of
+ * Upload-Length bytes, HEAD reports the committed Upload-Offset, PATCH appends at it.
+ * Upload-Metadata keys: filename, filetype, sha256 (hex), each base64-encoded.
+ */
+@RestController
+@RequestMapping("/api/upload/resumable")
+@CrossOrigin(origins = "http://localhost:3000",
+    exposedHeaders = {"Location", "Upload-Offset", "Upload-Length", "Tus-Resumable"})
+public class ResumableUploadController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumableUploadController.class);
+
+    static final String TUS_VERSION = "1.0.0";
+    static final String OFFSET_OCTET_STREAM = "application/offset+octet-stream";
+
+    private final ResumableUploadService resumableUploadService;
+
+    public ResumableUploadController(ResumableUploadService resumableUploadService) {
+        this.resumableUploadService = resumableUploadService;
+    }
+
+    /**
+     * Create an upload; Location points at the upload resource
+     */
+    @PostMapping
+    public ResponseEntity<UploadPhotoResponse> create(
+            @RequestHeader("Upload-Length") long uploadLength,
+            @RequestHeader(value = "Upload-Metadata", required = false) String uploadMetadata) {
+
+        UUID userId = currentUserId();
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (uploadLength <= 0) {
+            return ResponseEntity.badRequest().body(
+                new UploadPhotoResponse(null, null, "ERROR", "Upload-Length must be positive"));
+        }
+
+        Map<String, String> metadata = parseMetadata(uploadMetadata);
+        String fileName = metadata.getOrDefault("filename", "upload");
+        String mimeType = metadata.get("filetype");
+        if (mimeType == null) {
+            mimeType = URLConnection.guessContentTypeFromName(fileName);
+            if (mimeType == null) {
+                mimeType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+            }
+        }
+
+        logger.info("Resumable upload create: userId={}, fileName={}, length={}", userId, fileName, uploadLength);
+
+        UploadPhotoResponse response = resumableUploadService.create(
+            userId, fileName, mimeType, uploadLength, metadata.get("sha256"));
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity
+            .created(URI.create("/api/upload/resumable/" + response.getPhotoId()))
+            .header("Tus-Resumable", TUS_VERSION);
+        if ("ALREADY_PRESENT".equals(response.getStatus())) {
+            builder.header("Upload-Offset", String.valueOf(uploadLength));
+        }
+        return builder.body(response);
+    }
+
+    @RequestMapping(value = "/{photoId}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> head(@PathVariable UUID photoId) {
+        UUID userId = currentUserId();
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        ResumableUploadState state = resumableUploadService.getState(userId, photoId);
+        return ResponseEntity.ok()
+            .header("Tus-Resumable", TUS_VERSION)
+            .header("Upload-Offset", String.valueOf(state.getOffset()))
+            .header("Upload-Length", String.valueOf(state.getLength()))
+            .header("Cache-Control", "no-store")
+            .build();
+    }
+
+    @PatchMapping(value = "/{photoId}", consumes = OFFSET_OCTET_STREAM)
+    public ResponseEntity<Void> append(
+            @PathVariable UUID photoId,
+            @RequestHeader("Upload-Offset") long uploadOffset,
+            HttpServletRequest request) throws IOException {
+
+        UUID userId = currentUserId();
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        try {
+            ResumableUploadState state = resumableUploadService.append(
+                userId, photoId, uploadOffset, request.getContentLengthLong(), request.getInputStream());
+            return ResponseEntity.noContent()
+                .header("Tus-Resumable", TUS_VERSION)
+                .header("Upload-Offset", String.valueOf(state.getOffset()))
+                .build();
+        } catch (UploadOffsetConflictException e) {
+            logger.info("Resumable upload conflict: photoId={}, {}", photoId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header("Tus-Resumable", TUS_VERSION)
+                .header("Upload-Offset", String.valueOf(e.getCommittedOffset()))
+                .build();
+        }
+    }
+
+    private UUID currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return UUID.fromString(authentication.getName());
+    }
+
+    /**
+     * Upload-Metadata: comma-separated "key base64(value)" pairs
+     */
+    static Map<String, String> parseMetadata(String header) {
+        Map<String, String> metadata = new HashMap<>();
+        if (header == null || header.isBlank()) {
+            return metadata;
+        }
+        for (String pair : header.split(",")) {
+            String[] parts = pair.trim().split(" ", 2);
+            if (parts[0].isEmpty()) {
+                continue;
+            }
+            try {
+                String value = parts.length > 1
+                    ? new String(Base64.getDecoder().decode(parts[1].trim()), StandardCharsets.UTF_8)
+                    : "";
+                metadata.put(parts[0], value);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid Upload-Metadata value for key: " + parts[0]);
+            }
+        }
+        return metadata;
+    }
+}
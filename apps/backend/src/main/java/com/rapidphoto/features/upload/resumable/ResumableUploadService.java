@@ -0,0 +1,262 @@
+package com.rapidphoto.features.upload.resumable;
+
+import com.rapidphoto.domain.exceptions.UploadOffsetConflictException;
+import com.rapidphoto.domain.photo.Photo;
+import com.rapidphoto.domain.photo.PhotoRepository;
+import com.rapidphoto.domain.photo.PhotoStatus;
+import com.rapidphoto.features.upload.UploadPhotoRequest;
+import com.rapidphoto.features.upload.UploadPhotoResponse;
+import com.rapidphoto.features.upload.UploadService;
+import com.rapidphoto.features.upload.chunk.ChunkSession;
+import com.rapidphoto.features.upload.chunk.ChunkSessionRegistry;
+import com.rapidphoto.features.upload.chunk.ChunkUploadRequest;
+import com.rapidphoto.features.upload.chunk.ChunkUploadService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Offset-based resumable uploads (tus-style create / HEAD / PATCH) on top of the chunk layer.
+ * Bytes of the chunk currently being filled are spooled to local disk, so an interrupted
+ * request keeps everything it delivered; each chunk is handed to {@link ChunkUploadService}
+ * once complete. The committed offset is derived from the chunk session plus the spool,
+ * nothing else is tracked.
+ */
+@Service
+public class ResumableUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumableUploadService.class);
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final UploadService uploadService;
+    private final ChunkUploadService chunkUploadService;
+    private final ChunkSessionRegistry sessionRegistry;
+    private final PhotoRepository photoRepository;
+
+    // One appender per upload at a time
+    private final Map<UUID, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    @Value("${upload.chunk-size:5242880}")
+    private long defaultChunkSize;
+
+    @Value("${upload.resumable.spool-dir:${java.io.tmpdir}/rapidphoto-resumable}")
+    private String spoolDir;
+
+    @Value("${upload.resumable.spool-ttl-ms:86400000}")
+    private long spoolTtlMs;
+
+    public ResumableUploadService(UploadService uploadService,
+                                  ChunkUploadService chunkUploadService,
+                                  ChunkSessionRegistry sessionRegistry,
+                                  PhotoRepository photoRepository) {
+        this.uploadService = uploadService;
+        this.chunkUploadService = chunkUploadService;
+        this.sessionRegistry = sessionRegistry;
+        this.photoRepository = photoRepository;
+    }
+
+    /**
+     * Create an upload of {@code length} bytes. Goes through the regular initialize path,
+     * so quota, multipart and instant-upload handling are shared with chunked uploads.
+     */
+    public UploadPhotoResponse create(UUID userId, String fileName, String mimeType, long length,
+                                      String checksumSha256) {
+        if (checksumSha256 != null && !checksumSha256.matches("^[0-9a-fA-F]{64}$")) {
+            throw new IllegalArgumentException("SHA-256 checksum must be 64 hex characters");
+        }
+        UploadPhotoRequest request = new UploadPhotoRequest(userId, fileName, mimeType, length);
+        request.setChecksumSha256(checksumSha256);
+        return uploadService.initializeUpload(request);
+    }
+
+    public ResumableUploadState getState(UUID userId, UUID photoId) {
+        Photo photo = loadOwned(userId, photoId);
+        return new ResumableUploadState(photoId, committedOffset(photo), photo.getFileSizeBytes());
+    }
+
+    /**
+     * Append the body at {@code offset}, which must equal the committed offset.
+     * A body cut short (client gone mid-request) still commits what arrived.
+     * @param contentLength declared body length, or -1 if unknown
+     * @return state after the append
+     */
+    public ResumableUploadState append(UUID userId, UUID photoId, long offset, long contentLength,
+                                       InputStream body) {
+        Photo photo = loadOwned(userId, photoId);
+        long length = photo.getFileSizeBytes();
+        long chunkSize = chunkSizeOf(photo);
+        if (contentLength >= 0 && offset + contentLength > length) {
+            throw new IllegalArgumentException("Request body exceeds Upload-Length " + length);
+        }
+
+        ReentrantLock lock = locks.computeIfAbsent(photoId, id -> new ReentrantLock());
+        if (!lock.tryLock()) {
+            throw new UploadOffsetConflictException("Upload is being appended by another request", offset);
+        }
+        boolean completed = false;
+        try {
+            long committed = committedOffset(photo);
+            if (offset != committed) {
+                throw new UploadOffsetConflictException(
+                    String.format("Upload-Offset %d does not match committed offset %d", offset, committed), committed);
+            }
+
+            int totalChunks = totalChunks(length, chunkSize);
+            int chunkNumber = (int) (offset / chunkSize);
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            boolean bodyEnded = false;
+
+            while (chunkNumber < totalChunks && !bodyEnded) {
+                long chunkLength = Math.min(chunkSize, length - chunkNumber * chunkSize);
+                Path spool = spoolPath(photoId, chunkNumber);
+                long spooled = Files.exists(spool) ? Files.size(spool) : 0;
+
+                try (FileChannel channel = FileChannel.open(spool,
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    while (spooled < chunkLength) {
+                        int read;
+                        try {
+                            read = body.read(buffer, 0, (int) Math.min(buffer.length, chunkLength - spooled));
+                        } catch (IOException e) {
+                            // Client went away - keep what was received
+                            logger.info("Resumable upload interrupted: photoId={}, offset={}",
+                                photoId, chunkNumber * chunkSize + spooled);
+                            read = -1;
+                        }
+                        if (read < 0) {
+                            bodyEnded = true;
+                            break;
+                        }
+                        ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+                        while (bytes.hasRemaining()) {
+                            channel.write(bytes);
+                        }
+                        spooled += read;
+                    }
+                    channel.force(false);
+                }
+
+                if (spooled < chunkLength) {
+                    break;
+                }
+
+                ChunkUploadRequest chunkRequest = new ChunkUploadRequest();
+                chunkRequest.setPhotoId(photoId);
+                chunkRequest.setChunkNumber(chunkNumber);
+                chunkRequest.setTotalChunks(totalChunks);
+                chunkRequest.setChunkSize(chunkLength);
+                try (InputStream in = Files.newInputStream(spool)) {
+                    chunkUploadService.uploadChunk(chunkRequest, in, photo.getMimeType(), chunkLength);
+                }
+                Files.deleteIfExists(spool);
+                chunkNumber++;
+            }
+
+            completed = chunkNumber >= totalChunks;
+            long newOffset = completed
+                ? length
+                : chunkNumber * chunkSize + spoolSize(photoId, chunkNumber);
+            logger.debug("Resumable append: photoId={}, offset {} -> {} of {}", photoId, offset, newOffset, length);
+            return new ResumableUploadState(photoId, newOffset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spool resumable upload " + photoId, e);
+        } finally {
+            if (completed) {
+                locks.remove(photoId, lock);
+            }
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove spool files of uploads abandoned mid-chunk
+     */
+    @Scheduled(fixedDelayString = "${upload.resumable.cleanup-interval-ms:600000}")
+    public void purgeAbandonedSpools() {
+        Path dir = Paths.get(spoolDir);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - spoolTtlMs;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.part")) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toMillis() < cutoff) {
+                    Files.deleteIfExists(file);
+                    logger.info("Purged abandoned resumable spool: {}", file.getFileName());
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to purge resumable spools: {}", e.getMessage());
+        }
+    }
+
+    private Photo loadOwned(UUID userId, UUID photoId) {
+        return photoRepository.findByIdAndUserId(photoId, userId)
+            .orElseThrow(() -> new IllegalArgumentException("Photo not found: " + photoId));
+    }
+
+    /**
+     * Bytes durably received: the contiguous run of stored chunks plus the spool of the next one
+     */
+    private long committedOffset(Photo photo) {
+        long length = photo.getFileSizeBytes();
+        if (photo.getStatus() != PhotoStatus.UPLOADING) {
+            return length;
+        }
+
+        long chunkSize = chunkSizeOf(photo);
+        int totalChunks = totalChunks(length, chunkSize);
+        ChunkSession session = sessionRegistry.getOrLoad(photo.getId().getValue(), totalChunks);
+        int contiguous = 0;
+        while (contiguous < totalChunks && session.isReceived(contiguous)) {
+            contiguous++;
+        }
+        if (contiguous >= totalChunks) {
+            return length;
+        }
+        return contiguous * chunkSize + spoolSize(photo.getId().getValue(), contiguous);
+    }
+
+    private long spoolSize(UUID photoId, int chunkNumber) {
+        try {
+            Path spool = spoolPath(photoId, chunkNumber);
+            return Files.exists(spool) ? Files.size(spool) : 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path spoolPath(UUID photoId, int chunkNumber) {
+        try {
+            Path dir = Files.createDirectories(Paths.get(spoolDir));
+            return dir.resolve(photoId + "." + chunkNumber + ".part");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create resumable spool directory " + spoolDir, e);
+        }
+    }
+
+    private long chunkSizeOf(Photo photo) {
+        return photo.getChunkSizeBytes() != null ? photo.getChunkSizeBytes() : defaultChunkSize;
+    }
+
+    private int totalChunks(long length, long chunkSize) {
+        return (int) Math.ceil((double) length / chunkSize);
+    }
+}
@@ -0,0 +1,35 @@
+package com.rapidphoto.features.upload.resumable;
+
+import java.util.UUID;
+
+/**
+ * Committed byte offset of a resumable upload
+ */
+public class ResumableUploadState {
+
+    private final UUID photoId;
+    private final long offset;
+    private final long length;
+
+    public ResumableUploadState(UUID photoId, long offset, long length) {
+        this.photoId = photoId;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public UUID getPhotoId() {
+        return photoId;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public boolean isComplete() {
+        return offset >= length;
+    }
+}
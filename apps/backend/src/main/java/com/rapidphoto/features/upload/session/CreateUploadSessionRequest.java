@@ -0,0 +1,56 @@
+package com.rapidphoto.features.upload.session;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.util.List;
+
+public class CreateUploadSessionRequest {
+
+    // Optional client-chosen idempotency key; generated when absent
+    private String sessionKey;
+
+    @NotEmpty(message = "At least one file is required")
+    @Valid
+    private List<FileEntry> files;
+
+    public CreateUploadSessionRequest() {}
+
+    public String getSessionKey() { return sessionKey; }
+    public void setSessionKey(String sessionKey) { this.sessionKey = sessionKey; }
+
+    public List<FileEntry> getFiles() { return files; }
+    public void setFiles(List<FileEntry> files) { this.files = files; }
+
+    public static class FileEntry {
+
+        @NotBlank(message = "Original file name is required")
+        private String originalFileName;
+
+        @NotBlank(message = "MIME type is required")
+        private String mimeType;
+
+        @NotNull(message = "File size is required")
+        @Positive(message = "File size must be positive")
+        private Long fileSizeBytes;
+
+        public FileEntry() {}
+
+        public FileEntry(String originalFileName, String mimeType, Long fileSizeBytes) {
+            this.originalFileName = originalFileName;
+            this.mimeType = mimeType;
+            this.fileSizeBytes = fileSizeBytes;
+        }
+
+        public String getOriginalFileName() { return originalFileName; }
+        public void setOriginalFileName(String originalFileName) { this.originalFileName = originalFileName; }
+
+        public String getMimeType() { return mimeType; }
+        public void setMimeType(String mimeType) { this.mimeType = mimeType; }
+
+        public Long getFileSizeBytes() { return fileSizeBytes; }
+        public void setFileSizeBytes(Long fileSizeBytes) { this.fileSizeBytes = fileSizeBytes; }
+    }
+}
@@ -0,0 +1,69 @@
+package com.rapidphoto.features.upload.session;
+
+import com.rapidphoto.features.upload.adaptive.ThroughputEstimator;
+import com.rapidphoto.infrastructure.web.ClientIpResolver;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/upload/sessions")
+@CrossOrigin(origins = "http://localhost:3000")
+public class UploadSessionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadSessionController.class);
+
+    private final UploadSessionService uploadSessionService;
+
+    public UploadSessionController(UploadSessionService uploadSessionService) {
+        this.uploadSessionService = uploadSessionService;
+    }
+
+    /**
+     * Initialize a batch of files in one call: returns a photoId and chunk plan per file
+     */
+    @PostMapping
+    public ResponseEntity<UploadSessionResponse> createSession(
+            @Valid @RequestBody CreateUploadSessionRequest request,
+            HttpServletRequest httpRequest) {
+
+        // Get authenticated user ID
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        UUID userId = UUID.fromString(authentication.getName());
+
+        logger.info("Create upload session request: userId={}, files={}", userId, request.getFiles().size());
+
+        UploadSessionResponse response = uploadSessionService.createSession(
+            userId, request, ThroughputEstimator.clientKey(userId, ClientIpResolver.resolve(httpRequest)));
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    /**
+     * Session progress (completed/failed files, uploaded bytes)
+     */
+    @GetMapping("/{sessionId}")
+    public ResponseEntity<UploadSessionResponse> getSession(@PathVariable UUID sessionId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        UUID userId = UUID.fromString(authentication.getName());
+
+        return uploadSessionService.getSession(userId, sessionId)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+}
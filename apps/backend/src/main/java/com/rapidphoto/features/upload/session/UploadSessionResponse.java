@@ -0,0 +1,97 @@
+package com.rapidphoto.features.upload.session;
+
+import java.util.List;
+import java.util.UUID;
+
+public class UploadSessionResponse {
+    private UUID sessionId;
+    private String sessionKey;
+    private String status;
+    private Integer totalFiles;
+    private Integer completedFiles;
+    private Integer failedFiles;
+    private Long totalBytes;
+    private Long uploadedBytes;
+    private Double progress;
+    private List<FilePlan> files;
+    private Integer parallelism;
+
+    public UploadSessionResponse() {}
+
+    // Getters and setters
+    public UUID getSessionId() { return sessionId; }
+    public void setSessionId(UUID sessionId) { this.sessionId = sessionId; }
+
+    public String getSessionKey() { return sessionKey; }
+    public void setSessionKey(String sessionKey) { this.sessionKey = sessionKey; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Integer getTotalFiles() { return totalFiles; }
+    public void setTotalFiles(Integer totalFiles) { this.totalFiles = totalFiles; }
+
+    public Integer getCompletedFiles() { return completedFiles; }
+    public void setCompletedFiles(Integer completedFiles) { this.completedFiles = completedFiles; }
+
+    public Integer getFailedFiles() { return failedFiles; }
+    public void setFailedFiles(Integer failedFiles) { this.failedFiles = failedFiles; }
+
+    public Long getTotalBytes() { return totalBytes; }
+    public void setTotalBytes(Long totalBytes) { this.totalBytes = totalBytes; }
+
+    public Long getUploadedBytes() { return uploadedBytes; }
+    public void setUploadedBytes(Long uploadedBytes) { this.uploadedBytes = uploadedBytes; }
+
+    public Double getProgress() { return progress; }
+    public void setProgress(Double progress) { this.progress = progress; }
+
+    public List<FilePlan> getFiles() { return files; }
+    public void setFiles(List<FilePlan> files) { this.files = files; }
+
+    // Suggested chunk requests in flight per file
+    public Integer getParallelism() { return parallelism; }
+    public void setParallelism(Integer parallelism) { this.parallelism = parallelism; }
+
+    /**
+     * Where and how to send one file of the manifest
+     */
+    public static class FilePlan {
+        private UUID photoId;
+        private String originalFileName;
+        private Long fileSizeBytes;
+        private Long chunkSize;
+        private Integer totalChunks;
+        private String uploadUrl;
+
+        public FilePlan() {}
+
+        public FilePlan(UUID photoId, String originalFileName, Long fileSizeBytes,
+                        Long chunkSize, Integer totalChunks, String uploadUrl) {
+            this.photoId = photoId;
+            this.originalFileName = originalFileName;
+            this.fileSizeBytes = fileSizeBytes;
+            this.chunkSize = chunkSize;
+            this.totalChunks = totalChunks;
+            this.uploadUrl = uploadUrl;
+        }
+
+        public UUID getPhotoId() { return photoId; }
+        public void setPhotoId(UUID photoId) { this.photoId = photoId; }
+
+        public String getOriginalFileName() { return originalFileName; }
+        public void setOriginalFileName(String originalFileName) { this.originalFileName = originalFileName; }
+
+        public Long getFileSizeBytes() { return fileSizeBytes; }
+        public void setFileSizeBytes(Long fileSizeBytes) { this.fileSizeBytes = fileSizeBytes; }
+
+        public Long getChunkSize() { return chunkSize; }
+        public void setChunkSize(Long chunkSize) { this.chunkSize = chunkSize; }
+
+        public Integer getTotalChunks() { return totalChunks; }
+        public void setTotalChunks(Integer totalChunks) { this.totalChunks = totalChunks; }
+
+        public String getUploadUrl() { return uploadUrl; }
+        public void setUploadUrl(String uploadUrl) { this.uploadUrl = uploadUrl; }
+    }
+}
@@ -0,0 +1,227 @@
+package com.rapidphoto.features.upload.session;
+
+import com.rapidphoto.application.command.photo.StartPhotoUploadCommand;
+import com.rapidphoto.application.command.upload.StartUploadSessionCommand;
+import com.rapidphoto.application.command.upload.StartUploadSessionCommandHandler;
+import com.rapidphoto.application.command.upload.StartUploadSessionResult;
+import com.rapidphoto.domain.upload.UploadSession;
+import com.rapidphoto.domain.upload.UploadSessionRepository;
+import com.rapidphoto.domain.upload.UploadSessionStatus;
+import com.rapidphoto.features.upload.UploadService;
+import com.rapidphoto.features.upload.adaptive.ChunkPlan;
+import com.rapidphoto.features.upload.adaptive.ChunkSizingPolicy;
+import com.rapidphoto.features.upload.progress.ProgressTracker;
+import com.rapidphoto.infrastructure.storage.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Batch initialization of many files in one request: one quota reservation, one
+ * transaction and batched photo inserts instead of one /initialize call per file
+ */
+@Service
+public class UploadSessionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadSessionService.class);
+
+    private final StartUploadSessionCommandHandler startSessionHandler;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final StorageService storageService;
+    private final ProgressTracker progressTracker;
+    private final ChunkSizingPolicy chunkSizingPolicy;
+    private final Executor initiateExecutor;
+
+    @Value("${upload.session.max-files:1000}")
+    private int maxFiles;
+
+    public UploadSessionService(StartUploadSessionCommandHandler startSessionHandler,
+                                UploadSessionRepository uploadSessionRepository,
+                                StorageService storageService,
+                                ProgressTracker progressTracker,
+                                ChunkSizingPolicy chunkSizingPolicy,
+                                @Qualifier("multipartInitiateExecutor") Executor initiateExecutor) {
+        this.startSessionHandler = startSessionHandler;
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.storageService = storageService;
+        this.progressTracker = progressTracker;
+        this.chunkSizingPolicy = chunkSizingPolicy;
+        this.initiateExecutor = initiateExecutor;
+    }
+
+    /**
+     * @param clientKey throughput-estimator key of the caller; every file in the session is
+     *                  chunked with the size fitted to that client's link
+     */
+    public UploadSessionResponse createSession(UUID userId, CreateUploadSessionRequest request, String clientKey) {
+        List<CreateUploadSessionRequest.FileEntry> entries = request.getFiles();
+        if (entries.size() > maxFiles) {
+            throw new IllegalArgumentException(
+                String.format("Upload session too large: %d files (max %d)", entries.size(), maxFiles));
+        }
+
+        String sessionKey = request.getSessionKey() != null ? request.getSessionKey() : UUID.randomUUID().toString();
+        if (request.getSessionKey() != null && uploadSessionRepository.findBySessionKey(sessionKey).isPresent()) {
+            throw new IllegalArgumentException("Upload session already exists: " + sessionKey);
+        }
+
+        long totalRequestedBytes = entries.stream().mapToLong(CreateUploadSessionRequest.FileEntry::getFileSizeBytes).sum();
+        ChunkPlan chunkPlan = chunkSizingPolicy.plan(clientKey, totalRequestedBytes);
+
+        // Open multipart uploads outside the DB transaction - they are remote calls
+        boolean multipart = storageService.supportsMultipartUpload()
+            && chunkPlan.getChunkSize() >= UploadService.MIN_MULTIPART_PART_SIZE;
+        List<String> fileNames = new ArrayList<>(entries.size());
+        for (CreateUploadSessionRequest.FileEntry entry : entries) {
+            fileNames.add(UUID.randomUUID().toString() + "_" + entry.getOriginalFileName());
+        }
+        List<String> multipartUploadIds = multipart
+            ? initiateMultipartUploads(userId, fileNames, entries)
+            : null;
+
+        List<StartPhotoUploadCommand> files = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            CreateUploadSessionRequest.FileEntry entry = entries.get(i);
+            String fileName = fileNames.get(i);
+            String multipartUploadId = multipartUploadIds != null ? multipartUploadIds.get(i) : null;
+            files.add(new StartPhotoUploadCommand(
+                userId,
+                fileName,
+                entry.getOriginalFileName(),
+                entry.getFileSizeBytes(),
+                entry.getMimeType(),
+                multipartUploadId,
+                chunkPlan.getChunkSize()
+            ));
+        }
+
+        StartUploadSessionResult result;
+        try {
+            result = startSessionHandler.handle(new StartUploadSessionCommand(userId, sessionKey, files));
+        } catch (RuntimeException e) {
+            for (StartPhotoUploadCommand file : files) {
+                if (file.getMultipartUploadId() != null) {
+                    storageService.abortMultipartUpload(userId + "/" + file.getFileName(), file.getMultipartUploadId());
+                }
+            }
+            throw e;
+        }
+
+        List<UploadSessionResponse.FilePlan> plans = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            StartPhotoUploadCommand file = files.get(i);
+            UUID photoId = result.getPhotoIds().get(i);
+            int totalChunks = chunkPlan.totalChunks(file.getFileSizeBytes());
+
+            progressTracker.initializeProgress(photoId, userId, file.getFileSizeBytes(), totalChunks);
+            plans.add(new UploadSessionResponse.FilePlan(
+                photoId,
+                file.getOriginalFileName(),
+                file.getFileSizeBytes(),
+                chunkPlan.getChunkSize(),
+                totalChunks,
+                "/api/upload/" + photoId + "/chunk"
+            ));
+        }
+
+        long totalBytes = files.stream().mapToLong(StartPhotoUploadCommand::getFileSizeBytes).sum();
+        logger.info("Upload session created: sessionId={}, userId={}, files={}, totalBytes={}, multipart={}",
+            result.getSessionId(), userId, files.size(), totalBytes, multipart);
+
+        UploadSessionResponse response = new UploadSessionResponse();
+        response.setSessionId(result.getSessionId());
+        response.setSessionKey(sessionKey);
+        response.setStatus(UploadSessionStatus.IN_PROGRESS.name());
+        response.setTotalFiles(files.size());
+        response.setCompletedFiles(0);
+        response.setFailedFiles(0);
+        response.setTotalBytes(totalBytes);
+        response.setUploadedBytes(0L);
+        response.setProgress(0.0);
+        response.setFiles(plans);
+        response.setParallelism(chunkPlan.getParallelism());
+        return response;
+    }
+
+    /**
+     * Open one multipart upload per file, in parallel on the bounded initiate executor.
+     * If any fails, the ones that were opened are aborted before the failure is rethrown.
+     *
+     * @return upload IDs in file order
+     */
+    private List<String> initiateMultipartUploads(UUID userId, List<String> fileNames,
+                                                  List<CreateUploadSessionRequest.FileEntry> entries) {
+        List<CompletableFuture<String>> initiated = new ArrayList<>(fileNames.size());
+        for (int i = 0; i < fileNames.size(); i++) {
+            String path = userId + "/" + fileNames.get(i);
+            String mimeType = entries.get(i).getMimeType();
+            initiated.add(CompletableFuture.supplyAsync(
+                () -> storageService.initiateMultipartUpload(path, mimeType), initiateExecutor));
+        }
+
+        try {
+            CompletableFuture.allOf(initiated.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            for (int i = 0; i < initiated.size(); i++) {
+                CompletableFuture<String> upload = initiated.get(i);
+                if (!upload.isCompletedExceptionally()) {
+                    storageService.abortMultipartUpload(userId + "/" + fileNames.get(i), upload.join());
+                }
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return initiated.stream().map(CompletableFuture::join).toList();
+    }
+
+    public Optional<UploadSessionResponse> getSession(UUID userId, UUID sessionId) {
+        return uploadSessionRepository.findByIdAndUserId(sessionId, userId).map(this::toResponse);
+    }
+
+    @Transactional
+    public void recordFileCompleted(UUID sessionId, long bytes) {
+        uploadSessionRepository.incrementCompleted(sessionId, bytes);
+        finishIfDone(sessionId);
+    }
+
+    @Transactional
+    public void recordFileFailed(UUID sessionId) {
+        uploadSessionRepository.incrementFailed(sessionId);
+        finishIfDone(sessionId);
+    }
+
+    private void finishIfDone(UUID sessionId) {
+        if (uploadSessionRepository.finishIfDone(sessionId, UploadSessionStatus.IN_PROGRESS,
+                UploadSessionStatus.COMPLETED, UploadSessionStatus.FAILED, LocalDateTime.now()) > 0) {
+            logger.info("Upload session finished: sessionId={}", sessionId);
+        }
+    }
+
+    private UploadSessionResponse toResponse(UploadSession session) {
+        UploadSessionResponse response = new UploadSessionResponse();
+        response.setSessionId(session.getId());
+        response.setSessionKey(session.getSessionKey());
+        response.setStatus(session.getStatus().name());
+        response.setTotalFiles(session.getTotalFiles());
+        response.setCompletedFiles(session.getCompletedFiles());
+        response.setFailedFiles(session.getFailedFiles());
+        response.setTotalBytes(session.getTotalBytes());
+        response.setUploadedBytes(session.getUploadedBytes());
+        response.setProgress(session.getProgressPercentage());
+        return response;
+    }
+}
@@ -0,0 +1,108 @@
+package com.rapidphoto.infrastructure.admission;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Global budget of upload bytes in flight: request bodies being received plus chunk
+ * assemblies queued or running. Requests that would exceed it are turned away up front
+ * (see {@link UploadAdmissionFilter}) instead of piling onto request threads and the
+ * upload executor.
+ */
+@Component
+public class InFlightByteBudget {
+
+    private static final long RATE_WINDOW_NANOS = 1_000_000_000L;
+    private static final double RATE_ALPHA = 0.3;
+
+    private final long maxBytes;
+    private final int maxRetryAfterSeconds;
+    private final AtomicLong inFlight = new AtomicLong();
+
+    // Drain rate (bytes released per second), EWMA over one-second windows
+    private long windowStartNanos = System.nanoTime();
+    private long windowBytes;
+    private double drainBytesPerSecond = Double.NaN;
+
+    public InFlightByteBudget(@Value("${upload.admission.max-in-flight-bytes:536870912}") long maxBytes,
+                              @Value("${upload.admission.max-retry-after-seconds:60}") int maxRetryAfterSeconds) {
+        this.maxBytes = maxBytes;
+        this.maxRetryAfterSeconds = maxRetryAfterSeconds;
+    }
+
+    /**
+     * Reserve {@code bytes} if they fit. A request larger than the whole budget is
+     * admitted when nothing else is in flight, so it cannot be starved forever.
+     */
+    public boolean tryAcquire(long bytes) {
+        while (true) {
+            long current = inFlight.get();
+            if (current > 0 && current + bytes > maxBytes) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reserve unconditionally, for work that can no longer be refused (assembly of a
+     * fully received upload)
+     */
+    public void acquire(long bytes) {
+        inFlight.addAndGet(bytes);
+    }
+
+    public void release(long bytes) {
+        inFlight.addAndGet(-bytes);
+        recordDrain(bytes);
+    }
+
+    /**
+     * Seconds until {@code bytes} would likely fit, from the current overage and drain rate
+     */
+    public int retryAfterSeconds(long bytes) {
+        long excess = inFlight.get() + bytes - maxBytes;
+        double rate;
+        synchronized (this) {
+            rate = drainBytesPerSecond;
+        }
+        if (excess <= 0) {
+            return 1;
+        }
+        if (Double.isNaN(rate) || rate <= 0) {
+            return maxRetryAfterSeconds;
+        }
+        long seconds = (long) Math.ceil(excess / rate);
+        return (int) Math.max(1, Math.min(maxRetryAfterSeconds, seconds));
+    }
+
+    public long getInFlightBytes() {
+        return inFlight.get();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    private synchronized void recordDrain(long bytes) {
+        long now = System.nanoTime();
+        long elapsed = now - windowStartNanos;
+        if (elapsed >= 10 * RATE_WINDOW_NANOS) {
+            // Idle gap: restart the window rather than averaging in the silence
+            windowStartNanos = now;
+            windowBytes = 0;
+        } else if (elapsed >= RATE_WINDOW_NANOS) {
+            double sample = windowBytes / (elapsed / 1_000_000_000.0);
+            drainBytesPerSecond = Double.isNaN(drainBytesPerSecond)
+                ? sample
+                : RATE_ALPHA * sample + (1 - RATE_ALPHA) * drainBytesPerSecond;
+            windowStartNanos = now;
+            windowBytes = 0;
+        }
+        windowBytes += bytes;
+    }
+}
@@ -0,0 +1,97 @@
+package com.rapidphoto.infrastructure.admission;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Admission control for upload bodies. Runs before the body is read (and before multipart
+ * parsing), reserving the request's Content-Length against {@link InFlightByteBudget}.
+ * Over budget, the request gets 503 with a Retry-After derived from how fast in-flight
+ * bytes are draining. Small JSON requests (initialize, sessions, presigned) are not counted.
+ * Optionally the number of concurrent upload bodies is capped too; on virtual threads the
+ * Tomcat pool no longer does that, and each request still holds a DB connection and buffers.
+ */
+public class UploadAdmissionFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadAdmissionFilter.class);
+
+    private final InFlightByteBudget budget;
+    private final long minTrackedBytes;
+    private final long unknownLengthBytes;
+    private final Semaphore requestPermits;
+
+    /**
+     * @param maxConcurrentRequests cap on concurrent tracked requests, 0 for none
+     */
+    public UploadAdmissionFilter(InFlightByteBudget budget, long minTrackedBytes, long unknownLengthBytes,
+                                 int maxConcurrentRequests) {
+        this.budget = budget;
+        this.minTrackedBytes = minTrackedBytes;
+        this.unknownLengthBytes = unknownLengthBytes;
+        this.requestPermits = maxConcurrentRequests > 0 ? new Semaphore(maxConcurrentRequests) : null;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !("POST".equals(method) || "PUT".equals(method) || "PATCH".equals(method));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long contentLength = request.getContentLengthLong();
+        long bytes = contentLength >= 0 ? contentLength : unknownLengthBytes;
+        if (bytes < minTrackedBytes) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (requestPermits != null && !requestPermits.tryAcquire()) {
+            int retryAfter = budget.retryAfterSeconds(bytes);
+            logger.warn("Upload rejected, too many concurrent uploads: uri={}, retryAfter={}s",
+                request.getRequestURI(), retryAfter);
+            reject(response, retryAfter);
+            return;
+        }
+
+        try {
+            if (!budget.tryAcquire(bytes)) {
+                int retryAfter = budget.retryAfterSeconds(bytes);
+                logger.warn("Upload rejected, over in-flight budget: uri={}, bytes={}, inFlight={}/{}, retryAfter={}s",
+                    request.getRequestURI(), bytes, budget.getInFlightBytes(), budget.getMaxBytes(), retryAfter);
+                reject(response, retryAfter);
+                return;
+            }
+
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                budget.release(bytes);
+            }
+        } finally {
+            if (requestPermits != null) {
+                requestPermits.release();
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response, int retryAfter) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader("Retry-After", String.valueOf(retryAfter));
+        // Don't make the container drain a body we refused
+        response.setHeader("Connection", "close");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"Server is at upload capacity. Please retry later.\"}");
+    }
+}
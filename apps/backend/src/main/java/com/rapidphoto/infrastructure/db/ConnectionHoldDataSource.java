@@ -0,0 +1,50 @@
+package com.rapidphoto.infrastructure.db;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Wraps the pool so every checkout is reported to {@link ConnectionHoldTracker} from
+ * getConnection() until close() hands it back.
+ */
+public class ConnectionHoldDataSource extends DelegatingDataSource {
+
+    private final ConnectionHoldTracker tracker;
+
+    public ConnectionHoldDataSource(DataSource target, ConnectionHoldTracker tracker) {
+        super(target);
+        this.tracker = tracker;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection track(Connection connection) {
+        ConnectionHoldTracker.Checkout checkout = tracker.acquired();
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+                if ("close".equals(method.getName())) {
+                    tracker.released(checkout);
+                }
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+            });
+    }
+}
@@ -0,0 +1,35 @@
+package com.rapidphoto.infrastructure.db;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Attributes JDBC connection checkouts on the request thread to the request, and records
+ * the total per URI pattern once it completes
+ */
+public class ConnectionHoldFilter extends OncePerRequestFilter {
+
+    private final ConnectionHoldTracker tracker;
+
+    public ConnectionHoldFilter(ConnectionHoldTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ConnectionHoldTracker.RequestHold hold = tracker.beginRequest();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            tracker.endRequest(hold, pattern != null ? pattern.toString() : "UNKNOWN");
+        }
+    }
+}
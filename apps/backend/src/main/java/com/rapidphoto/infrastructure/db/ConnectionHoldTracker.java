@@ -0,0 +1,150 @@
+package com.rapidphoto.infrastructure.db;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how long pooled JDBC connections are held, per checkout and per HTTP request.
+ * Fed by {@link ConnectionHoldDataSource}; request scopes are opened by {@link ConnectionHoldFilter}.
+ *
+ * Meters:
+ * - db.connection.hold (timer, tag scope=request|background): each checkout
+ * - http.server.requests.db.hold (timer, tag uri): total hold time of one request
+ * - db.connection.hold.longest.open (gauge, seconds): oldest checkout still open, which
+ *   climbs when a connection is kept across slow I/O
+ */
+@Component
+public class ConnectionHoldTracker implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionHoldTracker.class);
+
+    private final ThreadLocal<RequestHold> currentRequest = new ThreadLocal<>();
+    private final Set<Checkout> open = ConcurrentHashMap.newKeySet();
+    private final long warnThresholdNanos;
+
+    private volatile MeterRegistry registry;
+
+    public ConnectionHoldTracker(@Value("${db.connection-hold.warn-threshold-ms:1000}") long warnThresholdMillis) {
+        this.warnThresholdNanos = TimeUnit.MILLISECONDS.toNanos(warnThresholdMillis);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("db.connection.hold.longest.open", this, ConnectionHoldTracker::longestOpenSeconds)
+            .description("Age of the oldest JDBC connection currently checked out")
+            .baseUnit("seconds")
+            .register(registry);
+    }
+
+    /**
+     * A connection was handed out on the current thread
+     */
+    Checkout acquired() {
+        Checkout checkout = new Checkout(System.nanoTime(), currentRequest.get());
+        open.add(checkout);
+        return checkout;
+    }
+
+    void released(Checkout checkout) {
+        if (!open.remove(checkout)) {
+            return;
+        }
+        long held = System.nanoTime() - checkout.startNanos;
+        if (checkout.request != null) {
+            checkout.request.add(held);
+        }
+        if (held > warnThresholdNanos) {
+            logger.warn("JDBC connection held for {} ms (thread={})",
+                TimeUnit.NANOSECONDS.toMillis(held), Thread.currentThread().getName());
+        }
+
+        MeterRegistry meters = registry;
+        if (meters != null) {
+            Timer.builder("db.connection.hold")
+                .description("Time a pooled JDBC connection is held per checkout")
+                .tag("scope", checkout.request != null ? "request" : "background")
+                .register(meters)
+                .record(held, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Start attributing checkouts on this thread to a request
+     */
+    public RequestHold beginRequest() {
+        RequestHold hold = new RequestHold();
+        currentRequest.set(hold);
+        return hold;
+    }
+
+    public void endRequest(RequestHold hold, String uri) {
+        currentRequest.remove();
+        MeterRegistry meters = registry;
+        if (meters != null && hold.getCheckouts() > 0) {
+            Timer.builder("http.server.requests.db.hold")
+                .description("Total time one HTTP request held pooled JDBC connections")
+                .tag("uri", uri)
+                .register(meters)
+                .record(hold.getTotalNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    double longestOpenSeconds() {
+        long now = System.nanoTime();
+        long oldest = 0;
+        for (Checkout checkout : open) {
+            oldest = Math.max(oldest, now - checkout.startNanos);
+        }
+        return oldest / 1e9;
+    }
+
+    static final class Checkout {
+        final long startNanos;
+        final RequestHold request;
+
+        Checkout(long startNanos, RequestHold request) {
+            this.startNanos = startNanos;
+            this.request = request;
+        }
+    }
+
+    /**
+     * Connection use of one request; a connection may be closed on another thread, hence atomics
+     */
+    public static final class RequestHold {
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong longestNanos = new AtomicLong();
+        private final AtomicInteger checkouts = new AtomicInteger();
+
+        void add(long nanos) {
+            totalNanos.addAndGet(nanos);
+            longestNanos.accumulateAndGet(nanos, Math::max);
+            checkouts.incrementAndGet();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.get();
+        }
+
+        public long getLongestNanos() {
+            return longestNanos.get();
+        }
+
+        public int getCheckouts() {
+            return checkouts.get();
+        }
+    }
+}
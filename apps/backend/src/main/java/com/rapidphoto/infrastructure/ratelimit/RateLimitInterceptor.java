@@ -2,6 +2,7 @@ package com.rapidphoto.infrastructure.ratelimit;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.rapidphoto.config.RateLimitConfig;
+import com.rapidphoto.infrastructure.web.ClientIpResolver;
 import io.github.bucket4j.Bucket;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -36,7 +37,7 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             // For unauthenticated requests, use IP address
-            String clientIp = getClientIp(request);
+            String clientIp = ClientIpResolver.resolve(request);
             Bucket bucket = RateLimitConfig.createBucket(bucketCache, "ip:" + clientIp);
             
             if (!bucket.tryConsume(1)) {
@@ -85,19 +86,5 @@ public class RateLimitInterceptor implements HandlerInterceptor {
             return true;
         }
     }
-
-    private String getClientIp(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-        
-        String xRealIp = request.getHeader("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isEmpty()) {
-            return xRealIp;
-        }
-        
-        return request.getRemoteAddr();
-    }
 }
 
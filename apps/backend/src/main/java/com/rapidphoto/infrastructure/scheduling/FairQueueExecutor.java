@@ -0,0 +1,386 @@
+package com.rapidphoto.infrastructure.scheduling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed worker pool that schedules tasks fairly across tenants instead of FIFO.
+ * Tasks are queued per {@link WorkTenant} and served by deficit round-robin weighted by
+ * task size, so a user submitting a thousand files gets the same share of workers as a
+ * user submitting one. Tasks above {@code smallTaskMaxBytes} go to a separate large lane;
+ * the two lanes alternate and large tasks never occupy every worker, so small photos are
+ * not stuck behind 100 MB ones.
+ */
+public class FairQueueExecutor implements AsyncTaskExecutor, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(FairQueueExecutor.class);
+
+    private final String name;
+    private final int poolSize;
+    private final int queueCapacity;
+    private final long smallTaskMaxBytes;
+    private final int maxLargeRunning;
+    private final boolean callerRunsWhenFull;
+    private final int awaitTerminationSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Lane smallLane;
+    private final Lane largeLane;
+    private final List<Thread> workers = new ArrayList<>();
+
+    // Guarded by lock
+    private int queued;
+    private int active;
+    private int largeRunning;
+    private long completed;
+    private boolean preferSmall = true;
+    private boolean shutdown;
+
+    public FairQueueExecutor(String threadNamePrefix, int poolSize, int queueCapacity,
+                             long smallTaskMaxBytes, boolean callerRunsWhenFull, int awaitTerminationSeconds) {
+        this(threadNamePrefix, poolSize, queueCapacity, smallTaskMaxBytes, callerRunsWhenFull,
+            awaitTerminationSeconds, false);
+    }
+
+    /**
+     * @param virtualThreads run workers on virtual threads; poolSize then only caps how many
+     *                       tasks run at once and can be far larger than a platform pool
+     */
+    public FairQueueExecutor(String threadNamePrefix, int poolSize, int queueCapacity,
+                             long smallTaskMaxBytes, boolean callerRunsWhenFull, int awaitTerminationSeconds,
+                             boolean virtualThreads) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("poolSize must be at least 1");
+        }
+        this.name = threadNamePrefix;
+        this.poolSize = poolSize;
+        this.queueCapacity = queueCapacity;
+        this.smallTaskMaxBytes = smallTaskMaxBytes;
+        this.maxLargeRunning = Math.max(1, poolSize - 1);
+        this.callerRunsWhenFull = callerRunsWhenFull;
+        this.awaitTerminationSeconds = awaitTerminationSeconds;
+        this.smallLane = new Lane(smallTaskMaxBytes);
+        this.largeLane = new Lane(smallTaskMaxBytes * 4);
+
+        Thread.Builder threads = virtualThreads
+            ? Thread.ofVirtual().name(threadNamePrefix, 1)
+            : Thread.ofPlatform().name(threadNamePrefix, 1);
+        for (int i = 1; i <= poolSize; i++) {
+            workers.add(threads.start(this::workLoop));
+        }
+    }
+
+    @Override
+    public void execute(Runnable work) {
+        WorkTenant tenant = WorkTenant.current();
+        Task task = new Task(work, tenant, tenant.getSizeBytes() > smallTaskMaxBytes);
+
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new TaskRejectedException(name + " is shut down");
+            }
+            if (queued < queueCapacity) {
+                (task.large ? largeLane : smallLane).offer(task);
+                queued++;
+                workAvailable.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (!callerRunsWhenFull) {
+            throw new TaskRejectedException(String.format(
+                "%s queue full (%d tasks), rejected task for tenant %s", name, queueCapacity, tenant.getKey()));
+        }
+        logger.warn("{} queue full - running task for tenant {} in caller thread", name, tenant.getKey());
+        run(task);
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        FutureTask<Object> future = new FutureTask<>(task, null);
+        execute(future);
+        return future;
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        execute(future);
+        return future;
+    }
+
+    private void workLoop() {
+        while (true) {
+            Task task;
+            lock.lock();
+            try {
+                while ((task = next()) == null) {
+                    if (shutdown && queued == 0) {
+                        return;
+                    }
+                    workAvailable.await();
+                }
+                active++;
+                if (task.large) {
+                    largeRunning++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                run(task);
+            } finally {
+                lock.lock();
+                try {
+                    active--;
+                    completed++;
+                    if (task.large) {
+                        largeRunning--;
+                        // A waiting worker may now take the next large task
+                        workAvailable.signal();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void run(Task task) {
+        WorkTenant previous = WorkTenant.enter(task.tenant);
+        try {
+            task.work.run();
+        } catch (RuntimeException | Error e) {
+            logger.error("{} task for tenant {} failed", name, task.tenant.getKey(), e);
+        } finally {
+            WorkTenant.restore(previous);
+        }
+    }
+
+    /**
+     * Next task to run, alternating lanes; must hold lock
+     */
+    private Task next() {
+        boolean largeAllowed = largeRunning < maxLargeRunning;
+        Task task;
+        if (preferSmall || !largeAllowed) {
+            task = smallLane.poll();
+            if (task == null && largeAllowed) {
+                task = largeLane.poll();
+            }
+        } else {
+            task = largeLane.poll();
+            if (task == null) {
+                task = smallLane.poll();
+            }
+        }
+        if (task != null) {
+            queued--;
+            preferSmall = task.large;
+        }
+        return task;
+    }
+
+    /**
+     * Tasks waiting per tenant, both lanes combined
+     */
+    public Map<String, Integer> getQueueDepthByTenant() {
+        lock.lock();
+        try {
+            Map<String, Integer> depth = new HashMap<>();
+            smallLane.addDepths(depth);
+            largeLane.addDepths(depth);
+            return depth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueSize() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLargeQueueSize() {
+        lock.lock();
+        try {
+            return largeLane.size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActiveCount() {
+        lock.lock();
+        try {
+            return active;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCompletedTaskCount() {
+        lock.lock();
+        try {
+            return completed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Stop accepting work, let queued tasks drain for up to awaitTerminationSeconds
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        lock.lock();
+        try {
+            shutdown = true;
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(awaitTerminationSeconds);
+        for (Thread worker : workers) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis > 0) {
+                worker.join(remainingMillis);
+            }
+        }
+        int abandoned = getQueueSize();
+        if (abandoned > 0) {
+            logger.warn("{} shut down with {} queued tasks not run", name, abandoned);
+        }
+        workers.forEach(Thread::interrupt);
+    }
+
+    private static final class Task {
+        final Runnable work;
+        final WorkTenant tenant;
+        final boolean large;
+
+        Task(Runnable work, WorkTenant tenant, boolean large) {
+            this.work = work;
+            this.tenant = tenant;
+            this.large = large;
+        }
+    }
+
+    /**
+     * One size class: a FIFO per tenant, served by deficit round-robin. Each visit credits a
+     * tenant {@code quantum} bytes; it runs tasks while its head fits in the credit, then the
+     * next tenant gets its turn.
+     */
+    private static final class Lane {
+        private final long quantum;
+        private final Map<String, Flow> flows = new HashMap<>();
+        private final ArrayDeque<Flow> activeFlows = new ArrayDeque<>();
+        private int size;
+
+        Lane(long quantum) {
+            this.quantum = Math.max(1, quantum);
+        }
+
+        void offer(Task task) {
+            Flow flow = flows.get(task.tenant.getKey());
+            if (flow == null) {
+                flow = new Flow(task.tenant.getKey());
+                flows.put(flow.tenant, flow);
+                activeFlows.addLast(flow);
+            }
+            flow.tasks.addLast(task);
+            size++;
+        }
+
+        Task poll() {
+            while (!activeFlows.isEmpty()) {
+                Flow flow = activeFlows.peekFirst();
+                if (!flow.credited) {
+                    flow.deficit += quantum;
+                    flow.credited = true;
+                }
+                Task head = flow.tasks.peekFirst();
+                long cost = cost(head);
+                if (cost <= flow.deficit) {
+                    flow.tasks.pollFirst();
+                    flow.deficit -= cost;
+                    size--;
+                    if (flow.tasks.isEmpty()) {
+                        activeFlows.pollFirst();
+                        flows.remove(flow.tenant);
+                    }
+                    return head;
+                }
+                // Turn over; unused credit carries to the next round
+                flow.credited = false;
+                activeFlows.addLast(activeFlows.pollFirst());
+            }
+            return null;
+        }
+
+        /**
+         * Bytes charged for a task; unknown sizes cost a full quantum, tiny ones a
+         * sixteenth, so a flood of small tasks is still rationed
+         */
+        private long cost(Task task) {
+            long size = task.tenant.getSizeBytes();
+            if (size <= 0) {
+                return quantum;
+            }
+            return Math.max(size, quantum / 16);
+        }
+
+        void addDepths(Map<String, Integer> depth) {
+            for (Flow flow : activeFlows) {
+                depth.merge(flow.tenant, flow.tasks.size(), Integer::sum);
+            }
+        }
+    }
+
+    private static final class Flow {
+        final String tenant;
+        final ArrayDeque<Task> tasks = new ArrayDeque<>();
+        long deficit;
+        boolean credited;
+
+        Flow(String tenant) {
+            this.tenant = tenant;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.rapidphoto.infrastructure.scheduling;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Who background work is done for, and how big it is. {@link FairQueueExecutor} reads it on
+ * the submitting thread to pick the task's queue; while a task runs, its tenant is current
+ * again, so work it submits in turn (assembly -> thumbnails) stays with the same user.
+ */
+public final class WorkTenant {
+
+    public static final String SYSTEM = "system";
+
+    private static final ThreadLocal<WorkTenant> CURRENT = new ThreadLocal<>();
+
+    private final String key;
+    private final long sizeBytes;
+
+    public WorkTenant(String key, long sizeBytes) {
+        this.key = key;
+        this.sizeBytes = sizeBytes;
+    }
+
+    /**
+     * Submit work attributed to {@code userId}, sized {@code sizeBytes} (0 if unknown)
+     */
+    public static void run(UUID userId, long sizeBytes, Runnable work) {
+        call(userId, sizeBytes, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public static <T> T call(UUID userId, long sizeBytes, Supplier<T> work) {
+        WorkTenant previous = CURRENT.get();
+        CURRENT.set(new WorkTenant(userId != null ? userId.toString() : SYSTEM, sizeBytes));
+        try {
+            return work.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Tenant of the current thread: explicit scope first, then the authenticated user
+     */
+    public static WorkTenant current() {
+        WorkTenant tenant = CURRENT.get();
+        if (tenant != null) {
+            return tenant;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() && authentication.getName() != null) {
+            return new WorkTenant(authentication.getName(), 0);
+        }
+        return new WorkTenant(SYSTEM, 0);
+    }
+
+    static WorkTenant enter(WorkTenant tenant) {
+        WorkTenant previous = CURRENT.get();
+        CURRENT.set(tenant);
+        return previous;
+    }
+
+    static void restore(WorkTenant previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+}
@@ -8,10 +8,17 @@ import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 @ConditionalOnProperty(name = "storage.type", havingValue = "local", matchIfMissing = true)
@@ -28,7 +35,11 @@ public class LocalStorageService implements StorageService {
             Path targetPath = Paths.get(uploadDir, path);
             Files.createDirectories(targetPath.getParent());
             
-            Files.copy(inputStream, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            // Short-lived copy buffer per call: a per-thread one would be pinned by every
+            // virtual thread that ever stored a file
+            try (OutputStream out = Files.newOutputStream(targetPath)) {
+                inputStream.transferTo(out);
+            }
             
             logger.info("Stored file locally: {}", path);
             return targetPath.toString();
@@ -65,6 +76,88 @@ public class LocalStorageService implements StorageService {
         return Files.exists(targetPath);
     }
 
+    @Override
+    public void deleteAll(String prefix) {
+        Path root = Paths.get(uploadDir, prefix);
+        if (!Files.exists(root)) {
+            return;
+        }
+        // Deepest first, so directories are empty by the time they are deleted
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+            logger.info("Deleted files locally under: {}", prefix);
+        } catch (IOException e) {
+            throw new StorageException("Failed to delete files under: " + prefix, e);
+        }
+    }
+
+    /**
+     * Concatenate chunk files with FileChannel.transferTo so bytes move kernel-side
+     * (no heap buffer), writing into a sibling temp file that is atomically renamed
+     * over the target - readers never see a partially assembled file.
+     */
+    @Override
+    public String concatenate(List<String> sourcePaths, String targetPath, String contentType) {
+        Path target = Paths.get(uploadDir, targetPath);
+        Path partial = null;
+        try {
+            Files.createDirectories(target.getParent());
+            partial = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".part");
+
+            try (FileChannel out = FileChannel.open(partial, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (String sourcePath : sourcePaths) {
+                    try (FileChannel in = FileChannel.open(Paths.get(uploadDir, sourcePath), StandardOpenOption.READ)) {
+                        long size = in.size();
+                        long position = 0;
+                        // transferTo may move fewer bytes than requested
+                        while (position < size) {
+                            position += in.transferTo(position, size - position, out);
+                        }
+                    }
+                }
+            }
+
+            try {
+                Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            logger.info("Concatenated {} parts locally: {}", sourcePaths.size(), targetPath);
+            return target.toString();
+
+        } catch (IOException e) {
+            throw new StorageException("Failed to concatenate file locally: " + targetPath, e);
+        } finally {
+            if (partial != null) {
+                try {
+                    Files.deleteIfExists(partial);
+                } catch (IOException ignored) {
+                    // Best effort cleanup
+                }
+            }
+        }
+    }
+
+    @Override
+    public void move(String sourcePath, String targetPath) {
+        try {
+            Path source = Paths.get(uploadDir, sourcePath);
+            Path target = Paths.get(uploadDir, targetPath);
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            logger.info("Moved file locally: {} -> {}", sourcePath, targetPath);
+        } catch (IOException e) {
+            throw new StorageException("Failed to move file: " + sourcePath, e);
+        }
+    }
+
     @Override
     public String getStorageType() {
         return "LOCAL";
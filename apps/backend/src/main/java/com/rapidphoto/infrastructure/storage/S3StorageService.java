@@ -17,6 +17,9 @@ import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignReques
 
 import java.io.InputStream;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 
 @Service
 @ConditionalOnProperty(name = "storage.type", havingValue = "s3")
@@ -31,6 +34,9 @@ public class S3StorageService implements StorageService {
     @Value("${storage.s3.bucket-name}")
     private String bucketName;
 
+    @Value("${storage.s3.multipart-enabled:true}")
+    private boolean multipartEnabled;
+
     public S3StorageService(S3Client s3Client, 
                            S3Presigner s3Presigner,
                            ExponentialBackoffRetryService retryService) {
@@ -118,11 +124,194 @@ public class S3StorageService implements StorageService {
         );
     }
 
+    @Override
+    public void deleteAll(String prefix) {
+        retryService.executeWithRetry(
+            "S3-DeleteAll-" + prefix,
+            () -> {
+                ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
+                    .bucket(bucketName)
+                    .prefix(prefix)
+                    .build();
+
+                // Pages hold at most 1000 keys, the limit of one DeleteObjects call
+                int deleted = 0;
+                for (ListObjectsV2Response page : s3Client.listObjectsV2Paginator(listRequest)) {
+                    if (page.contents().isEmpty()) {
+                        continue;
+                    }
+                    List<ObjectIdentifier> keys = page.contents().stream()
+                        .map(object -> ObjectIdentifier.builder().key(object.key()).build())
+                        .toList();
+                    s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                        .bucket(bucketName)
+                        .delete(Delete.builder().objects(keys).quiet(true).build())
+                        .build());
+                    deleted += keys.size();
+                }
+                logger.info("Deleted {} files from S3: bucket={}, prefix={}", deleted, bucketName, prefix);
+                return null;
+            },
+            RetryPolicy.defaultPolicy()
+        );
+    }
+
+    @Override
+    public void move(String sourcePath, String targetPath) {
+        retryService.executeWithRetry(
+            "S3-Move-" + sourcePath,
+            () -> {
+                // Server-side copy: bytes never leave S3
+                CopyObjectRequest copyObjectRequest = CopyObjectRequest.builder()
+                    .sourceBucket(bucketName)
+                    .sourceKey(sourcePath)
+                    .destinationBucket(bucketName)
+                    .destinationKey(targetPath)
+                    .build();
+
+                s3Client.copyObject(copyObjectRequest);
+                logger.info("Copied file in S3: bucket={}, {} -> {}", bucketName, sourcePath, targetPath);
+                return null;
+            },
+            RetryPolicy.defaultPolicy()
+        );
+        delete(sourcePath);
+    }
+
     @Override
     public String getStorageType() {
         return "S3";
     }
 
+    @Override
+    public boolean supportsMultipartUpload() {
+        return multipartEnabled;
+    }
+
+    @Override
+    public String initiateMultipartUpload(String path, String contentType) {
+        return retryService.executeWithRetry(
+            "S3-CreateMultipart-" + path,
+            () -> {
+                CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(path)
+                    .contentType(contentType)
+                    .build();
+
+                String uploadId = s3Client.createMultipartUpload(request).uploadId();
+                logger.info("Opened multipart upload in S3: bucket={}, key={}, uploadId={}", bucketName, path, uploadId);
+                return uploadId;
+            },
+            RetryPolicy.defaultPolicy()
+        );
+    }
+
+    @Override
+    public String uploadPart(String path, String uploadId, int partNumber, InputStream inputStream, long contentLength) {
+        return retryService.executeWithRetry(
+            "S3-UploadPart-" + path + "-" + partNumber,
+            () -> {
+                UploadPartRequest request = UploadPartRequest.builder()
+                    .bucket(bucketName)
+                    .key(path)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .contentLength(contentLength)
+                    .build();
+
+                String eTag = s3Client.uploadPart(
+                    request,
+                    RequestBody.fromInputStream(inputStream, contentLength)
+                ).eTag();
+
+                logger.debug("Uploaded part {} to S3: key={}, size={}", partNumber, path, contentLength);
+                return eTag;
+            },
+            RetryPolicy.aggressivePolicy()
+        );
+    }
+
+    /**
+     * Part ETags are read back with ListParts rather than tracked per chunk,
+     * so completion only needs the upload ID and the expected part count
+     */
+    @Override
+    public String completeMultipartUpload(String path, String uploadId, int expectedParts) {
+        return retryService.executeWithRetry(
+            "S3-CompleteMultipart-" + path,
+            () -> {
+                List<CompletedPart> parts = listParts(path, uploadId);
+                if (parts.size() != expectedParts) {
+                    throw new StorageException(String.format(
+                        "Multipart upload %s has %d parts, expected %d", uploadId, parts.size(), expectedParts));
+                }
+
+                CompleteMultipartUploadRequest request = CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(path)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build();
+
+                s3Client.completeMultipartUpload(request);
+                logger.info("Completed multipart upload in S3: bucket={}, key={}, parts={}", bucketName, path, parts.size());
+                return String.format("s3://%s/%s", bucketName, path);
+            },
+            RetryPolicy.defaultPolicy()
+        );
+    }
+
+    @Override
+    public void abortMultipartUpload(String path, String uploadId) {
+        retryService.executeWithRetry(
+            "S3-AbortMultipart-" + path,
+            () -> {
+                AbortMultipartUploadRequest request = AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(path)
+                    .uploadId(uploadId)
+                    .build();
+
+                s3Client.abortMultipartUpload(request);
+                logger.info("Aborted multipart upload in S3: key={}, uploadId={}", path, uploadId);
+                return null;
+            },
+            RetryPolicy.defaultPolicy()
+        );
+    }
+
+    private List<CompletedPart> listParts(String path, String uploadId) {
+        List<CompletedPart> parts = new ArrayList<>();
+        Integer marker = null;
+
+        while (true) {
+            ListPartsRequest.Builder request = ListPartsRequest.builder()
+                .bucket(bucketName)
+                .key(path)
+                .uploadId(uploadId);
+            if (marker != null) {
+                request.partNumberMarker(marker);
+            }
+
+            ListPartsResponse response = s3Client.listParts(request.build());
+            for (Part part : response.parts()) {
+                parts.add(CompletedPart.builder()
+                    .partNumber(part.partNumber())
+                    .eTag(part.eTag())
+                    .build());
+            }
+
+            if (!Boolean.TRUE.equals(response.isTruncated())) {
+                break;
+            }
+            marker = response.nextPartNumberMarker();
+        }
+
+        parts.sort(Comparator.comparing(CompletedPart::partNumber));
+        return parts;
+    }
+
     /**
      * Generate presigned URL for direct client upload
      */
@@ -1,7 +1,13 @@
 package com.rapidphoto.infrastructure.storage;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
+import java.util.List;
 
 public interface StorageService {
     
@@ -34,6 +40,12 @@ public interface StorageService {
      * @return true if exists
      */
     boolean exists(String path);
+
+    /**
+     * Delete every file under a prefix; no-op when there are none
+     * @param prefix Storage path prefix ending in '/'
+     */
+    void deleteAll(String prefix);
     
     /**
      * Get storage type identifier
@@ -49,5 +61,114 @@ public interface StorageService {
     default String generatePresignedUploadUrl(String path, Duration duration) {
         throw new UnsupportedOperationException("Presigned URLs not supported for " + getStorageType());
     }
-}
 
+    /**
+     * Whether chunked uploads can be written straight into the final object
+     * as parts of a native multipart upload (no download-and-reassemble step)
+     */
+    default boolean supportsMultipartUpload() {
+        return false;
+    }
+
+    /**
+     * Open a multipart upload for the final object
+     * @param path Storage path (key) of the final object
+     * @param contentType MIME type
+     * @return Upload ID identifying the multipart upload
+     */
+    default String initiateMultipartUpload(String path, String contentType) {
+        throw new UnsupportedOperationException("Multipart uploads not supported for " + getStorageType());
+    }
+
+    /**
+     * Upload one part of a multipart upload
+     * @param path Storage path (key) of the final object
+     * @param uploadId Upload ID returned by {@link #initiateMultipartUpload}
+     * @param partNumber 1-based part number
+     * @param inputStream Part data
+     * @param contentLength Part size
+     * @return ETag of the stored part
+     */
+    default String uploadPart(String path, String uploadId, int partNumber, InputStream inputStream, long contentLength) {
+        throw new UnsupportedOperationException("Multipart uploads not supported for " + getStorageType());
+    }
+
+    /**
+     * Complete a multipart upload, stitching parts 1..expectedParts into the final object
+     * @param path Storage path (key) of the final object
+     * @param uploadId Upload ID returned by {@link #initiateMultipartUpload}
+     * @param expectedParts Number of parts that must have been uploaded
+     * @return Storage URL
+     */
+    default String completeMultipartUpload(String path, String uploadId, int expectedParts) {
+        throw new UnsupportedOperationException("Multipart uploads not supported for " + getStorageType());
+    }
+
+    /**
+     * Abort a multipart upload and discard its parts
+     * @param path Storage path (key) of the final object
+     * @param uploadId Upload ID returned by {@link #initiateMultipartUpload}
+     */
+    default void abortMultipartUpload(String path, String uploadId) {
+        throw new UnsupportedOperationException("Multipart uploads not supported for " + getStorageType());
+    }
+
+    /**
+     * Move an object to a new key. Default copies through the stream API; backends
+     * override with a rename (local) or server-side copy (S3).
+     * @param sourcePath Storage path (key) to move
+     * @param targetPath New storage path (key); replaced if it exists
+     */
+    default void move(String sourcePath, String targetPath) {
+        try (InputStream in = retrieve(sourcePath)) {
+            Path tempFile = Files.createTempFile("move_", ".tmp");
+            try {
+                Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                try (InputStream copy = Files.newInputStream(tempFile)) {
+                    store(targetPath, copy, "application/octet-stream", Files.size(tempFile));
+                }
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            throw new StorageException("Failed to move " + sourcePath + " to " + targetPath, e);
+        }
+        delete(sourcePath);
+    }
+
+    /**
+     * Concatenate stored objects, in order, into a single target object.
+     * Default implementation spools through a temp file; backends with a cheaper
+     * native path (e.g. same-filesystem channel transfers) should override it.
+     * @param sourcePaths Storage paths (keys) of the parts, in order
+     * @param targetPath Storage path (key) of the resulting object
+     * @param contentType MIME type of the result
+     * @return Storage URL
+     */
+    default String concatenate(List<String> sourcePaths, String targetPath, String contentType) {
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile("concat_", ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                for (String sourcePath : sourcePaths) {
+                    try (InputStream in = retrieve(sourcePath)) {
+                        in.transferTo(out);
+                    }
+                }
+            }
+            try (InputStream in = Files.newInputStream(tempFile)) {
+                return store(targetPath, in, contentType, Files.size(tempFile));
+            }
+        } catch (IOException e) {
+            throw new StorageException("Failed to concatenate into: " + targetPath, e);
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ignored) {
+                    // Best effort cleanup
+                }
+            }
+        }
+    }
+}
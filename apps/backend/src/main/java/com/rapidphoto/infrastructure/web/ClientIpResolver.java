@@ -0,0 +1,25 @@
+package com.rapidphoto.infrastructure.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Client address of a request, honouring the proxy headers set by the load balancer
+ */
+public final class ClientIpResolver {
+
+    private ClientIpResolver() {}
+
+    public static String resolve(HttpServletRequest request) {
+        String xForwardedFor = request.getHeader("X-Forwarded-For");
+        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+            return xForwardedFor.split(",")[0].trim();
+        }
+        
+        String xRealIp = request.getHeader("X-Real-IP");
+        if (xRealIp != null && !xRealIp.isEmpty()) {
+            return xRealIp;
+        }
+        
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,8 @@
+-- Received-chunk bitmap per chunked upload (replaces one upload_chunks row per chunk)
+CREATE TABLE chunk_upload_state (
+    photo_id UUID PRIMARY KEY REFERENCES photos(id) ON DELETE CASCADE,
+    total_chunks INTEGER NOT NULL,
+    received_chunks INTEGER NOT NULL DEFAULT 0,
+    received_bitmap BYTEA NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
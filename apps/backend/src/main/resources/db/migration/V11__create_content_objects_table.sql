@@ -0,0 +1,10 @@
+-- Content-addressed originals shared by photos with identical bytes
+CREATE TABLE content_objects (
+    sha256 VARCHAR(64) PRIMARY KEY,
+    storage_path VARCHAR(1000) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    mime_type VARCHAR(100),
+    ref_count INTEGER NOT NULL DEFAULT 1,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    version INTEGER NOT NULL DEFAULT 0
+);
@@ -0,0 +1,3 @@
+-- Chunk size negotiated for a chunked upload (NULL: the static upload.chunk-size applies)
+ALTER TABLE photos
+ADD COLUMN IF NOT EXISTS chunk_size_bytes BIGINT;
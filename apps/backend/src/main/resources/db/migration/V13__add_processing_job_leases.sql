@@ -0,0 +1,14 @@
+-- Durable job queue: workers claim PENDING rows with FOR UPDATE SKIP LOCKED and hold a
+-- lease while running; expired leases are requeued (or failed once max_retries is spent)
+ALTER TABLE processing_jobs
+ADD COLUMN IF NOT EXISTS run_after TIMESTAMP NOT NULL DEFAULT NOW(),
+ADD COLUMN IF NOT EXISTS locked_by VARCHAR(100),
+ADD COLUMN IF NOT EXISTS lease_expires_at TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_processing_jobs_claim
+    ON processing_jobs(job_type, priority DESC, created_at ASC)
+    WHERE status = 'PENDING';
+
+CREATE INDEX IF NOT EXISTS idx_processing_jobs_lease
+    ON processing_jobs(lease_expires_at)
+    WHERE status = 'RUNNING';
@@ -0,0 +1,14 @@
+-- Perceptual hashes as 64-bit integers so Hamming distance is one XOR and popcount.
+-- The VARCHAR column was never populated; the backfill job fills both hashes.
+DROP INDEX IF EXISTS idx_photos_perceptual_hash;
+
+ALTER TABLE photos
+ALTER COLUMN perceptual_hash TYPE BIGINT USING NULL,
+ADD COLUMN IF NOT EXISTS difference_hash BIGINT;
+
+CREATE INDEX IF NOT EXISTS idx_photos_perceptual_hash ON photos(perceptual_hash) WHERE perceptual_hash IS NOT NULL;
+
+-- Backfill scan: processed photos still missing a hash
+CREATE INDEX IF NOT EXISTS idx_photos_perceptual_hash_missing
+    ON photos(uploaded_at)
+    WHERE perceptual_hash IS NULL AND status = 'COMPLETED';
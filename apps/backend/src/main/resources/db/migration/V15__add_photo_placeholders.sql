@@ -0,0 +1,12 @@
+-- Placeholders a gallery tile paints before its thumbnail loads, returned inline in listings:
+-- BlurHash of the 200px rendition (~28 characters) and its dominant colour as #rrggbb
+ALTER TABLE photos
+ADD COLUMN IF NOT EXISTS blur_hash VARCHAR(64),
+ADD COLUMN IF NOT EXISTS dominant_color VARCHAR(7);
+
+-- Backfill scan: processed photos still missing a hash or a placeholder
+DROP INDEX IF EXISTS idx_photos_perceptual_hash_missing;
+
+CREATE INDEX IF NOT EXISTS idx_photos_perceptual_hash_missing
+    ON photos(uploaded_at)
+    WHERE (perceptual_hash IS NULL OR blur_hash IS NULL) AND status = 'COMPLETED';
@@ -0,0 +1,2 @@
+-- Superseded by chunk_upload_state (V10); nothing reads or writes per-chunk rows any more
+DROP TABLE IF EXISTS upload_chunks;
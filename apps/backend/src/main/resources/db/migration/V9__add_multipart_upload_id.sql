@@ -0,0 +1,3 @@
+-- Native S3 multipart upload backing a chunked upload (NULL when chunks are stored as separate objects)
+ALTER TABLE photos
+ADD COLUMN IF NOT EXISTS multipart_upload_id VARCHAR(1024);
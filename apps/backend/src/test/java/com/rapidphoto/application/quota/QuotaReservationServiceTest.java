@@ -0,0 +1,94 @@
+package com.rapidphoto.application.quota;
+
+import com.rapidphoto.domain.user.User;
+import com.rapidphoto.domain.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not @Transactional: each reservation must commit on its own connection to race the others
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class QuotaReservationServiceTest {
+
+    @Autowired
+    private QuotaReservationService quotaReservationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User(
+            com.rapidphoto.domain.user.UserId.generate(),
+            new com.rapidphoto.domain.user.Email("quota-" + UUID.randomUUID() + "@example.com"),
+            "quotauser",
+            "hashedPassword"
+        );
+        userRepository.save(testUser);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(testUser.getId().getValue());
+    }
+
+    @Test
+    void concurrentReservationsNeverOvershootQuota() throws Exception {
+        UUID userId = testUser.getId().getValue();
+        long quota = testUser.getStorageQuota().getQuotaBytes();
+        // Twice as many requests as fit: exactly half may succeed
+        int attempts = 40;
+        long bytes = quota / (attempts / 2);
+
+        ExecutorService uploads = Executors.newFixedThreadPool(8);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> done = new ArrayList<>();
+            for (int i = 0; i < attempts; i++) {
+                done.add(uploads.submit(() -> {
+                    start.await();
+                    try {
+                        quotaReservationService.reserve(userId, bytes);
+                        reserved.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : done) {
+                future.get();
+            }
+        } finally {
+            uploads.shutdownNow();
+        }
+
+        long used = userRepository.findById(userId).orElseThrow().getStorageQuota().getUsedBytes();
+        assertEquals(attempts / 2, reserved.get());
+        assertEquals(attempts / 2, rejected.get());
+        assertEquals(reserved.get() * bytes, used);
+        assertTrue(used <= quota);
+    }
+}
@@ -1,23 +1,32 @@
 package com.rapidphoto.features.gallery;
 
+import com.rapidphoto.domain.photo.ContentObject;
+import com.rapidphoto.domain.photo.ContentObjectRepository;
 import com.rapidphoto.domain.photo.Photo;
 import com.rapidphoto.domain.photo.PhotoRepository;
 import com.rapidphoto.domain.photo.PhotoStatus;
 import com.rapidphoto.domain.user.User;
 import com.rapidphoto.domain.user.UserRepository;
 import com.rapidphoto.features.auth.JwtService;
+import com.rapidphoto.features.upload.content.ContentStoreService;
+import com.rapidphoto.infrastructure.storage.StorageService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -39,6 +48,15 @@ class PhotoControllerTest {
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private ContentObjectRepository contentObjectRepository;
+
+    @Autowired
+    private ContentStoreService contentStoreService;
+
+    @Autowired
+    private StorageService storageService;
+
 
     private User testUser;
     private String authToken;
@@ -121,5 +139,80 @@ class PhotoControllerTest {
         Photo deletedPhoto = photoRepository.findById(photo.getId().getValue()).orElseThrow();
         assert deletedPhoto.getStatus() == PhotoStatus.DELETED;
     }
-}
 
+    @Test
+    @WithMockUser(username = "test@example.com")
+    void testDeletePhotoTwice_ReleasesSharedContentOnce() throws Exception {
+        // Two photos share one content-addressed original
+        String sha256 = "ab" + "0".repeat(62);
+        String contentPath = ContentObject.storagePathFor(sha256);
+        byte[] bytes = {1, 2, 3};
+        storageService.store(contentPath, new ByteArrayInputStream(bytes), "image/jpeg", bytes.length);
+        contentObjectRepository.saveAndFlush(new ContentObject(sha256, contentPath, bytes.length, "image/jpeg"));
+        contentObjectRepository.incrementRefCount(sha256);
+
+        Photo photo = null;
+        for (int i = 0; i < 2; i++) {
+            photo = new Photo(
+                com.rapidphoto.domain.photo.PhotoId.generate(),
+                testUser.getId(),
+                "shared.jpg",
+                "shared.jpg",
+                (long) bytes.length,
+                "image/jpeg",
+                "uploads/shared.jpg"
+            );
+            photo.markAsCompleted();
+            contentStoreService.linkPhoto(photo, sha256, contentPath);
+            photoRepository.save(photo);
+        }
+
+        try {
+            // A retried delete must not drop the other photo's reference
+            for (int i = 0; i < 2; i++) {
+                mockMvc.perform(delete("/api/photos/" + photo.getId().getValue())
+                        .header("Authorization", "Bearer " + authToken))
+                    .andExpect(status().isNoContent());
+            }
+
+            assertEquals(1, contentObjectRepository.findById(sha256).orElseThrow().getRefCount());
+            assertTrue(storageService.exists(contentPath));
+        } finally {
+            storageService.delete(contentPath);
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "test@example.com")
+    void testBatchDelete_SkipsOtherUsersPhotos() throws Exception {
+        User otherUser = new User(
+            com.rapidphoto.domain.user.UserId.generate(),
+            new com.rapidphoto.domain.user.Email("other@example.com"),
+            "otheruser",
+            "hashedPassword"
+        );
+        userRepository.save(otherUser);
+        Photo photo = new Photo(
+            com.rapidphoto.domain.photo.PhotoId.generate(),
+            otherUser.getId(),
+            "theirs.jpg",
+            "theirs.jpg",
+            1024L,
+            "image/jpeg",
+            "uploads/theirs.jpg"
+        );
+        photo.markAsCompleted();
+        photoRepository.save(photo);
+
+        mockMvc.perform(post("/api/photos/batch/delete")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"photoIds\":[\"" + photo.getId().getValue() + "\"]}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.successCount").value(0))
+            .andExpect(jsonPath("$.failureCount").value(1));
+
+        assertEquals(PhotoStatus.COMPLETED,
+            photoRepository.findById(photo.getId().getValue()).orElseThrow().getStatus());
+    }
+}
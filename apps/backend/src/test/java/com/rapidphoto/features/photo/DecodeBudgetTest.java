@@ -0,0 +1,92 @@
+package com.rapidphoto.features.photo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecodeBudgetTest {
+
+    // 1000 x 1000 x 4 bytes
+    private static final long MEGAPIXEL_BYTES = 4_000_000;
+
+    @Test
+    void testSmallDecodeOvertakesWaitingLargeDecode() throws Exception {
+        DecodeBudget budget = new DecodeBudget(10 * MEGAPIXEL_BYTES, 60_000);
+        DecodeBudget.Permit running = budget.acquire(2000, 2000);
+
+        CompletableFuture<DecodeBudget.Permit> panorama = acquireAsync(budget, 3000, 2500);
+        waitForWaiters(budget, 1);
+
+        // 4 MP held + 7.5 MP waiting; a 1 MP decode still fits and must not queue behind the panorama
+        try (DecodeBudget.Permit small = budget.acquire(1000, 1000)) {
+            assertEquals(5 * MEGAPIXEL_BYTES, budget.getUsedBytes());
+        }
+        assertFalse(panorama.isDone());
+
+        running.close();
+        panorama.get(5, TimeUnit.SECONDS).close();
+        assertEquals(0, budget.getUsedBytes());
+    }
+
+    @Test
+    void testStarvedDecodeBlocksNewcomersUntilGranted() throws Exception {
+        DecodeBudget budget = new DecodeBudget(10 * MEGAPIXEL_BYTES, 50);
+        DecodeBudget.Permit running = budget.acquire(2000, 2000);
+
+        CompletableFuture<DecodeBudget.Permit> panorama = acquireAsync(budget, 3000, 2500);
+        waitForWaiters(budget, 1);
+        Thread.sleep(100);
+
+        // Would fit, but the panorama has waited past the starvation limit
+        CompletableFuture<DecodeBudget.Permit> small = acquireAsync(budget, 1000, 1000);
+        assertThrows(TimeoutException.class, () -> small.get(200, TimeUnit.MILLISECONDS));
+
+        running.close();
+        DecodeBudget.Permit granted = panorama.get(5, TimeUnit.SECONDS);
+        small.get(5, TimeUnit.SECONDS).close();
+        granted.close();
+        assertEquals(0, budget.getUsedBytes());
+    }
+
+    @Test
+    void testDecodeLargerThanBudgetRunsAlone() throws Exception {
+        DecodeBudget budget = new DecodeBudget(MEGAPIXEL_BYTES, 60_000);
+
+        try (DecodeBudget.Permit giant = budget.acquire(20_000, 10_000)) {
+            assertEquals(MEGAPIXEL_BYTES, giant.getBytes());
+            CompletableFuture<DecodeBudget.Permit> next = acquireAsync(budget, 10, 10);
+            assertThrows(TimeoutException.class, () -> next.get(100, TimeUnit.MILLISECONDS));
+            giant.close();
+            next.get(5, TimeUnit.SECONDS).close();
+        }
+        assertEquals(0, budget.getUsedBytes());
+    }
+
+    private static CompletableFuture<DecodeBudget.Permit> acquireAsync(DecodeBudget budget, int width, int height) {
+        CompletableFuture<DecodeBudget.Permit> future = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                future.complete(budget.acquire(width, height));
+            } catch (InterruptedException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    private static void waitForWaiters(DecodeBudget budget, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (budget.getWaitingCount() < count) {
+            if (System.nanoTime() > deadline) {
+                fail("no decode waiting on the budget");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.rapidphoto.features.photo;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageFingerprintTest {
+
+    @Test
+    void testResizedAndReencodedCopyHashesClose() throws Exception {
+        BufferedImage image = scene(200, 150, 11);
+        ImageFingerprint original = ImageFingerprint.of(image);
+
+        BufferedImage copy = ImageIO.read(new ByteArrayInputStream(
+            RenditionEncoder.encodeJpeg(scale(image, 120, 90), 0.6f)));
+        ImageFingerprint reencoded = ImageFingerprint.of(copy);
+
+        assertTrue(ImageFingerprint.distance(original.getPerceptualHash(), reencoded.getPerceptualHash()) <= 6);
+        assertTrue(ImageFingerprint.distance(original.getDifferenceHash(), reencoded.getDifferenceHash()) <= 6);
+    }
+
+    @Test
+    void testDifferentImagesHashFar() {
+        ImageFingerprint a = ImageFingerprint.of(scene(200, 150, 11));
+        ImageFingerprint b = ImageFingerprint.of(scene(200, 150, 42));
+
+        assertTrue(ImageFingerprint.distance(a.getPerceptualHash(), b.getPerceptualHash()) > 16);
+        assertTrue(ImageFingerprint.distance(a.getDifferenceHash(), b.getDifferenceHash()) > 16);
+    }
+
+    @Test
+    void testDifferenceHashFollowsBrightness() {
+        // Brightness falls left to right everywhere: every bit set
+        BufferedImage fading = new BufferedImage(90, 80, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 90; x++) {
+            int v = 255 - x * 255 / 89;
+            for (int y = 0; y < 80; y++) {
+                fading.setRGB(x, y, new Color(v, v, v).getRGB());
+            }
+        }
+        assertEquals(-1L, ImageFingerprint.of(fading).getDifferenceHash());
+    }
+
+    private static BufferedImage scene(int width, int height, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setPaint(new GradientPaint(0, 0, new Color(random.nextInt(0xffffff)),
+                width, height, new Color(random.nextInt(0xffffff))));
+            g.fillRect(0, 0, width, height);
+            for (int i = 0; i < 12; i++) {
+                g.setColor(new Color(random.nextInt(0xffffff)));
+                g.fillOval(random.nextInt(width), random.nextInt(height), 20 + random.nextInt(80), 20 + random.nextInt(80));
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+}
@@ -0,0 +1,58 @@
+package com.rapidphoto.features.photo;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImagePlaceholderTest {
+
+    @Test
+    void testBlurHashLayout() {
+        String landscape = ImagePlaceholder.of(image(200, 150, Color.RED, Color.RED)).getBlurHash();
+        String portrait = ImagePlaceholder.of(image(150, 200, Color.RED, Color.RED)).getBlurHash();
+
+        // Size flag (4x3 or 3x4 components), quantised maximum, 4-character DC, 2 per AC component
+        assertEquals(28, landscape.length());
+        assertEquals('L', landscape.charAt(0));
+        assertEquals('T', portrait.charAt(0));
+        // DC of pure red is #ff0000
+        assertEquals("TI:j", landscape.substring(2, 6));
+    }
+
+    @Test
+    void testDifferentImagesHashDifferently() {
+        String top = ImagePlaceholder.of(image(200, 150, Color.YELLOW, Color.BLUE)).getBlurHash();
+        String bottom = ImagePlaceholder.of(image(200, 150, Color.BLUE, Color.YELLOW)).getBlurHash();
+
+        assertNotEquals(top, bottom);
+    }
+
+    @Test
+    void testDominantColorIsLargestArea() {
+        BufferedImage image = image(200, 150, new Color(240, 240, 20), new Color(30, 60, 200));
+
+        // The bottom colour covers 70% of the image
+        assertEquals("#1e3cc8", ImagePlaceholder.of(image).getDominantColor());
+    }
+
+    /**
+     * Top 30% in one colour, the rest in another
+     */
+    private static BufferedImage image(int width, int height, Color top, Color bottom) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(bottom);
+            g.fillRect(0, 0, width, height);
+            g.setColor(top);
+            g.fillRect(0, 0, width, height * 3 / 10);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+}
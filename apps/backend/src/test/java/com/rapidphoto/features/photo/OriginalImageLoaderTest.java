@@ -0,0 +1,88 @@
+package com.rapidphoto.features.photo;
+
+import com.rapidphoto.infrastructure.storage.StorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OriginalImageLoaderTest {
+
+    private static final long MAX_IN_MEMORY = 4 * 1024 * 1024;
+
+    @TempDir
+    Path spoolDir;
+
+    private StorageService storageService;
+    private OriginalImageLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        storageService = mock(StorageService.class);
+        loader = new OriginalImageLoader(storageService, MAX_IN_MEMORY, 64 * 1024 * 1024, spoolDir.toString());
+    }
+
+    @Test
+    void testSmallOriginalIsFetchedOnceIntoRecycledBuffer() throws Exception {
+        byte[] content = randomBytes(300_000);
+        when(storageService.retrieve("a.jpg")).thenReturn(new ByteArrayInputStream(content));
+
+        try (OriginalImage original = loader.load("a.jpg", content.length)) {
+            assertFalse(original.isSpooled());
+            assertEquals(content.length, original.getLength());
+            // Every stage reads the same local copy
+            assertArrayEquals(content, readAll(original));
+            assertArrayEquals(content, readAll(original));
+        }
+        verify(storageService, times(1)).retrieve("a.jpg");
+        assertTrue(loader.getPooledBytes() > 0, "buffer should be back in the pool");
+    }
+
+    @Test
+    void testOriginalLongerThanAnnouncedContinuesOnDisk() throws Exception {
+        byte[] content = randomBytes(3 * 1024 * 1024);
+        when(storageService.retrieve("b.jpg")).thenReturn(new ByteArrayInputStream(content));
+
+        Path spooled;
+        try (OriginalImage original = loader.load("b.jpg", 1000)) {
+            assertTrue(original.isSpooled());
+            assertEquals(content.length, original.getLength());
+            assertArrayEquals(content, readAll(original));
+            try (var files = Files.list(spoolDir)) {
+                spooled = files.findFirst().orElseThrow();
+            }
+        }
+        assertFalse(Files.exists(spooled));
+    }
+
+    @Test
+    void testLargeOriginalIsSpooled() throws Exception {
+        byte[] content = randomBytes((int) MAX_IN_MEMORY + 1);
+        when(storageService.retrieve("c.jpg")).thenReturn(new ByteArrayInputStream(content));
+
+        try (OriginalImage original = loader.load("c.jpg", content.length)) {
+            assertTrue(original.isSpooled());
+            assertArrayEquals(content, readAll(original));
+        }
+    }
+
+    private static byte[] readAll(OriginalImage original) throws Exception {
+        try (InputStream in = original.openStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(7).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,96 @@
+package com.rapidphoto.features.photo;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenditionEncoderTest {
+
+    private final RenditionEncoder encoder = new RenditionEncoder(12288, 102400, 327680, 0.5f, 5);
+
+    @Test
+    void testSmoothImageKeepsDefaultQuality() throws Exception {
+        RenditionEncoder.Encoded encoded = encoder.encode(image(800, 600, 0));
+
+        assertEquals(RenditionEncoder.DEFAULT_QUALITY, encoded.getQuality());
+        assertEquals(1, encoded.getEncodes());
+    }
+
+    @Test
+    void testNoisyImageSearchedDownToBudget() throws Exception {
+        BufferedImage noisy = image(800, 600, 24);
+        RenditionEncoder.Encoded encoded = encoder.encode(noisy);
+
+        assertTrue(RenditionEncoder.encodeJpeg(noisy, RenditionEncoder.DEFAULT_QUALITY).length > 102400);
+        assertTrue(encoded.getJpeg().length <= 102400);
+        assertTrue(encoded.getQuality() < RenditionEncoder.DEFAULT_QUALITY);
+        assertTrue(encoded.getQuality() >= 0.5f);
+        assertTrue(encoded.getEncodes() <= 5);
+    }
+
+    @Test
+    void testUnreachableBudgetKeepsSmallestAttempt() throws Exception {
+        RenditionEncoder tight = new RenditionEncoder(256, 256, 256, 0.5f, 3);
+
+        RenditionEncoder.Encoded encoded = tight.encode(image(800, 600, 24));
+
+        assertEquals(0.5f, encoded.getQuality());
+        assertEquals(3, encoded.getEncodes());
+    }
+
+    @Test
+    void testBudgetScalesWithPixelsWithinClass() {
+        assertEquals(102400, encoder.budgetFor(800, 600));
+        assertEquals(51200, encoder.budgetFor(800, 300));
+        assertEquals(327680, encoder.budgetFor(1600, 1200));
+    }
+
+    @Test
+    void testLargeClassIsProgressive() throws Exception {
+        assertTrue(isProgressive(encoder.encode(image(1600, 1200, 0)).getJpeg()));
+        assertFalse(isProgressive(encoder.encode(image(800, 600, 0)).getJpeg()));
+    }
+
+    /**
+     * Gradient with per-pixel noise of the given amplitude
+     */
+    private static BufferedImage image(int width, int height, int noise) {
+        Random random = new Random(7);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int r = clamp(x * 255 / width + jitter(random, noise));
+                int g = clamp(y * 255 / height + jitter(random, noise));
+                int b = clamp((x + y) * 255 / (width + height) + jitter(random, noise));
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        return image;
+    }
+
+    private static int jitter(Random random, int noise) {
+        return noise == 0 ? 0 : random.nextInt(2 * noise) - noise;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+
+    /**
+     * Walk the markers to the frame header: SOF2 for progressive, SOF0 for baseline
+     */
+    private static boolean isProgressive(byte[] jpeg) {
+        int i = 2;
+        while (i + 3 < jpeg.length && (jpeg[i] & 0xff) == 0xff) {
+            int marker = jpeg[i + 1] & 0xff;
+            if (marker == 0xc0 || marker == 0xc1 || marker == 0xc2) {
+                return marker == 0xc2;
+            }
+            i += 2 + (((jpeg[i + 2] & 0xff) << 8) | (jpeg[i + 3] & 0xff));
+        }
+        throw new AssertionError("No frame header");
+    }
+}
@@ -0,0 +1,63 @@
+package com.rapidphoto.features.photo;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Dimension;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenditionSpecTest {
+
+    @Test
+    void testParsesAndKeysRequest() {
+        RenditionSpec spec = RenditionSpec.of(800, 640, "Cover", 85, 4096);
+
+        assertEquals(RenditionSpec.Fit.COVER, spec.getFit());
+        assertEquals("800x640-cover-q85", spec.key());
+        // No quality: encoded to the byte budget
+        assertEquals("800x0-contain-auto", RenditionSpec.of(800, null, null, null, 4096).key());
+        assertEquals("800x800-contain-auto", RenditionSpec.named("medium").key());
+        // Nothing to crop against with one side
+        assertEquals(RenditionSpec.Fit.CONTAIN, RenditionSpec.of(800, null, "cover", 70, 4096).getFit());
+    }
+
+    @Test
+    void testRoundsSidesUpToSizeSteps() {
+        assertEquals("960x640-cover-q85", RenditionSpec.of(801, 600, "cover", 85, 4096).key());
+        assertEquals("32x0-contain-auto", RenditionSpec.of(1, null, null, null, 4096).key());
+        assertEquals(3000, RenditionSpec.quantize(2900, 3000));
+        assertEquals(4500, RenditionSpec.quantize(4200, 4500));
+        // Explicit qualities are kept in memory only
+        assertFalse(RenditionSpec.of(800, null, null, 85, 4096).isPersistent());
+        assertTrue(RenditionSpec.of(800, null, null, null, 4096).isPersistent());
+    }
+
+    @Test
+    void testRejectsOutOfRangeRequests() {
+        assertThrows(IllegalArgumentException.class, () -> RenditionSpec.of(null, null, null, null, 4096));
+        assertThrows(IllegalArgumentException.class, () -> RenditionSpec.of(5000, null, null, null, 4096));
+        assertThrows(IllegalArgumentException.class, () -> RenditionSpec.of(0, 100, null, null, 4096));
+        assertThrows(IllegalArgumentException.class, () -> RenditionSpec.of(100, 100, "stretch", null, 4096));
+        assertThrows(IllegalArgumentException.class, () -> RenditionSpec.of(100, 100, null, 0, 4096));
+        assertThrows(IllegalArgumentException.class, () -> RenditionSpec.named("huge"));
+    }
+
+    @Test
+    void testOutputSizeNeverUpscales() {
+        RenditionSpec contain = RenditionSpec.of(800, 800, null, null, 4096);
+        RenditionSpec cover = RenditionSpec.of(800, 800, "cover", null, 4096);
+
+        assertEquals(new Dimension(800, 600), contain.outputSize(4000, 3000));
+        assertEquals(new Dimension(400, 300), contain.outputSize(400, 300));
+        assertEquals(new Dimension(800, 800), cover.outputSize(4000, 3000));
+        assertEquals(new Dimension(300, 300), cover.outputSize(400, 300));
+    }
+
+    @Test
+    void testRequiredLongSide() {
+        assertEquals(800, RenditionSpec.of(800, 800, null, null, 4096).requiredLongSide(4000, 3000));
+        // Covering 800 rows of a 4:3 photo takes 1067 columns
+        assertEquals(1067, RenditionSpec.of(800, 800, "cover", null, 4096).requiredLongSide(4000, 3000));
+        assertEquals(400, RenditionSpec.of(800, 800, null, null, 4096).requiredLongSide(400, 300));
+    }
+}
@@ -0,0 +1,247 @@
+package com.rapidphoto.features.processing;
+
+import com.rapidphoto.domain.photo.Photo;
+import com.rapidphoto.domain.photo.PhotoRepository;
+import com.rapidphoto.domain.processing.JobStatus;
+import com.rapidphoto.domain.processing.JobType;
+import com.rapidphoto.domain.processing.ProcessingJob;
+import com.rapidphoto.domain.processing.ProcessingJobRepository;
+import com.rapidphoto.domain.user.User;
+import com.rapidphoto.domain.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Claiming, retry and lease recovery against a real Postgres: the claim relies on
+ * FOR UPDATE SKIP LOCKED, which H2 does not have. Skipped where Docker is unavailable.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+class ProcessingJobWorkerTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.flyway.enabled", () -> "true");
+    }
+
+    private static final long RETRY_BACKOFF_MS = 60_000;
+
+    @Autowired
+    private ProcessingJobRepository jobRepository;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User(
+            com.rapidphoto.domain.user.UserId.generate(),
+            new com.rapidphoto.domain.user.Email("worker-" + UUID.randomUUID() + "@example.com"),
+            "workeruser",
+            "hashedPassword"
+        );
+        userRepository.save(testUser);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobRepository.deleteAll();
+        photoRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void twoWorkersClaimEachJobExactlyOnce() throws Exception {
+        int jobCount = 40;
+        for (int i = 0; i < jobCount; i++) {
+            jobRepository.save(new ProcessingJob(UUID.randomUUID(), createPhoto().getId(), JobType.THUMBNAIL_GENERATION));
+        }
+
+        Map<UUID, AtomicInteger> runs = new ConcurrentHashMap<>();
+        ProcessingJobHandler handler = handler(4, photo -> {
+            runs.computeIfAbsent(photo.getId().getValue(), id -> new AtomicInteger()).incrementAndGet();
+            Thread.sleep(5);
+        });
+        List<ProcessingJobWorker> workers = List.of(worker(handler), worker(handler));
+
+        ExecutorService pollers = Executors.newFixedThreadPool(workers.size());
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> done = new ArrayList<>();
+            for (ProcessingJobWorker worker : workers) {
+                done.add(pollers.submit(() -> {
+                    start.await();
+                    while (jobRepository.countByStatus(JobStatus.PENDING) > 0) {
+                        worker.poll();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : done) {
+                future.get();
+            }
+        } finally {
+            pollers.shutdownNow();
+        }
+
+        assertEquals(jobCount, runs.size());
+        runs.forEach((photoId, count) -> assertEquals(1, count.get(), "photo " + photoId + " processed twice"));
+        assertEquals(jobCount, jobRepository.countByStatus(JobStatus.COMPLETED));
+    }
+
+    @Test
+    void claimsHighestPriorityFirst() {
+        List<Integer> priorities = List.of(1, 9, 5);
+        Map<UUID, Integer> priorityByPhoto = new ConcurrentHashMap<>();
+        for (int priority : priorities) {
+            Photo photo = createPhoto();
+            ProcessingJob job = new ProcessingJob(UUID.randomUUID(), photo.getId(), JobType.THUMBNAIL_GENERATION);
+            job.setPriority(priority);
+            jobRepository.save(job);
+            priorityByPhoto.put(photo.getId().getValue(), priority);
+        }
+
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        ProcessingJobWorker worker = worker(handler(1, photo -> order.add(priorityByPhoto.get(photo.getId().getValue()))));
+        for (int i = 0; i < priorities.size(); i++) {
+            worker.poll();
+        }
+
+        assertEquals(List.of(9, 5, 1), order);
+    }
+
+    @Test
+    void failedAttemptIsRequeuedWithBackoff() {
+        ProcessingJob job = jobRepository.save(
+            new ProcessingJob(UUID.randomUUID(), createPhoto().getId(), JobType.THUMBNAIL_GENERATION));
+        ProcessingJobWorker worker = worker(handler(1, photo -> {
+            throw new IllegalStateException("decoder crashed");
+        }));
+
+        LocalDateTime before = LocalDateTime.now();
+        worker.poll();
+
+        ProcessingJob requeued = jobRepository.findById(job.getId()).orElseThrow();
+        assertEquals(JobStatus.PENDING, requeued.getStatus());
+        assertEquals(1, requeued.getRetryCount());
+        assertNull(requeued.getLockedBy());
+        assertTrue(requeued.getErrorMessage().contains("decoder crashed"));
+        assertTrue(requeued.getRunAfter().isAfter(before.plusSeconds(RETRY_BACKOFF_MS / 1000 - 5)),
+            "retry not deferred: run_after=" + requeued.getRunAfter());
+
+        // Not runnable again before run_after
+        worker.poll();
+        assertEquals(1, jobRepository.findById(job.getId()).orElseThrow().getRetryCount());
+    }
+
+    @Test
+    void expiredLeaseIsRequeuedOrFailedByRetriesLeft() {
+        LocalDateTime expired = LocalDateTime.now().minusMinutes(1);
+        ProcessingJob retryable = new ProcessingJob(UUID.randomUUID(), createPhoto().getId(), JobType.THUMBNAIL_GENERATION);
+        retryable.claim("dead-worker", expired);
+        ProcessingJob exhausted = new ProcessingJob(UUID.randomUUID(), createPhoto().getId(), JobType.THUMBNAIL_GENERATION);
+        exhausted.setMaxRetries(0);
+        exhausted.claim("dead-worker", expired);
+        jobRepository.saveAll(List.of(retryable, exhausted));
+
+        worker(handler(1, photo -> {})).heartbeat();
+
+        ProcessingJob requeued = jobRepository.findById(retryable.getId()).orElseThrow();
+        assertEquals(JobStatus.PENDING, requeued.getStatus());
+        assertEquals(1, requeued.getRetryCount());
+        assertNull(requeued.getLockedBy());
+
+        ProcessingJob failed = jobRepository.findById(exhausted.getId()).orElseThrow();
+        assertEquals(JobStatus.FAILED, failed.getStatus());
+        assertEquals("Lease expired", failed.getErrorMessage());
+    }
+
+    private ProcessingJobWorker worker(ProcessingJobHandler handler) {
+        // Jobs run on the polling thread, so a poll returns once its claimed jobs are recorded
+        return new ProcessingJobWorker(List.of(handler), jobRepository, photoRepository, transactionTemplate,
+            Runnable::run, 300_000, RETRY_BACKOFF_MS, RETRY_BACKOFF_MS);
+    }
+
+    private Photo createPhoto() {
+        Photo photo = new Photo(
+            com.rapidphoto.domain.photo.PhotoId.generate(),
+            testUser.getId(),
+            "job.jpg",
+            "job.jpg",
+            1024L,
+            "image/jpeg",
+            "uploads/job.jpg"
+        );
+        photo.markAsCompleted();
+        return photoRepository.save(photo);
+    }
+
+    private static ProcessingJobHandler handler(int concurrency, PhotoAction action) {
+        return new ProcessingJobHandler() {
+            @Override
+            public JobType getJobType() {
+                return JobType.THUMBNAIL_GENERATION;
+            }
+
+            @Override
+            public int getConcurrency() {
+                return concurrency;
+            }
+
+            @Override
+            public Map<String, Object> handle(Photo photo) throws Exception {
+                action.run(photo);
+                return null;
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface PhotoAction {
+        void run(Photo photo) throws Exception;
+    }
+}
@@ -0,0 +1,144 @@
+package com.rapidphoto.features.similarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashIndexTest {
+
+    @Test
+    void testSearchMatchesBruteForce() {
+        Random random = new Random(5);
+        HashIndex index = new HashIndex(0);
+        Map<UUID, Long> byId = new HashMap<>();
+        List<Long> hashes = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            // Clusters of near-duplicates among unrelated photos
+            long hash = i % 10 == 0 || hashes.isEmpty()
+                ? random.nextLong()
+                : flip(hashes.get(random.nextInt(hashes.size())), random.nextInt(12), random);
+            UUID id = UUID.randomUUID();
+            index.put(id, hash);
+            byId.put(id, hash);
+            hashes.add(hash);
+        }
+
+        for (int q = 0; q < 200; q++) {
+            long query = flip(hashes.get(random.nextInt(hashes.size())), random.nextInt(4), random);
+            for (int maxDistance : new int[] {0, 3, 6, 10, 20}) {
+                List<Integer> expected = new ArrayList<>();
+                for (long hash : hashes) {
+                    int distance = Long.bitCount(query ^ hash);
+                    if (distance <= maxDistance) {
+                        expected.add(distance);
+                    }
+                }
+                expected.sort(Comparator.naturalOrder());
+
+                List<SimilarPhoto> found = index.search(query, maxDistance, Integer.MAX_VALUE);
+                assertEquals(expected, found.stream().map(SimilarPhoto::distance).toList());
+                for (SimilarPhoto match : found) {
+                    assertEquals(match.distance(), Long.bitCount(query ^ byId.get(match.photoId())));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testLimitKeepsClosest() {
+        HashIndex index = new HashIndex(0);
+        long hash = 0x0123_4567_89ab_cdefL;
+        for (int bits = 8; bits >= 0; bits--) {
+            index.put(UUID.randomUUID(), hash ^ ((1L << bits) - 1));
+        }
+
+        List<SimilarPhoto> found = index.search(hash, 8, 3);
+
+        assertEquals(List.of(0, 1, 2), found.stream().map(SimilarPhoto::distance).toList());
+    }
+
+    @Test
+    void testPutMovesAndRemoveDrops() {
+        HashIndex index = new HashIndex(0);
+        UUID moved = UUID.randomUUID();
+        UUID removed = UUID.randomUUID();
+        index.put(moved, 1L);
+        index.put(removed, 3L);
+        index.put(moved, -1L);
+
+        assertEquals(2, index.size());
+        assertEquals(List.of(new SimilarPhoto(removed, 0)), index.search(3L, 0, 10));
+        assertEquals(List.of(new SimilarPhoto(moved, 0)), index.search(-1L, 0, 10));
+        assertTrue(index.search(1L, 0, 10).isEmpty());
+
+        assertTrue(index.remove(removed));
+        assertFalse(index.remove(removed));
+        assertTrue(index.search(3L, 0, 10).isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void testCompactionKeepsLiveEntries() {
+        HashIndex index = new HashIndex(0);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            UUID id = UUID.randomUUID();
+            index.put(id, (long) i << 20);
+            ids.add(id);
+        }
+        for (int i = 0; i < 900; i++) {
+            index.remove(ids.get(i));
+        }
+
+        assertEquals(100, index.size());
+        for (int i = 900; i < 1000; i++) {
+            assertEquals(List.of(new SimilarPhoto(ids.get(i), 0)), index.search((long) i << 20, 0, 10));
+        }
+    }
+
+    @Test
+    void testChurnKeepsIdLookupConsistent() {
+        Random random = new Random(22);
+        HashIndex index = new HashIndex(0);
+        Map<UUID, Long> expected = new HashMap<>();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        // Moves and removals across growth, compaction and slot-table rebuilds
+        for (int step = 0; step < 100_000; step++) {
+            UUID id = ids.get(random.nextInt(ids.size()));
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id) != null, index.remove(id));
+            } else {
+                long hash = random.nextInt(64);
+                index.put(id, hash);
+                expected.put(id, hash);
+            }
+        }
+
+        assertEquals(expected.size(), index.size());
+        Map<UUID, Long> found = new HashMap<>();
+        for (long hash = 0; hash < 64; hash++) {
+            for (SimilarPhoto match : index.search(hash, 0, Integer.MAX_VALUE)) {
+                assertNull(found.put(match.photoId(), hash), "photo indexed twice");
+            }
+        }
+        assertEquals(expected, found);
+    }
+
+    private static long flip(long hash, int bits, Random random) {
+        for (int i = 0; i < bits; i++) {
+            hash ^= 1L << random.nextInt(64);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,127 @@
+package com.rapidphoto.features.upload.chunk;
+
+import com.rapidphoto.domain.photo.Photo;
+import com.rapidphoto.domain.photo.PhotoRepository;
+import com.rapidphoto.domain.user.User;
+import com.rapidphoto.domain.user.UserRepository;
+import com.rapidphoto.features.auth.JwtService;
+import com.rapidphoto.infrastructure.storage.StorageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Chunk uploads must not keep a pooled connection while the chunk is written to storage.
+ * Not @Transactional on purpose: a test transaction would hold a connection for the whole request.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ChunkUploadConnectionHoldTest {
+
+    private static final long STORAGE_DELAY_MS = 500;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ChunkSessionRegistry sessionRegistry;
+
+    @SpyBean
+    private StorageService storageService;
+
+    private User testUser;
+    private Photo testPhoto;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User(
+            com.rapidphoto.domain.user.UserId.generate(),
+            new com.rapidphoto.domain.user.Email("hold-" + UUID.randomUUID() + "@example.com"),
+            "holduser",
+            "hashedPassword"
+        );
+        userRepository.save(testUser);
+
+        testPhoto = new Photo(
+            com.rapidphoto.domain.photo.PhotoId.generate(),
+            testUser.getId(),
+            "hold.jpg",
+            "hold.jpg",
+            2048L,
+            "image/jpeg",
+            "uploads/hold.jpg"
+        );
+        photoRepository.save(testPhoto);
+
+        // Simulate a slow object-store PUT
+        doAnswer(invocation -> {
+            Thread.sleep(STORAGE_DELAY_MS);
+            return invocation.callRealMethod();
+        }).when(storageService).store(anyString(), any(), anyString(), anyLong());
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionRegistry.remove(testPhoto.getId().getValue());
+        photoRepository.deleteById(testPhoto.getId().getValue());
+        userRepository.deleteById(testUser.getId().getValue());
+    }
+
+    @Test
+    void testChunkUploadDoesNotHoldConnectionAcrossStorageWrite() throws Exception {
+        String token = jwtService.generateToken(testUser.getId().getValue(), testUser.getEmail().getValue());
+        MockMultipartFile chunk = new MockMultipartFile(
+            "file", "chunk-0", "application/octet-stream", new byte[1024]);
+
+        long start = System.nanoTime();
+        mockMvc.perform(multipart("/api/upload/chunk")
+                .file(chunk)
+                .param("photoId", testPhoto.getId().getValue().toString())
+                .param("chunkNumber", "0")
+                .param("totalChunks", "2")
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk());
+        long requestMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(requestMillis >= STORAGE_DELAY_MS, "storage delay should be part of the request");
+
+        Timer hold = meterRegistry.get("http.server.requests.db.hold")
+            .tag("uri", "/api/upload/chunk")
+            .timer();
+        assertTrue(hold.count() >= 1);
+        // Total connection time of the request stays well below the storage write it contains
+        assertTrue(hold.max(TimeUnit.MILLISECONDS) < STORAGE_DELAY_MS / 2,
+            "connection held for " + hold.max(TimeUnit.MILLISECONDS) + " ms of a " + requestMillis + " ms request");
+    }
+}
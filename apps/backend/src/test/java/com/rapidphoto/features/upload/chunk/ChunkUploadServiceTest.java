@@ -1,7 +1,10 @@
 package com.rapidphoto.features.upload.chunk;
 
+import com.rapidphoto.domain.photo.ChunkUploadState;
+import com.rapidphoto.domain.photo.ChunkUploadStateRepository;
 import com.rapidphoto.domain.photo.Photo;
 import com.rapidphoto.domain.photo.PhotoRepository;
+import com.rapidphoto.domain.photo.PhotoStatus;
 import com.rapidphoto.domain.user.User;
 import com.rapidphoto.domain.user.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,6 +14,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.UUID;
 
@@ -24,12 +28,21 @@ class ChunkUploadServiceTest {
     @Autowired
     private ChunkUploadService chunkUploadService;
 
+    @Autowired
+    private ChunkSessionRegistry sessionRegistry;
+
+    @Autowired
+    private ChunkUploadStateRepository stateRepository;
+
     @Autowired
     private PhotoRepository photoRepository;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     private User testUser;
     private Photo testPhoto;
 
@@ -100,5 +113,60 @@ class ChunkUploadServiceTest {
             chunkUploadService.uploadChunk(request, chunkFile);
         });
     }
-}
 
+    @Test
+    void testFlushMergesChunksFromOtherInstances() {
+        UUID photoId = testPhoto.getId().getValue();
+        ChunkSession session = sessionRegistry.getOrLoad(photoId, 4);
+        session.markReceived(0);
+
+        // Another instance has persisted chunks 2 and 3 meanwhile
+        ChunkUploadState other = new ChunkUploadState(photoId, 4);
+        other.update(new byte[] {0b1100}, 2);
+        stateRepository.saveAndFlush(other);
+
+        sessionRegistry.flush();
+
+        assertArrayEquals(new byte[] {0b1101}, stateRepository.findById(photoId).orElseThrow().getReceivedBitmap());
+        assertEquals(java.util.List.of(1), session.getMissingChunks());
+    }
+
+    @Test
+    void testUploadSplitAcrossInstancesStartsAssembly() {
+        UUID photoId = testPhoto.getId().getValue();
+        // A second instance with its own sessions over the same database
+        ChunkSessionRegistry otherInstance = new ChunkSessionRegistry(photoRepository, stateRepository, transactionTemplate);
+
+        ChunkSession session = sessionRegistry.getOrLoad(photoId, 2);
+        session.markReceived(0);
+        otherInstance.getOrLoad(photoId, 2).markReceived(1);
+        otherInstance.flush();
+        assertFalse(session.isComplete());
+
+        // This instance's merge completes the bitmap: neither instance saw the last chunk arrive
+        sessionRegistry.flush();
+
+        assertTrue(session.isAssemblyTriggered());
+        // Claimed: the photo has already left UPLOADING
+        assertEquals(0, photoRepository.transitionStatus(photoId, PhotoStatus.UPLOADING, PhotoStatus.PROCESSING));
+    }
+
+    @Test
+    void testUploadProgressStartsAssemblyExactlyOnce() {
+        UUID photoId = testPhoto.getId().getValue();
+        ChunkSessionRegistry otherInstance = new ChunkSessionRegistry(photoRepository, stateRepository, transactionTemplate);
+        ChunkSession otherSession = otherInstance.getOrLoad(photoId, 2);
+        otherSession.markReceived(0);
+        otherSession.markReceived(1);
+        otherInstance.flush();
+
+        // The client polls this instance, which has seen none of the chunks
+        ChunkSession session = sessionRegistry.getOrLoad(photoId, 2);
+        chunkUploadService.getUploadProgress(photoId, 2);
+
+        assertTrue(session.isAssemblyTriggered());
+
+        // The other instance notices completion too, but the photo is already claimed
+        assertEquals(0, photoRepository.transitionStatus(photoId, PhotoStatus.UPLOADING, PhotoStatus.PROCESSING));
+    }
+}
@@ -0,0 +1,116 @@
+package com.rapidphoto.features.upload.resumable;
+
+import com.rapidphoto.domain.exceptions.UploadOffsetConflictException;
+import com.rapidphoto.domain.photo.PhotoRepository;
+import com.rapidphoto.domain.user.User;
+import com.rapidphoto.domain.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not @Transactional: the concurrent append runs on another thread and must see the upload
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ResumableUploadServiceTest {
+
+    private static final long LENGTH = 20;
+
+    @Autowired
+    private ResumableUploadService resumableUploadService;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User testUser;
+    private UUID photoId;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User(
+            com.rapidphoto.domain.user.UserId.generate(),
+            new com.rapidphoto.domain.user.Email("resumable-" + UUID.randomUUID() + "@example.com"),
+            "resumableuser",
+            "hashedPassword"
+        );
+        userRepository.save(testUser);
+        photoId = resumableUploadService.create(testUser.getId().getValue(), "resume.jpg", "image/jpeg", LENGTH, null)
+            .getPhotoId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        photoRepository.deleteById(photoId);
+        userRepository.deleteById(testUser.getId().getValue());
+    }
+
+    @Test
+    void resumeAtWrongOffsetIsRejected() {
+        UUID userId = testUser.getId().getValue();
+        assertEquals(4, append(0, 4).getOffset());
+
+        // Replaying the first request, or skipping ahead, must not move the committed offset
+        UploadOffsetConflictException replay = assertThrows(UploadOffsetConflictException.class, () -> append(0, 4));
+        assertEquals(4, replay.getCommittedOffset());
+        UploadOffsetConflictException gap = assertThrows(UploadOffsetConflictException.class, () -> append(6, 4));
+        assertEquals(4, gap.getCommittedOffset());
+        assertEquals(4, resumableUploadService.getState(userId, photoId).getOffset());
+
+        assertEquals(10, append(4, 6).getOffset());
+    }
+
+    @Test
+    void concurrentAppendIsRejectedWhileAnotherIsInProgress() throws Exception {
+        UUID userId = testUser.getId().getValue();
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // A slow client: its body stalls after the first bytes until released
+        InputStream stalled = new ByteArrayInputStream(new byte[4]) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                reading.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.read(b, off, len);
+            }
+        };
+        CompletableFuture<ResumableUploadState> first = CompletableFuture.supplyAsync(() ->
+            resumableUploadService.append(userId, photoId, 0, 4, stalled));
+        assertTrue(reading.await(10, TimeUnit.SECONDS));
+
+        // Same offset while the first append holds the upload: refused rather than interleaved
+        assertThrows(UploadOffsetConflictException.class, () -> append(0, 4));
+
+        release.countDown();
+        assertEquals(4, first.get(10, TimeUnit.SECONDS).getOffset());
+        assertEquals(4, resumableUploadService.getState(userId, photoId).getOffset());
+    }
+
+    private ResumableUploadState append(long offset, int length) {
+        try (InputStream body = new ByteArrayInputStream(new byte[length])) {
+            return resumableUploadService.append(testUser.getId().getValue(), photoId, offset, length, body);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
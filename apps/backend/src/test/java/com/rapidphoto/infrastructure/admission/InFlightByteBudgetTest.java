@@ -0,0 +1,113 @@
+package com.rapidphoto.infrastructure.admission;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InFlightByteBudgetTest {
+
+    private static final long MAX_BYTES = 10_000;
+
+    @Test
+    void testConcurrentAcquireReleaseStaysBalancedUnderRejection() throws Exception {
+        InFlightByteBudget budget = new InFlightByteBudget(MAX_BYTES, 60);
+        AtomicInteger admitted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger overshoots = new AtomicInteger();
+
+        // Far more demand than budget: most attempts are turned away
+        ExecutorService requests = Executors.newFixedThreadPool(16);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                done.add(requests.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 2_000; i++) {
+                        long bytes = 2_000 + (i % 7) * 500;
+                        if (!budget.tryAcquire(bytes)) {
+                            rejected.incrementAndGet();
+                            continue;
+                        }
+                        admitted.incrementAndGet();
+                        if (budget.getInFlightBytes() > MAX_BYTES) {
+                            overshoots.incrementAndGet();
+                        }
+                        // Hold the reservation briefly, like a request body being read
+                        LockSupport.parkNanos(10_000);
+                        budget.release(bytes);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : done) {
+                future.get();
+            }
+        } finally {
+            requests.shutdownNow();
+        }
+
+        assertTrue(admitted.get() > 0);
+        assertTrue(rejected.get() > 0, "test never exercised the rejection path");
+        assertEquals(0, overshoots.get());
+        assertEquals(0, budget.getInFlightBytes());
+    }
+
+    @Test
+    void testFilterReleasesOnlyWhatItAcquired() throws Exception {
+        InFlightByteBudget budget = new InFlightByteBudget(MAX_BYTES, 60);
+        UploadAdmissionFilter filter = new UploadAdmissionFilter(budget, 1, MAX_BYTES, 1);
+
+        // Over budget: 503, nothing reserved, nothing released
+        budget.acquire(MAX_BYTES);
+        MockHttpServletResponse overBudget = upload(filter, 5_000, (req, res) -> fail("should not reach the controller"));
+        assertEquals(503, overBudget.getStatus());
+        assertNotNull(overBudget.getHeader("Retry-After"));
+        assertEquals(MAX_BYTES, budget.getInFlightBytes());
+        budget.release(MAX_BYTES);
+
+        // Admitted request whose handler fails still gives its bytes back
+        assertThrows(IllegalStateException.class, () -> upload(filter, 5_000, (req, res) -> {
+            assertEquals(5_000, budget.getInFlightBytes());
+            throw new IllegalStateException("handler failed");
+        }));
+        assertEquals(0, budget.getInFlightBytes());
+
+        // Concurrency cap: the second request is rejected without touching the budget
+        upload(filter, 5_000, (req, res) -> {
+            MockHttpServletResponse second = upload(filter, 1_000, (r, s) -> fail("over the request cap"));
+            assertEquals(503, second.getStatus());
+            assertEquals(5_000, budget.getInFlightBytes());
+        });
+        assertEquals(0, budget.getInFlightBytes());
+
+        // The permit was returned too: the next request is admitted
+        AtomicInteger handled = new AtomicInteger();
+        upload(filter, 1_000, (req, res) -> handled.incrementAndGet());
+        assertEquals(1, handled.get());
+    }
+
+    private static MockHttpServletResponse upload(UploadAdmissionFilter filter, int bytes, FilterChain chain)
+            throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/api/upload/chunk");
+        request.setContent(new byte[bytes]);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,126 @@
+package com.rapidphoto.infrastructure.scheduling;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FairQueueExecutorTest {
+
+    private static final long SMALL_MAX = 1024 * 1024;
+
+    private FairQueueExecutor executor;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (executor != null) {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    void testLateTenantIsNotQueuedBehindBulkTenant() throws Exception {
+        executor = new FairQueueExecutor("Test-Worker-", 1, 100, SMALL_MAX, false, 5);
+        UUID bulkUser = UUID.randomUUID();
+        UUID otherUser = UUID.randomUUID();
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch gate = blockWorker();
+        CountDownLatch done = new CountDownLatch(21);
+
+        for (int i = 0; i < 20; i++) {
+            WorkTenant.run(bulkUser, 100_000, () -> executor.execute(() -> {
+                order.add("bulk");
+                done.countDown();
+            }));
+        }
+        WorkTenant.run(otherUser, 100_000, () -> executor.execute(() -> {
+            order.add("other");
+            done.countDown();
+        }));
+        assertEquals(20, executor.getQueueDepthByTenant().get(bulkUser.toString()));
+
+        gate.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        // One quantum of the bulk user's work at most, then the other user's turn
+        int otherPosition = order.indexOf("other");
+        assertTrue(otherPosition <= (int) (SMALL_MAX / 100_000), "other user ran at position " + otherPosition);
+    }
+
+    @Test
+    void testSmallTaskOvertakesQueuedLargeTasks() throws Exception {
+        executor = new FairQueueExecutor("Test-Worker-", 1, 100, SMALL_MAX, false, 5);
+        UUID user = UUID.randomUUID();
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch gate = blockWorker();
+        CountDownLatch done = new CountDownLatch(4);
+
+        for (int i = 0; i < 3; i++) {
+            WorkTenant.run(user, 100 * SMALL_MAX, () -> executor.execute(() -> {
+                order.add("large");
+                done.countDown();
+            }));
+        }
+        WorkTenant.run(user, SMALL_MAX / 2, () -> executor.execute(() -> {
+            order.add("small");
+            done.countDown();
+        }));
+
+        gate.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(order.indexOf("small") <= 1, "small task ran at position " + order.indexOf("small"));
+    }
+
+    @Test
+    void testRejectsWhenQueueFull() throws Exception {
+        executor = new FairQueueExecutor("Test-Worker-", 1, 2, SMALL_MAX, false, 5);
+        CountDownLatch gate = blockWorker();
+
+        executor.execute(() -> { });
+        executor.execute(() -> { });
+        assertThrows(TaskRejectedException.class, () -> executor.execute(() -> { }));
+
+        gate.countDown();
+    }
+
+    @Test
+    void testTaskRunsUnderSubmittingTenant() throws Exception {
+        executor = new FairQueueExecutor("Test-Worker-", 1, 10, SMALL_MAX, false, 5);
+        UUID user = UUID.randomUUID();
+        CountDownLatch done = new CountDownLatch(1);
+        String[] seen = new String[1];
+
+        WorkTenant.run(user, 42, () -> executor.execute(() -> {
+            seen[0] = WorkTenant.current().getKey();
+            done.countDown();
+        }));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(user.toString(), seen[0]);
+    }
+
+    /**
+     * Occupy the single worker until the returned latch is released
+     */
+    private CountDownLatch blockWorker() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return gate;
+    }
+}
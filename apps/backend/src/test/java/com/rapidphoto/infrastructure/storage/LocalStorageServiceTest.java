@@ -0,0 +1,123 @@
+package com.rapidphoto.infrastructure.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalStorageServiceTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalStorageServiceTest.class);
+
+    private static final int CHUNK_SIZE = 5 * 1024 * 1024;
+    private static final int CHUNK_COUNT = 20;
+
+    @TempDir
+    Path uploadDir;
+
+    private LocalStorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        storageService = new LocalStorageService();
+        ReflectionTestUtils.setField(storageService, "uploadDir", uploadDir.toString());
+    }
+
+    @Test
+    void testConcatenatePreservesChunkOrder() throws Exception {
+        List<String> chunkPaths = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String path = "photo/chunks/chunk_" + i;
+            byte[] data = ("chunk-" + i + ";").getBytes();
+            storageService.store(path, new ByteArrayInputStream(data), "application/octet-stream", data.length);
+            chunkPaths.add(path);
+        }
+
+        storageService.concatenate(chunkPaths, "user/final.jpg", "image/jpeg");
+
+        assertEquals("chunk-0;chunk-1;chunk-2;", Files.readString(uploadDir.resolve("user/final.jpg")));
+        // No partial files left next to the target
+        try (var files = Files.list(uploadDir.resolve("user"))) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void testConcatenateMissingChunkFails() {
+        assertThrows(StorageException.class, () ->
+            storageService.concatenate(List.of("photo/chunks/chunk_0"), "user/final.jpg", "image/jpeg")
+        );
+        assertFalse(storageService.exists("user/final.jpg"));
+    }
+
+    /**
+     * Assembly throughput for 20 x 5MB chunks: heap-buffer copy via /tmp (previous
+     * ChunkAssemblyService behaviour) vs transferTo + atomic rename.
+     * Run with -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkChunkAssembly() throws Exception {
+        Random random = new Random(42);
+        byte[] chunk = new byte[CHUNK_SIZE];
+        List<String> chunkPaths = new ArrayList<>();
+        for (int i = 0; i < CHUNK_COUNT; i++) {
+            random.nextBytes(chunk);
+            String path = "bench/chunks/chunk_" + i;
+            storageService.store(path, new ByteArrayInputStream(chunk), "application/octet-stream", chunk.length);
+            chunkPaths.add(path);
+        }
+        double totalMb = (double) CHUNK_SIZE * CHUNK_COUNT / (1024 * 1024);
+
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            assembleViaHeapBuffer(chunkPaths, "bench/legacy.bin");
+            long legacyNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            storageService.concatenate(chunkPaths, "bench/zero-copy.bin", "application/octet-stream");
+            long zeroCopyNanos = System.nanoTime() - start;
+
+            logger.info("round {}: heap-buffer {} MB/s, transferTo {} MB/s", round,
+                String.format("%.1f", totalMb / (legacyNanos / 1e9)),
+                String.format("%.1f", totalMb / (zeroCopyNanos / 1e9)));
+        }
+
+        assertEquals(Files.size(uploadDir.resolve("bench/legacy.bin")),
+            Files.size(uploadDir.resolve("bench/zero-copy.bin")));
+    }
+
+    private void assembleViaHeapBuffer(List<String> chunkPaths, String targetPath) throws Exception {
+        Path tempFile = Files.createTempFile("assembly_bench", ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tempFile.toFile())) {
+            for (String chunkPath : chunkPaths) {
+                try (InputStream chunkStream = storageService.retrieve(chunkPath)) {
+                    byte[] buffer = new byte[8192];
+                    int bytesRead;
+                    while ((bytesRead = chunkStream.read(buffer)) != -1) {
+                        fos.write(buffer, 0, bytesRead);
+                    }
+                }
+            }
+        }
+        try (FileInputStream fis = new FileInputStream(tempFile.toFile())) {
+            storageService.store(targetPath, fis, "application/octet-stream", Files.size(tempFile));
+        }
+        Files.deleteIfExists(tempFile);
+    }
+}
@@ -14,6 +14,8 @@ export interface PhotoResponse {
   thumbnailSmallUrl?: string;
   thumbnailMediumUrl?: string;
   thumbnailLargeUrl?: string;
+  blurHash?: string; // Placeholder painted until the thumbnail loads
+  dominantColor?: string; // #rrggbb
   exifData?: Record<string, any>;
   aiTags?: Record<string, any>;
   metadata?: Record<string, any>;
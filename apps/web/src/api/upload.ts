@@ -20,9 +20,10 @@ const retryWithBackoff = async <T>(
     } catch (error: any) {
       lastError = error;
       
-      // Only retry on rate limit (429) or network errors
+      // Only retry on rate limit (429), upload backpressure (503) or network errors
+      const throttled = error.response?.status === 429 || error.response?.status === 503;
       if (attempt < maxRetries && (
-        error.response?.status === 429 || 
+        throttled ||
         error.code === 'ECONNABORTED' ||
         error.code === 'ETIMEDOUT' ||
         !error.response
@@ -30,7 +31,7 @@ const retryWithBackoff = async <T>(
         // Check for Retry-After header from rate limit response
         let delay = baseDelay * Math.pow(2, attempt); // Exponential backoff
         
-        if (error.response?.status === 429) {
+        if (throttled) {
           const retryAfter = error.response?.headers?.['retry-after'];
           if (retryAfter) {
             // Use Retry-After header value (in seconds), convert to milliseconds
@@ -125,40 +126,38 @@ export const uploadApi = {
   initializeUpload: async (
     originalFileName: string,
     mimeType: string,
-    fileSizeBytes: number
+    fileSizeBytes: number,
+    adaptiveChunking: boolean = false
   ): Promise<UploadResponse> => {
+    // adaptiveChunking: caller will use the chunkSize/totalChunks the server returns
     const response = await apiClient.post<UploadResponse>('/upload/initialize', {
       originalFileName,
       mimeType,
       fileSizeBytes,
+      adaptiveChunking,
     });
 
     return response.data;
   },
 
   /**
-   * Upload a chunk
+   * Upload a chunk as a raw request body; the server times the body to size later chunks
    * Includes retry logic for rate-limited requests
    */
   uploadChunk: async (
     photoId: string,
     chunkNumber: number,
     totalChunks: number,
-    file: File
+    chunk: Blob
   ): Promise<ChunkUploadResponse> => {
     return retryWithBackoff(async () => {
-      const formData = new FormData();
-      formData.append('photoId', photoId);
-      formData.append('chunkNumber', chunkNumber.toString());
-      formData.append('totalChunks', totalChunks.toString());
-      formData.append('file', file);
-
-      const response = await apiClient.post<ChunkUploadResponse>(
-        '/upload/chunk',
-        formData,
+      const response = await apiClient.put<ChunkUploadResponse>(
+        `/upload/${photoId}/chunk/${chunkNumber}`,
+        chunk,
         {
           headers: {
-            'Content-Type': 'multipart/form-data',
+            'Content-Type': 'application/octet-stream',
+            'X-Total-Chunks': totalChunks.toString(),
           },
           timeout: 300000, // 5 minutes timeout for large chunks
         }
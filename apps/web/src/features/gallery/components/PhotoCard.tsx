@@ -1,6 +1,7 @@
-import React, { memo, useState, useEffect, useRef } from 'react';
+import React, { memo, useState, useEffect, useRef, useMemo } from 'react';
 import { PhotoResponse } from '../../../api/gallery';
 import { formatFileSize } from '../../../utils/fileUtils';
+import { blurHashToDataUrl } from '../../../utils/blurHash';
 
 interface PhotoCardProps {
   photo: PhotoResponse;
@@ -25,6 +26,11 @@ export const PhotoCard: React.FC<PhotoCardProps> = memo(({
   const [imageError, setImageError] = useState(false);
   const [isInView, setIsInView] = useState(false);
   const [showQuickActions, setShowQuickActions] = useState(false);
+  // Placeholder from the listing itself - paints before any thumbnail request
+  const placeholderUrl = useMemo(
+    () => (photo.blurHash ? blurHashToDataUrl(photo.blurHash) : null),
+    [photo.blurHash]
+  );
   const imgRef = useRef<HTMLImageElement>(null);
   const containerRef = useRef<HTMLDivElement>(null);
   const cardRef = useRef<HTMLDivElement>(null);
@@ -106,14 +112,27 @@ export const PhotoCard: React.FC<PhotoCardProps> = memo(({
       )}
 
       {/* Thumbnail Image with Lazy Loading and Blur-up Placeholder */}
-      <div ref={containerRef} className="aspect-square bg-black overflow-hidden relative">
-        {/* Shimmer loading placeholder */}
+      <div
+        ref={containerRef}
+        className="aspect-square bg-black overflow-hidden relative"
+        style={photo.dominantColor ? { backgroundColor: photo.dominantColor } : undefined}
+      >
+        {/* BlurHash placeholder, or shimmer for photos without one */}
         {!imageLoaded && !imageError && (
-          <div className="absolute inset-0 shimmer bg-white/5" />
+          placeholderUrl ? (
+            <img
+              src={placeholderUrl}
+              alt=""
+              aria-hidden="true"
+              className="absolute inset-0 w-full h-full object-cover"
+            />
+          ) : (
+            <div className="absolute inset-0 shimmer bg-white/5" />
+          )
         )}
         
         {/* Blur-up placeholder */}
-        {isInView && !imageLoaded && !imageError && (
+        {isInView && !imageLoaded && !imageError && !placeholderUrl && (
           <div className="absolute inset-0 bg-white/5 blur-sm scale-110" />
         )}
         
@@ -10,6 +10,7 @@ const PARALLEL_CHUNKS_PER_FILE = 10; // Upload 10 chunks in parallel per file fo
 interface ChunkUploadState {
   photoId: string;
   totalChunks: number;
+  chunkSize: number;
   uploadedChunks: number;
   failedChunks: Set<number>;
   isComplete: boolean;
@@ -31,12 +32,7 @@ export const useChunkedUpload = () => {
       retryCount: number = 0
     ): Promise<ChunkUploadResponse> => {
       try {
-        // Create a File from Blob for the API
-        const chunkFile = new File([chunkBlob], `chunk-${chunkNumber}`, {
-          type: chunkBlob.type || 'application/octet-stream',
-        });
-
-        const response = await uploadApi.uploadChunk(photoId, chunkNumber, totalChunks, chunkFile);
+        const response = await uploadApi.uploadChunk(photoId, chunkNumber, totalChunks, chunkBlob);
         return response;
       } catch (error) {
         if (retryCount < MAX_RETRIES) {
@@ -55,23 +51,28 @@ export const useChunkedUpload = () => {
       file: File,
       onProgress?: (photoId: string, progress: number, uploadedChunks: number, totalChunks: number) => void
     ): Promise<string> => {
-      const totalChunks = calculateTotalChunks(file.size);
-
       // Initialize upload (userId comes from JWT token)
       const initResponse = await uploadApi.initializeUpload(
         file.name,
         file.type,
-        file.size
+        file.size,
+        true
       );
 
       const photoId = initResponse.photoId;
 
+      // Server sizes chunks to this client's measured link; fall back to the static size
+      const chunkSize = initResponse.chunkSize ?? CHUNK_SIZE;
+      const totalChunks = initResponse.totalChunks ?? calculateTotalChunks(file.size);
+      const parallelChunks = initResponse.parallelism ?? PARALLEL_CHUNKS_PER_FILE;
+
       // Initialize state
       setUploadState((prev) => {
         const newState = new Map(prev);
         newState.set(photoId, {
           photoId,
           totalChunks,
+          chunkSize,
           uploadedChunks: 0,
           failedChunks: new Set(),
           isComplete: false,
@@ -79,18 +80,18 @@ export const useChunkedUpload = () => {
         return newState;
       });
 
-      // Upload chunks in parallel (10 at a time) for ultra-fast performance
+      // Upload chunks in parallel batches
       let currentChunk = 0;
 
       while (currentChunk < totalChunks) {
         // Determine how many chunks to upload in this batch
-        const batchSize = Math.min(PARALLEL_CHUNKS_PER_FILE, totalChunks - currentChunk);
+        const batchSize = Math.min(parallelChunks, totalChunks - currentChunk);
         const chunkPromises: Promise<{ chunkNumber: number; response: ChunkUploadResponse }>[] = [];
 
         // Create promises for parallel chunk uploads
         for (let i = 0; i < batchSize; i++) {
           const chunkNumber = currentChunk + i;
-          const chunkBlob = processChunk(file, chunkNumber, CHUNK_SIZE);
+          const chunkBlob = processChunk(file, chunkNumber, chunkSize);
 
           const promise = uploadChunkWithRetry(photoId, chunkNumber, totalChunks, chunkBlob)
             .then((response) => ({ chunkNumber, response }))
@@ -162,7 +163,7 @@ export const useChunkedUpload = () => {
       const failedChunks = Array.from(state.failedChunks);
 
       for (const chunkNumber of failedChunks) {
-        const chunkBlob = processChunk(file, chunkNumber, CHUNK_SIZE);
+        const chunkBlob = processChunk(file, chunkNumber, state.chunkSize);
 
         try {
           const response = await uploadChunkWithRetry(photoId, chunkNumber, totalChunks, chunkBlob);
@@ -16,6 +16,9 @@ export interface UploadResponse {
   uploadUrl: string;
   status: string;
   message: string;
+  chunkSize?: number;
+  totalChunks?: number;
+  parallelism?: number;
 }
 
 export interface ChunkUploadResponse {
@@ -0,0 +1,97 @@
+const BASE83 = '0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[\\]^_{|}~';
+
+const decode83 = (str: string): number => {
+  let value = 0;
+  for (const char of str) {
+    value = value * 83 + BASE83.indexOf(char);
+  }
+  return value;
+};
+
+const sRGBToLinear = (value: number): number => {
+  const v = value / 255;
+  return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+};
+
+const linearToSRGB = (value: number): number => {
+  const v = Math.max(0, Math.min(1, value));
+  return v <= 0.0031308
+    ? Math.round(v * 12.92 * 255)
+    : Math.round((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255);
+};
+
+const signPow = (value: number, exp: number): number =>
+  Math.sign(value) * Math.pow(Math.abs(value), exp);
+
+/**
+ * Decode a BlurHash into RGBA pixels; null when the hash is malformed
+ */
+export const decodeBlurHash = (hash: string, width: number, height: number): Uint8ClampedArray | null => {
+  if (!hash || hash.length < 6) return null;
+
+  const sizeFlag = decode83(hash[0]);
+  const componentsY = Math.floor(sizeFlag / 9) + 1;
+  const componentsX = (sizeFlag % 9) + 1;
+  if (hash.length !== 4 + 2 * componentsX * componentsY) return null;
+
+  const maximumValue = (decode83(hash[1]) + 1) / 166;
+  const colors: number[][] = [];
+  const dc = decode83(hash.substring(2, 6));
+  colors.push([sRGBToLinear(dc >> 16), sRGBToLinear((dc >> 8) & 255), sRGBToLinear(dc & 255)]);
+  for (let i = 1; i < componentsX * componentsY; i++) {
+    const ac = decode83(hash.substring(4 + i * 2, 6 + i * 2));
+    colors.push([
+      signPow((Math.floor(ac / (19 * 19)) - 9) / 9, 2) * maximumValue,
+      signPow(((Math.floor(ac / 19) % 19) - 9) / 9, 2) * maximumValue,
+      signPow(((ac % 19) - 9) / 9, 2) * maximumValue,
+    ]);
+  }
+
+  const pixels = new Uint8ClampedArray(width * height * 4);
+  for (let y = 0; y < height; y++) {
+    for (let x = 0; x < width; x++) {
+      let r = 0;
+      let g = 0;
+      let b = 0;
+      for (let j = 0; j < componentsY; j++) {
+        for (let i = 0; i < componentsX; i++) {
+          const basis = Math.cos((Math.PI * x * i) / width) * Math.cos((Math.PI * y * j) / height);
+          const color = colors[i + j * componentsX];
+          r += color[0] * basis;
+          g += color[1] * basis;
+          b += color[2] * basis;
+        }
+      }
+      const offset = 4 * (x + y * width);
+      pixels[offset] = linearToSRGB(r);
+      pixels[offset + 1] = linearToSRGB(g);
+      pixels[offset + 2] = linearToSRGB(b);
+      pixels[offset + 3] = 255;
+    }
+  }
+  return pixels;
+};
+
+const dataUrlCache = new Map<string, string | null>();
+
+/**
+ * Render a BlurHash to a small PNG data URL, to be stretched (and smoothed) by the browser.
+ * Decoded once per hash per page load.
+ */
+export const blurHashToDataUrl = (hash: string, width = 32, height = 32): string | null => {
+  const key = `${hash}:${width}x${height}`;
+  if (dataUrlCache.has(key)) return dataUrlCache.get(key) ?? null;
+
+  let url: string | null = null;
+  const pixels = decodeBlurHash(hash, width, height);
+  const canvas = pixels ? document.createElement('canvas') : null;
+  const context = canvas?.getContext('2d');
+  if (pixels && canvas && context) {
+    canvas.width = width;
+    canvas.height = height;
+    context.putImageData(new ImageData(pixels, width, height), 0, 0);
+    url = canvas.toDataURL();
+  }
+  dataUrlCache.set(key, url);
+  return url;
+};
@@ -0,0 +1,96 @@
+// Chunked-upload load test for the backend (k6: https://k6.io)
+//
+// Each virtual user initializes a photo upload and sends its chunks one after another,
+// so the number of concurrent chunk requests equals the VU count.
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e VUS=2000 -e FILE_MB=20 scripts/loadtest/chunk-upload.k6.js
+//
+// See VIRTUAL_THREADS_LOAD_TEST_RUNBOOK.md for how to run the platform vs virtual thread comparison.
+
+import http from 'k6/http';
+import { check, fail } from 'k6';
+import { Counter, Trend } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const VUS = parseInt(__ENV.VUS || '500', 10);
+const DURATION = __ENV.DURATION || '3m';
+const FILE_MB = parseInt(__ENV.FILE_MB || '20', 10);
+const EMAIL = __ENV.EMAIL || 'test@rapidphoto.com';
+const PASSWORD = __ENV.PASSWORD || 'password';
+
+export const options = {
+  scenarios: {
+    uploads: {
+      executor: 'ramping-vus',
+      startVUs: 0,
+      stages: [
+        { duration: '30s', target: VUS },
+        { duration: DURATION, target: VUS },
+        { duration: '15s', target: 0 },
+      ],
+      gracefulRampDown: '30s',
+    },
+  },
+  thresholds: {
+    'http_req_failed{kind:chunk}': ['rate<0.05'],
+  },
+};
+
+const chunkDuration = new Trend('chunk_duration', true);
+const throttled = new Counter('chunk_throttled');
+const completedFiles = new Counter('files_completed');
+
+// Same bytes for every chunk; content does not matter to the server for this test
+const CHUNK_SIZE = 5 * 1024 * 1024;
+const chunkBody = new Uint8Array(CHUNK_SIZE).fill(0x5a).buffer;
+
+export function setup() {
+  const res = http.post(`${BASE_URL}/api/auth/login`,
+    JSON.stringify({ email: EMAIL, password: PASSWORD }),
+    { headers: { 'Content-Type': 'application/json' } });
+  if (res.status !== 200) {
+    fail(`login failed: ${res.status} ${res.body}`);
+  }
+  return { token: res.json('token') };
+}
+
+export default function (data) {
+  const auth = { Authorization: `Bearer ${data.token}` };
+  const fileSize = FILE_MB * 1024 * 1024;
+
+  const init = http.post(`${BASE_URL}/api/upload/initialize`,
+    JSON.stringify({
+      originalFileName: `load-${__VU}-${__ITER}.jpg`,
+      mimeType: 'image/jpeg',
+      fileSizeBytes: fileSize,
+    }),
+    { headers: { ...auth, 'Content-Type': 'application/json' }, tags: { kind: 'initialize' } });
+  if (!check(init, { 'initialized': (r) => r.status === 200 })) {
+    return;
+  }
+
+  const photoId = init.json('photoId');
+  const totalChunks = init.json('totalChunks') || Math.ceil(fileSize / CHUNK_SIZE);
+  const chunkSize = init.json('chunkSize') || CHUNK_SIZE;
+
+  for (let chunk = 0; chunk < totalChunks; chunk++) {
+    const length = Math.min(chunkSize, fileSize - chunk * chunkSize);
+    const body = {
+      photoId,
+      chunkNumber: String(chunk),
+      totalChunks: String(totalChunks),
+      file: http.file(length === CHUNK_SIZE ? chunkBody : chunkBody.slice(0, length), 'chunk', 'application/octet-stream'),
+    };
+    const res = http.post(`${BASE_URL}/api/upload/chunk`, body,
+      { headers: auth, tags: { kind: 'chunk' }, timeout: '300s' });
+    chunkDuration.add(res.timings.duration);
+    if (res.status === 503 || res.status === 429) {
+      throttled.add(1);
+      return;
+    }
+    if (!check(res, { 'chunk accepted': (r) => r.status === 200 })) {
+      return;
+    }
+  }
+  completedFiles.add(1);
+}